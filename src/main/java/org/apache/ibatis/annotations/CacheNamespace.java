@@ -22,6 +22,7 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheSerializer;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 
@@ -39,12 +40,37 @@ public @interface CacheNamespace {
 
   long flushInterval() default 0;
 
+  /**
+   * The number of milliseconds each entry lives after it was put. 0 means that entries do not expire.
+   * @since 3.5.3
+   */
+  long timeToLive() default 0;
+
+  /**
+   * The number of milliseconds before its expiration from which an entry is reloaded by the next session reading it.
+   * Only used with {@link #timeToLive()}.
+   * @since 3.5.3
+   */
+  long refreshAhead() default 0;
+
   int size() default 1024;
 
   boolean readWrite() default true;
 
   boolean blocking() default false;
 
+  /**
+   * The serializer used to copy the cached objects. {@link CacheSerializer} itself means the serializer of the configuration.
+   * @since 3.5.3
+   */
+  Class<? extends CacheSerializer> serializer() default CacheSerializer.class;
+
+  /**
+   * The remote cache shared by all the nodes, behind the local cache. {@link Cache} itself means no remote cache.
+   * @since 3.5.3
+   */
+  Class<? extends Cache> remote() default Cache.class;
+
   /**
    * Property values for a implementation object.
    * @since 3.4.2
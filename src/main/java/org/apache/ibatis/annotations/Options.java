@@ -63,4 +63,32 @@ public @interface Options {
   String keyColumn() default "";
 
   String resultSets() default "";
+
+  /**
+   * The comma separated tables read or written by the statement, used to invalidate the second level cache by table.
+   * By default the tables are parsed from the SQL.
+   * @since 3.5.3
+   */
+  String tables() default "";
+
+  /**
+   * The comma separated tables that a reordering batch executor must write before this statement,
+   * such as the parent tables of its foreign keys.
+   * @since 3.5.3
+   */
+  String dependsOn() default "";
+
+  /**
+   * The number of rows after which a batch executor executes the batch of the statement.
+   * By default the defaultBatchSize setting is used.
+   * @since 3.5.3
+   */
+  int batchSize() default -1;
+
+  /**
+   * The estimated bytes of parameters after which a batch executor executes its pending batches.
+   * By default the defaultBatchMaxBytes setting is used.
+   * @since 3.5.3
+   */
+  long batchMaxBytes() default -1;
 }
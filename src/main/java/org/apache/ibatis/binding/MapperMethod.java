@@ -23,6 +23,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
@@ -67,6 +70,14 @@ public class MapperMethod {
    * @return
    */
   public Object execute(SqlSession sqlSession, Object[] args) {
+    if (method.returnsFuture()) {
+      // 返回CompletableFuture，在session的异步视图中按提交顺序执行
+      return sqlSession.getAsyncSession().submit(session -> executeNow(session, args));
+    }
+    return executeNow(sqlSession, args);
+  }
+
+  private Object executeNow(SqlSession sqlSession, Object[] args) {
     Object result;
     switch (command.getType()) {
       case INSERT: {
@@ -337,6 +348,8 @@ public class MapperMethod {
     private final boolean returnsCursor;
     // Optional？？
     private final boolean returnsOptional;
+    // 返回类型是否是CompletableFuture，此时其余字段描述的是future的结果类型
+    private final boolean returnsFuture;
     // 返回值类型
     private final Class<?> returnType;
     // 如果返回值类型为Map，该字段记录作为Key的别名
@@ -351,21 +364,29 @@ public class MapperMethod {
     public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
       // 解析返回值类型
       Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+      this.returnsFuture = isFutureType(method.getReturnType());
+      if (this.returnsFuture) {
+        // CompletableFuture<T> --> T
+        resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+            ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+      }
       if (resolvedReturnType instanceof Class<?>) {
         // 设置returnType
         this.returnType = (Class<?>) resolvedReturnType;
       } else if (resolvedReturnType instanceof ParameterizedType) {
         // 如果是泛型，获取原生类型  例如A.B<C>  getRawType() --> A.B  ; List<String>  --> List
         this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
+      } else if (this.returnsFuture) {
+        this.returnType = Object.class;
       } else {
         this.returnType = method.getReturnType();
       }
-      this.returnsVoid = void.class.equals(this.returnType);
+      this.returnsVoid = void.class.equals(this.returnType) || (this.returnsFuture && Void.class.equals(this.returnType));
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       this.returnsCursor = Cursor.class.equals(this.returnType);
       this.returnsOptional = Optional.class.equals(this.returnType);
       // 检查method中是否含有@MapKey注解，并且该method的返回值类型为Map
-      this.mapKey = getMapKey(method);
+      this.mapKey = getMapKey(method, this.returnType);
       this.returnsMap = this.mapKey != null;
       // 获得RowBounds的索引
       this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
@@ -429,6 +450,19 @@ public class MapperMethod {
       return returnsOptional;
     }
 
+    /**
+     * return whether return type is {@code java.util.concurrent.CompletableFuture}, or one of its interfaces.
+     * @return return {@code true}, if the method runs asynchronously
+     * @since 3.5.3
+     */
+    public boolean returnsFuture() {
+      return returnsFuture;
+    }
+
+    private static boolean isFutureType(Class<?> type) {
+      return CompletableFuture.class.equals(type) || CompletionStage.class.equals(type) || Future.class.equals(type);
+    }
+
     private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
       Integer index = null;
       // 获得所有的参数类型列表
@@ -447,9 +481,9 @@ public class MapperMethod {
       return index;
     }
 
-    private String getMapKey(Method method) {
+    private String getMapKey(Method method, Class<?> returnType) {
       String mapKey = null;
-      if (Map.class.isAssignableFrom(method.getReturnType())) {
+      if (Map.class.isAssignableFrom(returnType)) {
         // 如果有@MapKey注解，返回其value值
         final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
         if (mapKeyAnnotation != null) {
@@ -26,6 +26,8 @@ import java.util.Set;
 import java.util.StringTokenizer;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.CacheStatsCounter;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.executor.ErrorContext;
@@ -42,6 +44,7 @@ import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.mapping.StatementRoute;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.scripting.LanguageDriver;
@@ -129,22 +132,58 @@ public class MapperBuilderAssistant extends BaseBuilder {
       boolean readWrite,
       boolean blocking,
       Properties props) {
+    return useNewCache(typeClass, evictionClass, flushInterval, null, null, size, readWrite, blocking, null, null, props);
+  }
+
+  public Cache useNewCache(Class<? extends Cache> typeClass,
+      Class<? extends Cache> evictionClass,
+      Long flushInterval,
+      Long timeToLive,
+      Long refreshAhead,
+      Integer size,
+      boolean readWrite,
+      boolean blocking,
+      Class<? extends CacheSerializer> serializerClass,
+      Class<? extends Cache> remoteClass,
+      Properties props) {
+    // 没有指定序列化器时，使用全局配置的序列化器
+    CacheSerializer serializer = serializerClass == null
+        ? configuration.getCacheSerializer() : createCacheSerializer(serializerClass);
+    CacheStatsCounter statsCounter = new CacheStatsCounter();
     // 使用建造者创建cache
     Cache cache = new CacheBuilder(currentNamespace)
         .implementation(valueOrDefault(typeClass, PerpetualCache.class))
         .addDecorator(valueOrDefault(evictionClass, LruCache.class))
         .clearInterval(flushInterval)
+        .timeToLive(timeToLive)
+        .refreshAhead(refreshAhead)
         .size(size)
         .readWrite(readWrite)
         .blocking(blocking)
+        .serializer(serializer)
+        .statsCounter(statsCounter)
+        .remoteImplementation(remoteClass)
+        .invalidationTransport(configuration.getCacheInvalidationTransport())
         .properties(props)
         .build();
-    configuration.addCache(cache);
+    configuration.addCache(cache, statsCounter);
+    if (remoteClass != null || configuration.getCacheInvalidationTransport() != null) {
+      // 其他节点缓存的key不在本地的表依赖索引中，无法按表失效
+      configuration.addSharedCacheId(cache.getId());
+    }
     // 记录当前命名空间的cache对象
     currentCache = cache;
     return cache;
   }
 
+  private CacheSerializer createCacheSerializer(Class<? extends CacheSerializer> serializerClass) {
+    try {
+      return serializerClass.getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new BuilderException("Error creating cache serializer " + serializerClass.getName() + ". Cause: " + e, e);
+    }
+  }
+
   public ParameterMap addParameterMap(String id, Class<?> parameterClass, List<ParameterMapping> parameterMappings) {
     id = applyCurrentNamespace(id, false);
     ParameterMap parameterMap = new ParameterMap.Builder(configuration, id, parameterClass, parameterMappings).build();
@@ -270,6 +309,39 @@ public class MapperBuilderAssistant extends BaseBuilder {
       String databaseId,
       LanguageDriver lang,
       String resultSets) {
+    return addMappedStatement(
+      id, sqlSource, statementType, sqlCommandType, fetchSize, timeout,
+      parameterMap, parameterType, resultMap, resultType, resultSetType,
+      flushCache, useCache, resultOrdered, keyGenerator, keyProperty,
+      keyColumn, databaseId, lang, resultSets, null, null, null, null, null);
+  }
+
+  public MappedStatement addMappedStatement(
+      String id,
+      SqlSource sqlSource,
+      StatementType statementType,
+      SqlCommandType sqlCommandType,
+      Integer fetchSize,
+      Integer timeout,
+      String parameterMap,
+      Class<?> parameterType,
+      String resultMap,
+      Class<?> resultType,
+      ResultSetType resultSetType,
+      boolean flushCache,
+      boolean useCache,
+      boolean resultOrdered,
+      KeyGenerator keyGenerator,
+      String keyProperty,
+      String keyColumn,
+      String databaseId,
+      LanguageDriver lang,
+      String resultSets,
+      String tables,
+      String dependsOn,
+      Integer batchSize,
+      Long batchMaxBytes,
+      StatementRoute route) {
 
     if (unresolvedCacheRef) {
       throw new IncompleteElementException("Cache-ref not yet resolved");
@@ -290,6 +362,11 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .lang(lang)
         .resultOrdered(resultOrdered)
         .resultSets(resultSets)
+        .tables(tables)
+        .dependsOn(dependsOn)
+        .batchSize(batchSize)
+        .batchMaxBytes(batchMaxBytes)
+        .route(route)
         .resultMaps(getStatementResultMaps(resultMap, resultType, id))
         .resultSetType(resultSetType)
         .flushCacheRequired(valueOrDefault(flushCache, !isSelect))
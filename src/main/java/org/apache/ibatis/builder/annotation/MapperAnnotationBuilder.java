@@ -34,6 +34,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.annotations.Arg;
 import org.apache.ibatis.annotations.CacheNamespace;
@@ -53,6 +56,7 @@ import org.apache.ibatis.annotations.Result;
 import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Route;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.SelectKey;
 import org.apache.ibatis.annotations.SelectProvider;
@@ -66,6 +70,8 @@ import org.apache.ibatis.builder.CacheRefResolver;
 import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheSerializer;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -197,8 +203,12 @@ public class MapperAnnotationBuilder {
     if (cacheDomain != null) {
       Integer size = cacheDomain.size() == 0 ? null : cacheDomain.size();
       Long flushInterval = cacheDomain.flushInterval() == 0 ? null : cacheDomain.flushInterval();
+      Long timeToLive = cacheDomain.timeToLive() == 0 ? null : cacheDomain.timeToLive();
+      Long refreshAhead = cacheDomain.refreshAhead() == 0 ? null : cacheDomain.refreshAhead();
+      Class<? extends CacheSerializer> serializer = cacheDomain.serializer() == CacheSerializer.class ? null : cacheDomain.serializer();
+      Class<? extends Cache> remote = cacheDomain.remote() == Cache.class ? null : cacheDomain.remote();
       Properties props = convertToProperties(cacheDomain.properties());
-      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props);
+      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, timeToLive, refreshAhead, size, cacheDomain.readWrite(), cacheDomain.blocking(), serializer, remote, props);
     }
   }
 
@@ -355,6 +365,8 @@ public class MapperAnnotationBuilder {
         }
       }
 
+      Route route = method.getAnnotation(Route.class);
+
       String resultMapId = null;
       ResultMap resultMapAnnotation = method.getAnnotation(ResultMap.class);
       if (resultMapAnnotation != null) {
@@ -387,7 +399,17 @@ public class MapperAnnotationBuilder {
           null,
           languageDriver,
           // ResultSets
-          options != null ? nullOrEmpty(options.resultSets()) : null);
+          options != null ? nullOrEmpty(options.resultSets()) : null,
+          // Tables
+          options != null ? nullOrEmpty(options.tables()) : null,
+          // DependsOn
+          options != null ? nullOrEmpty(options.dependsOn()) : null,
+          // BatchSize
+          options != null && options.batchSize() > -1 ? options.batchSize() : null,
+          // BatchMaxBytes
+          options != null && options.batchMaxBytes() > -1 ? options.batchMaxBytes() : null,
+          // Route
+          route != null ? route.value() : null);
     }
   }
 
@@ -419,6 +441,13 @@ public class MapperAnnotationBuilder {
   private Class<?> getReturnType(Method method) {
     Class<?> returnType = method.getReturnType();
     Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
+    if ((CompletableFuture.class.equals(returnType) || CompletionStage.class.equals(returnType) || Future.class.equals(returnType))
+        && resolvedReturnType instanceof ParameterizedType) {
+      // the result of a future is mapped like the result of a synchronous method
+      resolvedReturnType = ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0];
+      returnType = resolvedReturnType instanceof ParameterizedType
+          ? (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType() : Object.class;
+    }
     if (resolvedReturnType instanceof Class) {
       returnType = (Class<?>) resolvedReturnType;
       if (returnType.isArray()) {
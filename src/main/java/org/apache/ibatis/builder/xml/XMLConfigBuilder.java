@@ -17,14 +17,20 @@ package org.apache.ibatis.builder.xml;
 
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
 import javax.sql.DataSource;
 
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.cache.CacheInvalidationTransport;
+import org.apache.ibatis.cache.CacheSerializer;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.routing.ReplicaSelector;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
@@ -299,6 +305,11 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setAutoMappingBehavior(AutoMappingBehavior.valueOf(props.getProperty("autoMappingBehavior", "PARTIAL")));
     configuration.setAutoMappingUnknownColumnBehavior(AutoMappingUnknownColumnBehavior.valueOf(props.getProperty("autoMappingUnknownColumnBehavior", "NONE")));
     configuration.setCacheEnabled(booleanValueOf(props.getProperty("cacheEnabled"), true));
+    configuration.setCacheSerializer((CacheSerializer) createInstance(props.getProperty("cacheSerializer")));
+    configuration.setCacheInvalidationTransport((CacheInvalidationTransport) createInstance(props.getProperty("cacheInvalidationTransport")));
+    configuration.setCacheSingleFlightEnabled(booleanValueOf(props.getProperty("cacheSingleFlightEnabled"), false));
+    configuration.setCacheSingleFlightTimeout(integerValueOf(props.getProperty("cacheSingleFlightTimeout"), null));
+    configuration.setCacheTableInvalidationEnabled(booleanValueOf(props.getProperty("cacheTableInvalidationEnabled"), false));
     configuration.setProxyFactory((ProxyFactory) createInstance(props.getProperty("proxyFactory")));
     configuration.setLazyLoadingEnabled(booleanValueOf(props.getProperty("lazyLoadingEnabled"), false));
     configuration.setAggressiveLazyLoading(booleanValueOf(props.getProperty("aggressiveLazyLoading"), false));
@@ -306,8 +317,22 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setUseColumnLabel(booleanValueOf(props.getProperty("useColumnLabel"), true));
     configuration.setUseGeneratedKeys(booleanValueOf(props.getProperty("useGeneratedKeys"), false));
     configuration.setDefaultExecutorType(ExecutorType.valueOf(props.getProperty("defaultExecutorType", "SIMPLE")));
+    configuration.setAsyncExecutor((ExecutorService) createInstance(props.getProperty("asyncExecutor")));
+    configuration.setAsyncExecutorPoolSize(integerValueOf(props.getProperty("asyncExecutorPoolSize"), 10));
     configuration.setDefaultStatementTimeout(integerValueOf(props.getProperty("defaultStatementTimeout"), null));
     configuration.setDefaultFetchSize(integerValueOf(props.getProperty("defaultFetchSize"), null));
+    configuration.setDefaultBatchSize(integerValueOf(props.getProperty("defaultBatchSize"), null));
+    configuration.setDefaultBatchMaxBytes(longValueOf(props.getProperty("defaultBatchMaxBytes"), null));
+    configuration.setRewriteBatchedInserts(booleanValueOf(props.getProperty("rewriteBatchedInserts"), false));
+    configuration.setRewriteBatchedInsertsMaxParameters(integerValueOf(props.getProperty("rewriteBatchedInsertsMaxParameters"), 1000));
+    configuration.setRewriteBatchedInsertsMaxBytes(longValueOf(props.getProperty("rewriteBatchedInsertsMaxBytes"), null));
+    configuration.setShardParallelism(integerValueOf(props.getProperty("shardParallelism"), null));
+    configuration.setReplicaSelector((ReplicaSelector) createInstance(props.getProperty("replicaSelector")));
+    configuration.setMultiStatementSelectsEnabled(booleanValueOf(props.getProperty("multiStatementSelectsEnabled"), false));
+    configuration.setParallelSelectsEnabled(booleanValueOf(props.getProperty("parallelSelectsEnabled"), false));
+    configuration.setCompiledRowMappersEnabled(booleanValueOf(props.getProperty("compiledRowMappersEnabled"), false));
+    configuration.setStreamingNestedResultsEnabled(booleanValueOf(props.getProperty("streamingNestedResultsEnabled"), false));
+    configuration.setMappingPlanCacheSize(integerValueOf(props.getProperty("mappingPlanCacheSize"), null));
     configuration.setDefaultResultSetType(resolveResultSetType(props.getProperty("defaultResultSetType")));
     configuration.setMapUnderscoreToCamelCase(booleanValueOf(props.getProperty("mapUnderscoreToCamelCase"), false));
     configuration.setSafeRowBoundsEnabled(booleanValueOf(props.getProperty("safeRowBoundsEnabled"), false));
@@ -347,9 +372,14 @@ public class XMLConfigBuilder extends BaseBuilder {
       if (environment == null) {
         environment = context.getStringAttribute("default");
       }
+      // shards属性列出SHARDED executor使用的environment，按列出的顺序添加
+      Map<String, Environment> shards = environmentIds(context.getStringAttribute("shards"));
+      // replicas属性列出默认environment的读库
+      Map<String, Environment> replicas = environmentIds(context.getStringAttribute("replicas"));
       for (XNode child : context.getChildren()) {
         String id = child.getStringAttribute("id");
-        if (isSpecifiedEnvironment(id)) {
+        boolean specified = isSpecifiedEnvironment(id);
+        if (specified || shards.containsKey(id) || replicas.containsKey(id)) {
           TransactionFactory txFactory = transactionManagerElement(child.evalNode("transactionManager"));
           // 解析DataSource， 这里为PooledDataSourceFactory
           DataSourceFactory dsFactory = dataSourceElement(child.evalNode("dataSource"));
@@ -358,10 +388,43 @@ public class XMLConfigBuilder extends BaseBuilder {
           Environment.Builder environmentBuilder = new Environment.Builder(id)
               .transactionFactory(txFactory)
               .dataSource(dataSource);
-          configuration.setEnvironment(environmentBuilder.build());
+          Environment built = environmentBuilder.build();
+          if (specified) {
+            configuration.setEnvironment(built);
+          }
+          if (shards.containsKey(id)) {
+            shards.put(id, built);
+          }
+          if (replicas.containsKey(id)) {
+            replicas.put(id, built);
+          }
+        }
+      }
+      for (Map.Entry<String, Environment> shard : shards.entrySet()) {
+        if (shard.getValue() == null) {
+          throw new BuilderException("Shard '" + shard.getKey() + "' is not a declared environment.");
+        }
+        configuration.addShard(shard.getValue());
+      }
+      for (Map.Entry<String, Environment> replica : replicas.entrySet()) {
+        if (replica.getValue() == null) {
+          throw new BuilderException("Replica '" + replica.getKey() + "' is not a declared environment.");
+        }
+        configuration.addReplica(replica.getValue());
+      }
+    }
+  }
+
+  private Map<String, Environment> environmentIds(String ids) {
+    Map<String, Environment> environments = new LinkedHashMap<>();
+    if (ids != null) {
+      for (String id : ids.split(",")) {
+        if (!id.trim().isEmpty()) {
+          environments.put(id.trim(), null);
         }
       }
     }
+    return environments;
   }
 
   private void databaseIdProviderElement(XNode context) throws Exception {
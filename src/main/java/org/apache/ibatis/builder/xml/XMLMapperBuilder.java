@@ -33,6 +33,7 @@ import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheSerializer;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.Discriminator;
@@ -235,6 +236,9 @@ public class XMLMapperBuilder extends BaseBuilder {
 
       // 获取刷新间隔，默认为null
       Long flushInterval = context.getLongAttribute("flushInterval");
+      // 每个缓存项的存活时间，以及过期前提前刷新的时间，默认为null
+      Long timeToLive = context.getLongAttribute("timeToLive");
+      Long refreshAhead = context.getLongAttribute("refreshAhead");
       // 缓存的大小
       Integer size = context.getIntAttribute("size");
 
@@ -243,10 +247,14 @@ public class XMLMapperBuilder extends BaseBuilder {
       // 而可读写的缓存会（通过序列化）返回缓存对象的拷贝。 速度上会慢一些，但是更安全，因此默认值是 false。
       boolean readWrite = !context.getBooleanAttribute("readOnly", false);
       boolean blocking = context.getBooleanAttribute("blocking", false);
+      // 序列化器，默认使用全局配置的cacheSerializer
+      Class<? extends CacheSerializer> serializerClass = typeAliasRegistry.resolveAlias(context.getStringAttribute("serializer"));
+      // 所有节点共享的远程缓存，默认为null
+      Class<? extends Cache> remoteClass = typeAliasRegistry.resolveAlias(context.getStringAttribute("remote"));
       // 获得cache节点下的properties属性
       Properties props = context.getChildrenAsProperties();
       // 创建cache对象，设置到builderAssistant， 方法里面会添加到configuration中StrictMap的cache属性中
-      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, timeToLive, refreshAhead, size, readWrite, blocking, serializerClass, remoteClass, props);
     }
   }
 
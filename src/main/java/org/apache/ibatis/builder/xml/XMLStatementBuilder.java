@@ -28,6 +28,7 @@ import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.mapping.StatementRoute;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.scripting.LanguageDriver;
@@ -121,12 +122,23 @@ public class XMLStatementBuilder extends BaseBuilder {
     String keyProperty = context.getStringAttribute("keyProperty");
     String keyColumn = context.getStringAttribute("keyColumn");
     String resultSets = context.getStringAttribute("resultSets");
+    // 语句读写的表，用于按表失效二级缓存
+    String tables = context.getStringAttribute("tables");
+    // 批量执行时必须先写入的表
+    String dependsOn = context.getStringAttribute("dependsOn");
+    // 批量执行时，达到条数或字节数上限后自动执行批处理
+    Integer batchSize = context.getIntAttribute("batchSize");
+    Long batchMaxBytes = context.getLongAttribute("batchMaxBytes");
+    // 配置了读库时select使用的数据源
+    String route = context.getStringAttribute("route");
+    StatementRoute routeEnum = route == null ? null : StatementRoute.valueOf(route);
 
     // 添加解析完成后的mappedStatement
     builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType,
         fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass,
         resultSetTypeEnum, flushCache, useCache, resultOrdered,
-        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets);
+        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets, tables,
+        dependsOn, batchSize, batchMaxBytes, routeEnum);
   }
 
   private void processSelectKeyNodes(String id, Class<?> parameterTypeClass, LanguageDriver langDriver) {
@@ -0,0 +1,65 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.io.Serializable;
+
+/**
+ * Tells the other nodes that a key of a cache, or the whole cache, is no longer valid.
+ *
+ * @see CacheInvalidationTransport
+ */
+public class CacheInvalidationEvent implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String cacheId;
+  private final String sourceId;
+  private final Object key;
+
+  /**
+   * @param cacheId the id of the cache
+   * @param sourceId the id of the cache instance that published the event
+   * @param key the invalidated key, or <code>null</code> when the whole cache was cleared
+   */
+  public CacheInvalidationEvent(String cacheId, String sourceId, Object key) {
+    this.cacheId = cacheId;
+    this.sourceId = sourceId;
+    this.key = key;
+  }
+
+  public String getCacheId() {
+    return cacheId;
+  }
+
+  public String getSourceId() {
+    return sourceId;
+  }
+
+  public Object getKey() {
+    return key;
+  }
+
+  public boolean isClear() {
+    return key == null;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheInvalidationEvent [cacheId=" + cacheId + ", sourceId=" + sourceId + ", key=" + key + "]";
+  }
+
+}
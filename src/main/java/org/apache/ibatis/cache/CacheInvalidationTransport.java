@@ -0,0 +1,45 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Broadcasts the invalidations of the second level caches to the other nodes running the same mappers.
+ * <p>
+ * Implementations adapt a messaging system, such as a publish/subscribe channel, and must deliver every published
+ * event to the listeners of every node. One transport is shared by all the caches of a
+ * {@link org.apache.ibatis.session.Configuration}, and it is set with the {@code cacheInvalidationTransport} setting.
+ *
+ * @see org.apache.ibatis.cache.decorators.TwoTierCache
+ * @see org.apache.ibatis.cache.impl.LoopbackInvalidationTransport
+ */
+public interface CacheInvalidationTransport {
+
+  /**
+   * @param event the event to send to all the nodes
+   */
+  void publish(CacheInvalidationEvent event);
+
+  /**
+   * @param listener the listener to call for every event
+   */
+  void subscribe(CacheInvalidationListener listener);
+
+  /**
+   * @param listener the listener that no longer receives events
+   */
+  void unsubscribe(CacheInvalidationListener listener);
+
+}
@@ -15,8 +15,13 @@
  */
 package org.apache.ibatis.cache;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.StringJoiner;
 
@@ -35,9 +40,19 @@ public class CacheKey implements Cloneable, Serializable {
 
   private static final int DEFAULT_MULTIPLYER = 37;
   private static final int DEFAULT_HASHCODE = 17;
-
-  // 参与计算hashcode
-  private final int multiplier;
+  private static final int DEFAULT_CAPACITY = 8;
+
+  // 序列化格式保持不变：updateList仍以List写出，兼容旧版本序列化的key
+  private static final ObjectStreamField[] serialPersistentFields = {
+      new ObjectStreamField("multiplier", int.class),
+      new ObjectStreamField("hashcode", int.class),
+      new ObjectStreamField("checksum", long.class),
+      new ObjectStreamField("count", int.class),
+      new ObjectStreamField("updateList", List.class)
+  };
+
+  // 参与计算hashcode，反序列化时赋值，因此不是final
+  private int multiplier;
   // hashcode
   private int hashcode;
   // 校验和
@@ -45,23 +60,32 @@ public class CacheKey implements Cloneable, Serializable {
   // updateList的个数
   private int count;
   // 8/21/2017 - Sonarlint flags this as needing to be marked transient.  While true if content is not serializable, this is not always true and thus should not be marked transient.
-  // 由updateList中所有的对象来决定两个cacheKey是否一样
-  private List<Object> updateList;
+  // 由updateList中所有的对象来决定两个cacheKey是否一样，只有前count个元素有效
+  private Object[] updateList;
 
   public CacheKey() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty key that can hold {@code expectedUpdateCount} objects without growing.
+   *
+   * @param expectedUpdateCount the number of times {@link #update(Object)} is expected to be called
+   */
+  public CacheKey(int expectedUpdateCount) {
     this.hashcode = DEFAULT_HASHCODE;
     this.multiplier = DEFAULT_MULTIPLYER;
     this.count = 0;
-    this.updateList = new ArrayList<>();
+    this.updateList = new Object[Math.max(expectedUpdateCount, 1)];
   }
 
   public CacheKey(Object[] objects) {
-    this();
+    this(objects.length);
     updateAll(objects);
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
   public void update(Object object) {
@@ -73,7 +97,10 @@ public class CacheKey implements Cloneable, Serializable {
 
     hashcode = multiplier * hashcode + baseHashCode;
 
-    updateList.add(object);
+    if (count > updateList.length) {
+      updateList = Arrays.copyOf(updateList, updateList.length * 2);
+    }
+    updateList[count - 1] = object;
   }
 
   public void updateAll(Object[] objects) {
@@ -103,9 +130,9 @@ public class CacheKey implements Cloneable, Serializable {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
+    for (int i = 0; i < count; i++) {
+      Object thisObject = updateList[i];
+      Object thatObject = cacheKey.updateList[i];
       if (!ArrayUtil.equals(thisObject, thatObject)) {
         return false;
       }
@@ -123,15 +150,38 @@ public class CacheKey implements Cloneable, Serializable {
     StringJoiner returnValue = new StringJoiner(":");
     returnValue.add(String.valueOf(hashcode));
     returnValue.add(String.valueOf(checksum));
-    updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+    for (int i = 0; i < count; i++) {
+      returnValue.add(ArrayUtil.toString(updateList[i]));
+    }
     return returnValue.toString();
   }
 
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<>(updateList);
+    // keep the spare capacity, clones are usually updated again (e.g. combined row keys)
+    clonedCacheKey.updateList = updateList.clone();
     return clonedCacheKey;
   }
 
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("multiplier", multiplier);
+    fields.put("hashcode", hashcode);
+    fields.put("checksum", checksum);
+    fields.put("count", count);
+    fields.put("updateList", new ArrayList<>(Arrays.asList(updateList).subList(0, count)));
+    out.writeFields();
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField fields = in.readFields();
+    multiplier = fields.get("multiplier", DEFAULT_MULTIPLYER);
+    hashcode = fields.get("hashcode", DEFAULT_HASHCODE);
+    checksum = fields.get("checksum", 0L);
+    count = fields.get("count", 0);
+    List<?> list = (List<?>) fields.get("updateList", null);
+    updateList = list == null ? new Object[1] : list.toArray(new Object[Math.max(list.size(), 1)]);
+  }
+
 }
@@ -0,0 +1,45 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * SPI for the serializers used to copy cached objects.
+ * <p>
+ * A serializer is used by read-write caches ({@link org.apache.ibatis.cache.decorators.SerializedCache}) and by any
+ * cache implementation that has a {@code serializer} property, like {@link org.apache.ibatis.cache.impl.OffHeapCache}.
+ * It can be set globally with the {@code cacheSerializer} setting or per namespace with the {@code serializer}
+ * attribute of the cache.
+ * <p>
+ * Implementations must be thread safe and have a no-arg constructor.
+ *
+ * @see org.apache.ibatis.cache.impl.JdkCacheSerializer
+ * @see org.apache.ibatis.cache.impl.CompactCacheSerializer
+ */
+public interface CacheSerializer {
+
+  /**
+   * @param value The object to serialize. May be <code>null</code>.
+   * @return The serialized form of the object
+   */
+  byte[] serialize(Object value);
+
+  /**
+   * @param bytes Bytes that were returned by {@link #serialize(Object)}
+   * @return A copy of the serialized object
+   */
+  Object deserialize(byte[] bytes);
+
+}
@@ -0,0 +1,124 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Statistics of a cache at a point in time.
+ * <p>
+ * Times are in nanoseconds. The memory estimate is only known for the caches that serialize their entries,
+ * it is -1 otherwise.
+ *
+ * @see org.apache.ibatis.session.Configuration#getCacheStats(String)
+ */
+public class CacheStats {
+
+  private final String id;
+  private final long hitCount;
+  private final long missCount;
+  private final long putCount;
+  private final long evictionCount;
+  private final int size;
+  private final long memoryEstimate;
+  private final long loadCount;
+  private final long totalLoadTime;
+  private final long lockWaitCount;
+  private final long totalLockWaitTime;
+
+  public CacheStats(String id, long hitCount, long missCount, long putCount, long evictionCount, int size,
+      long memoryEstimate, long loadCount, long totalLoadTime, long lockWaitCount, long totalLockWaitTime) {
+    this.id = id;
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.putCount = putCount;
+    this.evictionCount = evictionCount;
+    this.size = size;
+    this.memoryEstimate = memoryEstimate;
+    this.loadCount = loadCount;
+    this.totalLoadTime = totalLoadTime;
+    this.lockWaitCount = lockWaitCount;
+    this.totalLockWaitTime = totalLockWaitTime;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  public long getRequestCount() {
+    return hitCount + missCount;
+  }
+
+  public double getHitRatio() {
+    long requestCount = getRequestCount();
+    return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+  }
+
+  public long getPutCount() {
+    return putCount;
+  }
+
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public long getMemoryEstimate() {
+    return memoryEstimate;
+  }
+
+  public long getLoadCount() {
+    return loadCount;
+  }
+
+  public long getTotalLoadTime() {
+    return totalLoadTime;
+  }
+
+  public long getAverageLoadTime() {
+    return loadCount == 0 ? 0 : totalLoadTime / loadCount;
+  }
+
+  public long getLockWaitCount() {
+    return lockWaitCount;
+  }
+
+  public long getTotalLockWaitTime() {
+    return totalLockWaitTime;
+  }
+
+  public long getAverageLockWaitTime() {
+    return lockWaitCount == 0 ? 0 : totalLockWaitTime / lockWaitCount;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats [id=" + id + ", hitCount=" + hitCount + ", missCount=" + missCount + ", putCount=" + putCount
+        + ", evictionCount=" + evictionCount + ", size=" + size + ", memoryEstimate=" + memoryEstimate
+        + ", loadCount=" + loadCount + ", averageLoadTime=" + getAverageLoadTime() + ", lockWaitCount=" + lockWaitCount
+        + ", averageLockWaitTime=" + getAverageLockWaitTime() + "]";
+  }
+
+}
@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Accumulates the statistics of one cache.
+ * <p>
+ * One counter is shared by the implementation and the decorators of a cache, each of them recording what it sees:
+ * {@link org.apache.ibatis.cache.decorators.LoggingCache} records hits, misses and puts, the eviction decorators
+ * record evictions, {@link org.apache.ibatis.cache.decorators.BlockingCache} records lock waits, and
+ * {@link org.apache.ibatis.executor.CachingExecutor} records the time spent loading missed entries from the database.
+ * Counters are {@link LongAdder}s, so that recording does not add contention between threads.
+ *
+ * @see CacheStats
+ */
+public class CacheStatsCounter {
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder putCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final LongAdder loadCount = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+  private final LongAdder lockWaitCount = new LongAdder();
+  private final LongAdder totalLockWaitTime = new LongAdder();
+  // 序列化后的缓存项个数和字节数，用于估算内存占用
+  private final LongAdder serializedCount = new LongAdder();
+  private final LongAdder serializedBytes = new LongAdder();
+  // 能够精确计算内存占用的cache实现提供的估算器
+  private volatile LongSupplier memoryEstimator;
+
+  public void recordHit() {
+    hitCount.increment();
+  }
+
+  public void recordMiss() {
+    missCount.increment();
+  }
+
+  public void recordPut() {
+    putCount.increment();
+  }
+
+  public void recordEviction() {
+    evictionCount.increment();
+  }
+
+  public void recordEvictions(long count) {
+    evictionCount.add(count);
+  }
+
+  /**
+   * @param nanos the time spent loading a missed entry from the database
+   */
+  public void recordLoad(long nanos) {
+    loadCount.increment();
+    totalLoadTime.add(nanos);
+  }
+
+  /**
+   * @param nanos the time spent waiting for the lock of a key
+   */
+  public void recordLockWait(long nanos) {
+    lockWaitCount.increment();
+    totalLockWaitTime.add(nanos);
+  }
+
+  /**
+   * @param bytes the length of a serialized entry
+   */
+  public void recordSerialized(int bytes) {
+    serializedCount.increment();
+    serializedBytes.add(bytes);
+  }
+
+  /**
+   * @return the ratio of the lookups that hit, 0 when there was no lookup
+   */
+  public double getHitRatio() {
+    long hits = hitCount.sum();
+    long requests = hits + missCount.sum();
+    return requests == 0 ? 0 : (double) hits / requests;
+  }
+
+  /**
+   * Sets how to get the memory used by a cache that knows it, such as an off-heap cache.
+   * Otherwise the memory is estimated from the average length of the serialized entries, when they are serialized.
+   *
+   * @param memoryEstimator supplies the number of bytes used by the cache
+   */
+  public void setMemoryEstimator(LongSupplier memoryEstimator) {
+    this.memoryEstimator = memoryEstimator;
+  }
+
+  /**
+   * @param id the id of the cache
+   * @param size the number of entries of the cache
+   * @return the current statistics
+   */
+  public CacheStats snapshot(String id, int size) {
+    return new CacheStats(id, hitCount.sum(), missCount.sum(), putCount.sum(), evictionCount.sum(), size,
+        estimateMemory(size), loadCount.sum(), totalLoadTime.sum(), lockWaitCount.sum(), totalLockWaitTime.sum());
+  }
+
+  private long estimateMemory(int size) {
+    LongSupplier estimator = memoryEstimator;
+    if (estimator != null) {
+      return estimator.getAsLong();
+    }
+    long count = serializedCount.sum();
+    return count == 0 ? -1 : serializedBytes.sum() / count * size;
+  }
+
+}
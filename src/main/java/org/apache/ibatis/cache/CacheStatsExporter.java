@@ -0,0 +1,183 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.Hashtable;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Registers the statistics of the caches of a configuration in the platform MBean server.
+ * <p>
+ * Each cache is registered as {@code org.apache.ibatis:type=Cache,name=<name>,id="<cache id>"},
+ * where the name tells apart the configurations of the same JVM.
+ * <pre>
+ * CacheStatsExporter.registerMBeans(sqlSessionFactory.getConfiguration(), "blog");
+ * </pre>
+ */
+public final class CacheStatsExporter {
+
+  public static final String DOMAIN = "org.apache.ibatis";
+
+  private CacheStatsExporter() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * Registers an MBean for each cache of the configuration, replacing the ones registered with the same name.
+   *
+   * @param configuration the configuration
+   * @param name the name of the configuration
+   */
+  public static void registerMBeans(Configuration configuration, String name) {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      for (String id : getCacheIds(configuration)) {
+        if (configuration.getCacheStatsCounter(id) == null) {
+          continue;
+        }
+        ObjectName objectName = getObjectName(name, id);
+        if (server.isRegistered(objectName)) {
+          server.unregisterMBean(objectName);
+        }
+        server.registerMBean(new CacheStatsView(configuration, id), objectName);
+      }
+    } catch (JMException e) {
+      throw new CacheException("Error registering cache MBeans for " + name + ".  Cause: " + e, e);
+    }
+  }
+
+  /**
+   * Unregisters the MBeans of the caches of the configuration.
+   *
+   * @param configuration the configuration
+   * @param name the name the configuration was registered with
+   */
+  public static void unregisterMBeans(Configuration configuration, String name) {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      for (String id : getCacheIds(configuration)) {
+        ObjectName objectName = getObjectName(name, id);
+        if (server.isRegistered(objectName)) {
+          server.unregisterMBean(objectName);
+        }
+      }
+    } catch (JMException e) {
+      throw new CacheException("Error unregistering cache MBeans for " + name + ".  Cause: " + e, e);
+    }
+  }
+
+  public static ObjectName getObjectName(String name, String id) throws JMException {
+    Hashtable<String, String> properties = new Hashtable<>();
+    properties.put("type", "Cache");
+    properties.put("name", ObjectName.quote(name));
+    properties.put("id", ObjectName.quote(id));
+    return new ObjectName(DOMAIN, properties);
+  }
+
+  private static Set<String> getCacheIds(Configuration configuration) {
+    // the caches collection also holds the caches under their short names
+    Set<String> ids = new LinkedHashSet<>();
+    for (Cache cache : configuration.getCaches()) {
+      ids.add(cache.getId());
+    }
+    return ids;
+  }
+
+  private static final class CacheStatsView implements CacheStatsMXBean {
+
+    private final Configuration configuration;
+
+    private final String id;
+
+    private CacheStatsView(Configuration configuration, String id) {
+      this.configuration = configuration;
+      this.id = id;
+    }
+
+    private CacheStats stats() {
+      return configuration.getCacheStats(id);
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+
+    @Override
+    public long getHitCount() {
+      return stats().getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+      return stats().getMissCount();
+    }
+
+    @Override
+    public double getHitRatio() {
+      return stats().getHitRatio();
+    }
+
+    @Override
+    public long getPutCount() {
+      return stats().getPutCount();
+    }
+
+    @Override
+    public long getEvictionCount() {
+      return stats().getEvictionCount();
+    }
+
+    @Override
+    public int getSize() {
+      return stats().getSize();
+    }
+
+    @Override
+    public long getMemoryEstimate() {
+      return stats().getMemoryEstimate();
+    }
+
+    @Override
+    public long getLoadCount() {
+      return stats().getLoadCount();
+    }
+
+    @Override
+    public long getAverageLoadTime() {
+      return stats().getAverageLoadTime();
+    }
+
+    @Override
+    public long getLockWaitCount() {
+      return stats().getLockWaitCount();
+    }
+
+    @Override
+    public long getAverageLockWaitTime() {
+      return stats().getAverageLockWaitTime();
+    }
+  }
+
+}
@@ -0,0 +1,121 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of the second level cache entries that are being loaded from the database.
+ * <p>
+ * When several sessions miss the same key at the same time, the first one leads: it queries the database while the
+ * other ones wait until the leader's transaction ends. The flight lands with no value: once the leader committed,
+ * the waiting sessions read the committed entry from the cache, so they get their own copy from a read-write cache and
+ * never see uncommitted rows. When the leader rolled back or failed, they miss and go to the database themselves.
+ * Unlike {@link org.apache.ibatis.cache.decorators.BlockingCache}, an entry only lives while its value is being
+ * loaded, and waiting sessions go to the database themselves once the timeout expires.
+ * <p>
+ * A thread that leads a key does not wait for other leaders, so that sessions leading each other's keys cannot
+ * wait for each other's commit.
+ * <p>
+ * One registry is shared by all the sessions of a {@link org.apache.ibatis.session.Configuration}.
+ * Keys are {@link CacheKey}s, which already contain the statement id.
+ *
+ * @see org.apache.ibatis.cache.decorators.TransactionalCache
+ */
+public class SingleFlightRegistry {
+
+  /**
+   * The time a session waits for a leader when no positive timeout is given, in milliseconds.
+   */
+  public static final long DEFAULT_TIMEOUT = 5000;
+
+  // key --> 正在加载该key的leader
+  private final ConcurrentHashMap<Object, Flight> flights = new ConcurrentHashMap<>();
+
+  // 线程 --> 该线程负责加载、还未落地的key的个数
+  private final ConcurrentHashMap<Thread, Integer> leaders = new ConcurrentHashMap<>();
+
+  /**
+   * Registers {@code flight} as the loader of {@code key}, unless another one is registered already.
+   *
+   * @param key the missed key
+   * @param flight the flight to land once the value is loaded
+   * @return <code>null</code> if the caller leads and must load the value, otherwise the flight of the leader
+   */
+  public Flight join(Object key, Flight flight) {
+    Flight leader = flights.putIfAbsent(key, flight);
+    if (leader == null) {
+      leaders.merge(flight.leader, 1, Integer::sum);
+    }
+    return leader;
+  }
+
+  /**
+   * Waits for the leader of a key.
+   * A thread never waits while it leads a flight, e.g. from a second session it opened while loading the key, or
+   * when the leader of this flight may be waiting for the commit of a key this thread leads.
+   *
+   * @param flight the flight returned by {@link #join(Object, Flight)}
+   * @param timeout the maximum time to wait in milliseconds, or 0 to wait {@link #DEFAULT_TIMEOUT}
+   * @return <code>true</code> if the flight landed, <code>false</code> if it did not land in time
+   */
+  public boolean await(Flight flight, long timeout) {
+    if (leaders.containsKey(Thread.currentThread())) {
+      return false;
+    }
+    try {
+      flight.landed.await(timeout > 0 ? timeout : DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return flight.landed.getCount() == 0;
+  }
+
+  /**
+   * Removes a flight and wakes up the sessions waiting for it, once the leader's transaction ended or its query
+   * failed.
+   *
+   * @param key the key that was loaded
+   * @param flight the flight that was registered by the leader
+   */
+  public void land(Object key, Flight flight) {
+    if (flights.remove(key, flight)) {
+      leaders.computeIfPresent(flight.leader, (thread, count) -> count == 1 ? null : count - 1);
+    }
+    flight.landed.countDown();
+  }
+
+  /**
+   * @return the number of keys being loaded
+   */
+  public int getSize() {
+    return flights.size();
+  }
+
+  /**
+   * The load of one key by the thread that created it.
+   */
+  public static class Flight {
+
+    // 负责加载的线程
+    private final Thread leader = Thread.currentThread();
+    private final CountDownLatch landed = new CountDownLatch(1);
+
+  }
+
+}
@@ -0,0 +1,183 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the tables that the cached results depend on, so that a write only invalidates the results that read one
+ * of the tables it wrote.
+ * <p>
+ * One index is shared by all the sessions of a {@link org.apache.ibatis.session.Configuration}, and it holds the
+ * dependencies of each {@link Cache} apart. Namespaces that share a cache through a cache-ref share its dependencies.
+ * Keys are held strongly, as caches that serialize their keys or keep them remotely do not keep the registered
+ * instances, and an invalidated key is removed from all of its tables. The cache does not report its evictions, so the
+ * keys it evicted stay in the index until one of their tables is written: once the index holds more than twice as
+ * many keys as the cache, {@link #isOverflowing(Cache)} tells the caller to clear both.
+ * Results whose tables are unknown depend on every table.
+ * <p>
+ * The index only knows the keys registered in this JVM. A cache shared by several nodes must be cleared as a whole
+ * on writes, or invalidated by table on every node.
+ *
+ * @see org.apache.ibatis.cache.decorators.TransactionalCache
+ */
+public class TableDependencyIndex {
+
+  private static final String ANY_TABLE = "*";
+
+  // 缓存项个数较少时，不因为index中残留的key清空缓存
+  private static final int MIN_KEYS_BEFORE_OVERFLOW = 1024;
+
+  // cache --> 该cache的依赖关系
+  private final Map<Cache, Dependencies> dependencies = new ConcurrentHashMap<>();
+
+  /**
+   * @param cache the cache holding the result
+   * @param key the key of the result
+   * @param tables the tables the result was read from, <code>null</code> if unknown
+   */
+  public void register(Cache cache, Object key, Collection<String> tables) {
+    Dependencies cacheDependencies = dependencies.computeIfAbsent(cache, c -> new Dependencies());
+    Collection<String> keyTables = tables == null ? Collections.singleton(ANY_TABLE) : tables;
+    cacheDependencies.tablesByKey.put(key, keyTables);
+    for (String table : keyTables) {
+      // 与remove()中对同一个表的操作互斥，key不会被加入正在被移除的集合
+      cacheDependencies.keysByTable.compute(table, (t, keys) -> {
+        Set<Object> set = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+        set.add(key);
+        return set;
+      });
+    }
+  }
+
+  /**
+   * @param cache the cache holding the result
+   * @param key the key of the result
+   * @param tables the tables that were written
+   * @return <code>true</code> if the result depends on one of the tables
+   */
+  public boolean dependsOn(Cache cache, Object key, Collection<String> tables) {
+    Dependencies cacheDependencies = dependencies.get(cache);
+    if (cacheDependencies == null) {
+      return false;
+    }
+    Collection<String> keyTables = cacheDependencies.tablesByKey.get(key);
+    if (keyTables == null) {
+      return false;
+    }
+    return keyTables.contains(ANY_TABLE) || !Collections.disjoint(keyTables, tables);
+  }
+
+  /**
+   * Removes the keys of the results that depend on the given tables.
+   *
+   * @param cache the cache holding the results
+   * @param tables the tables that were written
+   * @return the keys of the results to invalidate
+   */
+  public Set<Object> remove(Cache cache, Collection<String> tables) {
+    Set<Object> keys = new HashSet<>();
+    Dependencies cacheDependencies = dependencies.get(cache);
+    if (cacheDependencies != null) {
+      drainTo(cacheDependencies.keysByTable.remove(ANY_TABLE), keys);
+      for (String table : tables) {
+        drainTo(cacheDependencies.keysByTable.remove(table), keys);
+      }
+      for (Object key : keys) {
+        cacheDependencies.forget(key);
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Removes a key that is no longer in the cache.
+   *
+   * @param cache the cache that held the result
+   * @param key the key of the result
+   */
+  public void remove(Cache cache, Object key) {
+    Dependencies cacheDependencies = dependencies.get(cache);
+    if (cacheDependencies != null) {
+      cacheDependencies.forget(key);
+    }
+  }
+
+  /**
+   * Removes all the dependencies of a cache, when it is cleared.
+   *
+   * @param cache the cache that is cleared
+   */
+  public void clear(Cache cache) {
+    Dependencies cacheDependencies = dependencies.get(cache);
+    if (cacheDependencies != null) {
+      cacheDependencies.keysByTable.clear();
+      cacheDependencies.tablesByKey.clear();
+    }
+  }
+
+  /**
+   * @param cache the cache holding the results
+   * @return the number of keys registered for the cache
+   */
+  public int getSize(Cache cache) {
+    Dependencies cacheDependencies = dependencies.get(cache);
+    return cacheDependencies == null ? 0 : cacheDependencies.tablesByKey.size();
+  }
+
+  /**
+   * Tells whether the index holds so many more keys than the cache that most of them must have been evicted.
+   *
+   * @param cache the cache holding the results
+   * @return <code>true</code> if the cache and its dependencies should be cleared
+   */
+  public boolean isOverflowing(Cache cache) {
+    int size = getSize(cache);
+    return size > MIN_KEYS_BEFORE_OVERFLOW && size > 2L * cache.getSize();
+  }
+
+  private static void drainTo(Set<Object> keys, Set<Object> target) {
+    if (keys != null) {
+      target.addAll(keys);
+    }
+  }
+
+  private static class Dependencies {
+
+    // 表名 --> 依赖该表的key
+    private final Map<String, Set<Object>> keysByTable = new ConcurrentHashMap<>();
+    // key --> 该key依赖的表
+    private final Map<Object, Collection<String>> tablesByKey = new ConcurrentHashMap<>();
+
+    private void forget(Object key) {
+      Collection<String> tables = tablesByKey.remove(key);
+      if (tables != null) {
+        for (String table : tables) {
+          keysByTable.computeIfPresent(table, (t, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+          });
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,184 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds the tables a SQL statement reads or writes, to track which cached results depend on which tables.
+ * <p>
+ * The parser only looks at the names that follow {@code FROM}, {@code JOIN}, {@code INTO}, {@code UPDATE},
+ * {@code TABLE} and {@code USING}, including comma separated {@code FROM} lists. It may report names that are not
+ * tables, which only causes extra invalidations, but it does not see the tables behind views, functions or triggers:
+ * such statements should declare their tables.
+ * Names are reported in lower case, without quotes and without schema.
+ */
+public final class TableNameParser {
+
+  private static final Set<String> TABLE_KEYWORDS = new HashSet<>(
+      Arrays.asList("from", "join", "into", "update", "table", "using"));
+
+  // 结束from列表中别名的关键字
+  private static final Set<String> CLAUSE_KEYWORDS = new HashSet<>(Arrays.asList(
+      "where", "join", "inner", "left", "right", "full", "cross", "outer", "natural", "on", "using", "group", "order",
+      "having", "limit", "offset", "fetch", "union", "intersect", "except", "minus", "for", "window", "set", "values",
+      "select", "returning", "start", "connect", "straight_join", "lateral"));
+
+  private TableNameParser() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * @param sql the SQL statement
+   * @return the names of the tables, empty if none was found
+   */
+  public static Set<String> parse(String sql) {
+    Set<String> tables = new HashSet<>();
+    Tokenizer tokenizer = new Tokenizer(sql);
+    String token = tokenizer.next();
+    while (token != null) {
+      String keyword = token.toLowerCase(Locale.ENGLISH);
+      token = tokenizer.next();
+      if (!TABLE_KEYWORDS.contains(keyword)) {
+        continue;
+      }
+      boolean list = "from".equals(keyword);
+      while (token != null && tokenizer.isName(token)) {
+        tables.add(normalize(token));
+        token = tokenizer.next();
+        if (!list) {
+          break;
+        }
+        // skip the alias
+        if (token != null && "as".equalsIgnoreCase(token)) {
+          token = tokenizer.next();
+        }
+        if (token != null && tokenizer.isName(token) && !CLAUSE_KEYWORDS.contains(token.toLowerCase(Locale.ENGLISH))) {
+          token = tokenizer.next();
+        }
+        if (!",".equals(token)) {
+          break;
+        }
+        token = tokenizer.next();
+      }
+    }
+    return tables;
+  }
+
+  private static String normalize(String name) {
+    int dot = lastDot(name);
+    String table = name.substring(dot + 1);
+    if (table.length() > 1 && (table.charAt(0) == '"' || table.charAt(0) == '`' || table.charAt(0) == '[')) {
+      table = table.substring(1, table.length() - 1);
+    }
+    return table.toLowerCase(Locale.ENGLISH);
+  }
+
+  private static int lastDot(String name) {
+    char quote = 0;
+    int dot = -1;
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '[') {
+        quote = ']';
+      } else if (c == '.') {
+        dot = i;
+      }
+    }
+    return dot;
+  }
+
+  private static final class Tokenizer {
+
+    private final String sql;
+
+    private int position;
+
+    private Tokenizer(String sql) {
+      this.sql = sql;
+    }
+
+    private boolean isName(String token) {
+      char c = token.charAt(0);
+      return Character.isLetter(c) || c == '_' || c == '"' || c == '`' || c == '[';
+    }
+
+    private String next() {
+      skipBlanksAndComments();
+      if (position >= sql.length()) {
+        return null;
+      }
+      int start = position;
+      char c = sql.charAt(position);
+      if (c == '\'') {
+        skipQuoted('\'');
+        return next();
+      }
+      if (!isNamePart(c)) {
+        position++;
+        return sql.substring(start, position);
+      }
+      while (position < sql.length() && isNamePart(sql.charAt(position))) {
+        c = sql.charAt(position);
+        if (c == '"' || c == '`') {
+          skipQuoted(c);
+        } else if (c == '[') {
+          skipQuoted(']');
+        } else {
+          position++;
+        }
+      }
+      return sql.substring(start, position);
+    }
+
+    private boolean isNamePart(char c) {
+      return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '.'
+          || c == '"' || c == '`' || c == '[';
+    }
+
+    private void skipQuoted(char quote) {
+      int end = sql.indexOf(quote, position + 1);
+      position = end < 0 ? sql.length() : end + 1;
+    }
+
+    private void skipBlanksAndComments() {
+      while (position < sql.length()) {
+        char c = sql.charAt(position);
+        if (Character.isWhitespace(c)) {
+          position++;
+        } else if (sql.startsWith("--", position)) {
+          int end = sql.indexOf('\n', position);
+          position = end < 0 ? sql.length() : end + 1;
+        } else if (sql.startsWith("/*", position)) {
+          int end = sql.indexOf("*/", position + 2);
+          position = end < 0 ? sql.length() : end + 2;
+        } else {
+          return;
+        }
+      }
+    }
+  }
+
+}
@@ -17,6 +17,7 @@ package org.apache.ibatis.cache;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.ibatis.cache.decorators.TransactionalCache;
 
@@ -26,11 +27,47 @@ import org.apache.ibatis.cache.decorators.TransactionalCache;
 public class TransactionalCacheManager {
 
   private final Map<Cache, TransactionalCache> transactionalCaches = new HashMap<>();
+  private final SingleFlightRegistry singleFlightRegistry;
+  private final long singleFlightTimeout;
+  private final TableDependencyIndex tableDependencyIndex;
+
+  public TransactionalCacheManager() {
+    this(null, 0);
+  }
+
+  /**
+   * @param singleFlightRegistry registry used to coalesce the concurrent misses of a key, <code>null</code> to disable it
+   * @param singleFlightTimeout the maximum time to wait for another session in milliseconds, 0 to wait {@link SingleFlightRegistry#DEFAULT_TIMEOUT}
+   */
+  public TransactionalCacheManager(SingleFlightRegistry singleFlightRegistry, long singleFlightTimeout) {
+    this(singleFlightRegistry, singleFlightTimeout, null);
+  }
+
+  /**
+   * @param singleFlightRegistry registry used to coalesce the concurrent misses of a key, <code>null</code> to disable it
+   * @param singleFlightTimeout the maximum time to wait for another session in milliseconds, 0 to wait {@link SingleFlightRegistry#DEFAULT_TIMEOUT}
+   * @param tableDependencyIndex index of the tables the cached results depend on, <code>null</code> to clear the whole
+   *          cache on every write
+   */
+  public TransactionalCacheManager(SingleFlightRegistry singleFlightRegistry, long singleFlightTimeout,
+      TableDependencyIndex tableDependencyIndex) {
+    this.singleFlightRegistry = singleFlightRegistry;
+    this.singleFlightTimeout = singleFlightTimeout;
+    this.tableDependencyIndex = tableDependencyIndex;
+  }
+
+  public boolean isTableInvalidationEnabled() {
+    return tableDependencyIndex != null;
+  }
 
   public void clear(Cache cache) {
     getTransactionalCache(cache).clear();
   }
 
+  public void invalidate(Cache cache, Set<String> tables) {
+    getTransactionalCache(cache).invalidate(tables);
+  }
+
   public Object getObject(Cache cache, CacheKey key) {
     return getTransactionalCache(cache).getObject(key);
   }
@@ -39,6 +76,14 @@ public class TransactionalCacheManager {
     getTransactionalCache(cache).putObject(key, value);
   }
 
+  public void putObject(Cache cache, CacheKey key, Object value, Set<String> tables) {
+    getTransactionalCache(cache).putObject(key, value, tables);
+  }
+
+  public void removeObject(Cache cache, CacheKey key) {
+    getTransactionalCache(cache).removeObject(key);
+  }
+
   public void commit() {
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.commit();
@@ -52,7 +97,8 @@ public class TransactionalCacheManager {
   }
 
   private TransactionalCache getTransactionalCache(Cache cache) {
-    return transactionalCaches.computeIfAbsent(cache, TransactionalCache::new);
+    return transactionalCaches.computeIfAbsent(cache,
+        c -> new TransactionalCache(c, singleFlightRegistry, singleFlightTimeout, tableDependencyIndex));
   }
 
 }
@@ -22,6 +22,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheStatsCounter;
 
 /**
  * Simple blocking decorator
@@ -46,6 +47,9 @@ public class BlockingCache implements Cache {
   // 每一个cache都有一个reentrantLock
   private final ConcurrentHashMap<Object, ReentrantLock> locks;
 
+  // 记录等待锁的时间
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
+
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
     this.locks = new ConcurrentHashMap<>();
@@ -102,6 +106,18 @@ public class BlockingCache implements Cache {
   private void acquireLock(Object key) {
     // 获得reentrantLock锁对象
     Lock lock = getLockForKey(key);
+    if (lock.tryLock()) {
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      waitForLock(lock, key);
+    } finally {
+      statsCounter.recordLockWait(System.nanoTime() - start);
+    }
+  }
+
+  private void waitForLock(Lock lock, Object key) {
     if (timeout > 0) {
       try {
         // 尝试获取锁，如果获取失败，阻塞timeout时间
@@ -134,4 +150,8 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+  }
 }
@@ -0,0 +1,153 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatsCounter;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+
+/**
+ * Expires every entry on its own, {@code timeToLive} milliseconds after it was put.
+ * <p>
+ * Unlike {@link ScheduledCache}, which clears the whole cache once per interval, entries put at different times
+ * expire at different times, so that they are not all reloaded from the database at once.
+ * <p>
+ * When {@code refreshAhead} is set, the first read of an entry that expires within {@code refreshAhead} milliseconds
+ * is reported as a miss, so that the reading session reloads it, while the other sessions keep reading the current
+ * value until the new one is put. The reading session holds the refresh for half of {@code refreshAhead}: when it
+ * fails or rolls back without putting a new value, the next read after that sends another session to the database.
+ */
+public class ExpiringCache implements Cache {
+
+  private final Cache delegate;
+  // 缓存项的存活时间（毫秒）
+  protected long timeToLive;
+  // 在过期前多久提前刷新（毫秒），0表示不提前刷新
+  protected long refreshAhead;
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
+
+  public ExpiringCache(Cache delegate) {
+    this.delegate = delegate;
+    this.timeToLive = 60 * 60 * 1000; // 1 hour
+  }
+
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  public void setRefreshAhead(long refreshAhead) {
+    this.refreshAhead = refreshAhead;
+  }
+
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object object) {
+    if (object == null) {
+      // keep the null put of the missed keys as is
+      delegate.putObject(key, null);
+    } else {
+      delegate.putObject(key, new Entry(object, System.currentTimeMillis() + timeToLive));
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Entry entry = (Entry) delegate.getObject(key);
+    if (entry == null) {
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    if (now >= entry.expiresAt) {
+      removeExpired(key, entry);
+      return null;
+    }
+    if (refreshAhead > 0 && now >= entry.expiresAt - refreshAhead && claimRefresh(entry, now)) {
+      // only one reader is sent to the database, the entry is replaced when it puts the new value
+      return null;
+    }
+    return entry.value;
+  }
+
+  private boolean claimRefresh(Entry entry, long now) {
+    long refreshingUntil = entry.refreshingUntil.get();
+    // 负责刷新的读者失败或回滚后不会放入新值，过了refreshingUntil由下一个读者刷新
+    return now >= refreshingUntil && entry.refreshingUntil.compareAndSet(refreshingUntil, now + refreshAhead / 2 + 1);
+  }
+
+  private void removeExpired(Object key, Entry entry) {
+    if (delegate instanceof ConcurrentCache) {
+      // the cache is not synchronized, another session may have put a new value since the entry was read
+      if (((ConcurrentCache) delegate).removeObject(key, entry)) {
+        statsCounter.recordEviction();
+      }
+    } else {
+      delegate.removeObject(key);
+      statsCounter.recordEviction();
+    }
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Entry entry = (Entry) delegate.removeObject(key);
+    return entry == null ? null : entry.value;
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private static final class Entry {
+
+    private final Object value;
+
+    private final long expiresAt;
+
+    // 负责刷新的读者在此时间之前放入新值，0表示还没有读者负责刷新
+    private final AtomicLong refreshingUntil = new AtomicLong();
+
+    private Entry(Object value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+}
@@ -19,6 +19,7 @@ import java.util.Deque;
 import java.util.LinkedList;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatsCounter;
 
 /**
  * FIFO (first in, first out) cache decorator.
@@ -35,6 +36,7 @@ public class FifoCache implements Cache {
   private final Deque<Object> keyList;
   // 缓存的上限
   private int size;
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
 
   public FifoCache(Cache delegate) {
     this.delegate = delegate;
@@ -56,6 +58,10 @@ public class FifoCache implements Cache {
     this.size = size;
   }
 
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     // 检测并清理key
@@ -88,6 +94,7 @@ public class FifoCache implements Cache {
       Object oldestKey = keyList.removeFirst();
       // 删除对应的key
       delegate.removeObject(oldestKey);
+      statsCounter.recordEviction();
     }
   }
 
@@ -16,6 +16,7 @@
 package org.apache.ibatis.cache.decorators;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatsCounter;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -23,20 +24,38 @@ import org.apache.ibatis.logging.LogFactory;
  * @author Clinton Begin
  *
  * 日志cache
- * 通过hit字段和requests来记录Cache中命中次数和访问次数
+ * 通过CacheStatsCounter来记录Cache中命中次数、未命中次数和添加次数
  */
 public class LoggingCache implements Cache {
 
   private final Log log;
   private final Cache delegate;
+  private final CacheStatsCounter statsCounter;
+  /**
+   * @deprecated not atomic when the cache is not synchronized, use {@link #getStatsCounter()} instead
+   */
+  @Deprecated
   protected int requests = 0;
+  /**
+   * @deprecated not atomic when the cache is not synchronized, use {@link #getStatsCounter()} instead
+   */
+  @Deprecated
   protected int hits = 0;
 
   public LoggingCache(Cache delegate) {
+    this(delegate, new CacheStatsCounter());
+  }
+
+  public LoggingCache(Cache delegate, CacheStatsCounter statsCounter) {
     this.delegate = delegate;
+    this.statsCounter = statsCounter;
     this.log = LogFactory.getLog(getId());
   }
 
+  public CacheStatsCounter getStatsCounter() {
+    return statsCounter;
+  }
+
   @Override
   public String getId() {
     return delegate.getId();
@@ -50,6 +69,9 @@ public class LoggingCache implements Cache {
   @Override
   public void putObject(Object key, Object object) {
     delegate.putObject(key, object);
+    if (object != null) {
+      statsCounter.recordPut();
+    }
   }
 
   @Override
@@ -58,6 +80,9 @@ public class LoggingCache implements Cache {
     final Object value = delegate.getObject(key);
     if (value != null) {
       hits++;
+      statsCounter.recordHit();
+    } else {
+      statsCounter.recordMiss();
     }
     if (log.isDebugEnabled()) {
       log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
@@ -86,7 +111,7 @@ public class LoggingCache implements Cache {
   }
 
   private double getHitRatio() {
-    return (double) hits / (double) requests;
+    return statsCounter.getHitRatio();
   }
 
 }
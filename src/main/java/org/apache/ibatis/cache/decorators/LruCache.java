@@ -19,6 +19,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatsCounter;
 
 /**
  * Lru (least recently used) cache decorator.
@@ -35,6 +36,7 @@ public class LruCache implements Cache {
   private Map<Object, Object> keyMap;
   // 记录最少被使用的key
   private Object eldestKey;
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
 
   public LruCache(Cache delegate) {
     this.delegate = delegate;
@@ -69,6 +71,10 @@ public class LruCache implements Cache {
     };
   }
 
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     delegate.putObject(key, value);
@@ -98,6 +104,7 @@ public class LruCache implements Cache {
     if (eldestKey != null) {
       // eldestKey不为null，说明已经达到最大缓存上限了，则删除这个key的缓存
       delegate.removeObject(eldestKey);
+      statsCounter.recordEviction();
       eldestKey = null;
     }
   }
@@ -16,6 +16,7 @@
 package org.apache.ibatis.cache.decorators;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatsCounter;
 
 /**
  * @author Clinton Begin
@@ -25,6 +26,7 @@ public class ScheduledCache implements Cache {
   private final Cache delegate;
   protected long clearInterval;
   protected long lastClear;
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
 
   public ScheduledCache(Cache delegate) {
     this.delegate = delegate;
@@ -36,6 +38,10 @@ public class ScheduledCache implements Cache {
     this.clearInterval = clearInterval;
   }
 
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+  }
+
   @Override
   public String getId() {
     return delegate.getId();
@@ -82,6 +88,7 @@ public class ScheduledCache implements Cache {
 
   private boolean clearWhenStale() {
     if (System.currentTimeMillis() - lastClear > clearInterval) {
+      statsCounter.recordEvictions(delegate.getSize());
       clear();
       return true;
     }
@@ -15,30 +15,43 @@
  */
 package org.apache.ibatis.cache.decorators;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
-import java.io.Serializable;
 
 import org.apache.ibatis.cache.Cache;
-import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.CacheStatsCounter;
+import org.apache.ibatis.cache.impl.JdkCacheSerializer;
 import org.apache.ibatis.io.Resources;
 
 /**
  * @author Clinton Begin
  *
- * 序列化缓存， putObject会将value序列化存入缓存中
+ * 序列化缓存， putObject会将value序列化存入缓存中，具体的序列化方式由CacheSerializer决定
  */
 public class SerializedCache implements Cache {
 
   private final Cache delegate;
 
+  // 序列化器，默认使用jdk的序列化
+  private final CacheSerializer serializer;
+
+  // 记录序列化后的大小，用于估算内存占用
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
+
   public SerializedCache(Cache delegate) {
+    this(delegate, new JdkCacheSerializer());
+  }
+
+  public SerializedCache(Cache delegate, CacheSerializer serializer) {
     this.delegate = delegate;
+    this.serializer = serializer;
+  }
+
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
   }
 
   @Override
@@ -53,17 +66,20 @@ public class SerializedCache implements Cache {
 
   @Override
   public void putObject(Object key, Object object) {
-    if (object == null || object instanceof Serializable) {
-      delegate.putObject(key, serialize((Serializable) object));
-    } else {
-      throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + object);
+    if (object == null) {
+      // keep null puts recognizable by the decorated caches
+      delegate.putObject(key, null);
+      return;
     }
+    byte[] bytes = serializer.serialize(object);
+    statsCounter.recordSerialized(bytes.length);
+    delegate.putObject(key, bytes);
   }
 
   @Override
   public Object getObject(Object key) {
     Object object = delegate.getObject(key);
-    return object == null ? null : deserialize((byte[]) object);
+    return object == null ? null : serializer.deserialize((byte[]) object);
   }
 
   @Override
@@ -86,28 +102,6 @@ public class SerializedCache implements Cache {
     return delegate.equals(obj);
   }
 
-  private byte[] serialize(Serializable value) {
-    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-         ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-      oos.writeObject(value);
-      oos.flush();
-      return bos.toByteArray();
-    } catch (Exception e) {
-      throw new CacheException("Error serializing object.  Cause: " + e, e);
-    }
-  }
-
-  private Serializable deserialize(byte[] value) {
-    Serializable result;
-    try (ByteArrayInputStream bis = new ByteArrayInputStream(value);
-         ObjectInputStream ois = new CustomObjectInputStream(bis)) {
-      result = (Serializable) ois.readObject();
-    } catch (Exception e) {
-      throw new CacheException("Error deserializing object.  Cause: " + e, e);
-    }
-    return result;
-  }
-
   public static class CustomObjectInputStream extends ObjectInputStream {
 
     public CustomObjectInputStream(InputStream in) throws IOException {
@@ -19,8 +19,11 @@ import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatsCounter;
 
 /**
  * Soft Reference cache decorator
@@ -37,6 +40,8 @@ public class SoftCache implements Cache {
   // 这就是通过将其value添加到hardLinksToAvoidGarbageCollection集合中实现的(即有强引用指向其 value)
   // hardLinksToAvoidGarbageCollection集合是 LinkedList<Object>类型
   private final Deque<Object> hardLinksToAvoidGarbageCollection;
+  // 保护hardLinksToAvoidGarbageCollection
+  private final Lock hardLinksLock = new ReentrantLock();
 
   // 引用队列，用于记录已经被GC回收的缓存项所对应的 SoftEntry 对象
   private final ReferenceQueue<Object> queueOfGarbageCollectedEntries;
@@ -46,6 +51,7 @@ public class SoftCache implements Cache {
 
   // 强引用的个数256
   private int numberOfHardLinks;
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
 
   public SoftCache(Cache delegate) {
     this.delegate = delegate;
@@ -70,6 +76,10 @@ public class SoftCache implements Cache {
     this.numberOfHardLinks = size;
   }
 
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     // 清除已被GC回收的缓存项
@@ -91,11 +101,14 @@ public class SoftCache implements Cache {
       } else {
         // See #586 (and #335) modifications need more than a read lock
         // 没有被GC回收，添加到强引用中
-        synchronized (hardLinksToAvoidGarbageCollection) {
+        hardLinksLock.lock();
+        try {
           hardLinksToAvoidGarbageCollection.addFirst(result);
           if (hardLinksToAvoidGarbageCollection.size() > numberOfHardLinks) {
             hardLinksToAvoidGarbageCollection.removeLast();
           }
+        } finally {
+          hardLinksLock.unlock();
         }
       }
     }
@@ -110,8 +123,11 @@ public class SoftCache implements Cache {
 
   @Override
   public void clear() {
-    synchronized (hardLinksToAvoidGarbageCollection) {
+    hardLinksLock.lock();
+    try {
       hardLinksToAvoidGarbageCollection.clear();
+    } finally {
+      hardLinksLock.unlock();
     }
     removeGarbageCollectedItems();
     delegate.clear();
@@ -121,6 +137,7 @@ public class SoftCache implements Cache {
     SoftEntry sv;
     while ((sv = (SoftEntry) queueOfGarbageCollectedEntries.poll()) != null) {
       delegate.removeObject(sv.key);
+      statsCounter.recordEviction();
     }
   }
 
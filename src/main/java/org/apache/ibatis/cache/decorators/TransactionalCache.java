@@ -15,12 +15,16 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.SingleFlightRegistry;
+import org.apache.ibatis.cache.TableDependencyIndex;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -31,6 +35,13 @@ import org.apache.ibatis.logging.LogFactory;
  * Entries are sent to the cache when commit is called or discarded if the Session is rolled back.
  * Blocking cache support has been added. Therefore any get() that returns a cache miss
  * will be followed by a put() so any lock associated with the key can be released.
+ * <p>
+ * When a {@link SingleFlightRegistry} is given, only one session loads a missed key at a time. The other sessions
+ * wait until the loading session commits and then read the entry from the cache. When it rolls back, fails or did not
+ * add the entry, the other sessions query the database themselves.
+ * <p>
+ * When a {@link TableDependencyIndex} is given, a write that declares the tables it touched only invalidates the
+ * entries that were read from one of them, instead of clearing the whole cache.
  *
  * @author Clinton Begin
  * @author Eduardo Macarron
@@ -46,12 +57,39 @@ public class TransactionalCache implements Cache {
   private final Map<Object, Object> entriesToAddOnCommit;
   // 记录本地未被命中的key
   private final Set<Object> entriesMissedInCache;
+  // 合并并发未命中的注册表，为null时不合并
+  private final SingleFlightRegistry singleFlightRegistry;
+  // 等待其他session加载的超时时间（毫秒），0表示使用默认超时时间
+  private final long singleFlightTimeout;
+  // 记录由当前session负责加载的key
+  private final Map<Object, SingleFlightRegistry.Flight> entriesLoading;
+  // 记录缓存项依赖的表，为null时写操作清空整个缓存
+  private final TableDependencyIndex tableDependencyIndex;
+  // 在commit时需要失效的表
+  private final Set<String> tablesToInvalidateOnCommit;
+  // 待添加缓存项所依赖的表
+  private final Map<Object, Set<String>> tablesOfEntriesToAdd;
 
   public TransactionalCache(Cache delegate) {
+    this(delegate, null, 0);
+  }
+
+  public TransactionalCache(Cache delegate, SingleFlightRegistry singleFlightRegistry, long singleFlightTimeout) {
+    this(delegate, singleFlightRegistry, singleFlightTimeout, null);
+  }
+
+  public TransactionalCache(Cache delegate, SingleFlightRegistry singleFlightRegistry, long singleFlightTimeout,
+      TableDependencyIndex tableDependencyIndex) {
     this.delegate = delegate;
     this.clearOnCommit = false;
     this.entriesToAddOnCommit = new HashMap<>();
     this.entriesMissedInCache = new HashSet<>();
+    this.singleFlightRegistry = singleFlightRegistry;
+    this.singleFlightTimeout = singleFlightTimeout;
+    this.entriesLoading = new HashMap<>();
+    this.tableDependencyIndex = tableDependencyIndex;
+    this.tablesToInvalidateOnCommit = new HashSet<>();
+    this.tablesOfEntriesToAdd = new HashMap<>();
   }
 
   @Override
@@ -68,11 +106,14 @@ public class TransactionalCache implements Cache {
   public Object getObject(Object key) {
     // issue #116
     Object object = delegate.getObject(key);
+    if (object == null && singleFlightRegistry != null && !clearOnCommit && !entriesLoading.containsKey(key)) {
+      object = awaitLoadingSession(key);
+    }
     if (object == null) {
       entriesMissedInCache.add(key);
     }
     // issue #146
-    if (clearOnCommit) {
+    if (clearOnCommit || isInvalidatedOnCommit(key)) {
       return null;
     } else {
       return object;
@@ -84,8 +125,24 @@ public class TransactionalCache implements Cache {
     entriesToAddOnCommit.put(key, object);
   }
 
+  /**
+   * Adds an entry on commit, and records the tables it was read from.
+   *
+   * @param key the key of the entry
+   * @param object the entry to add
+   * @param tables the tables the entry was read from, <code>null</code> if unknown
+   */
+  public void putObject(Object key, Object object, Set<String> tables) {
+    entriesToAddOnCommit.put(key, object);
+    if (tableDependencyIndex != null) {
+      tablesOfEntriesToAdd.put(key, tables);
+    }
+  }
+
   @Override
   public Object removeObject(Object key) {
+    // the value will not be loaded, let the waiting sessions query the database
+    land(key);
     return null;
   }
 
@@ -95,17 +152,51 @@ public class TransactionalCache implements Cache {
     entriesToAddOnCommit.clear();
   }
 
+  /**
+   * Invalidates on commit the entries that were read from the given tables.
+   * The whole cache is cleared when the tables are unknown or when tables are not tracked.
+   *
+   * @param tables the tables that were written, <code>null</code> if unknown
+   */
+  public void invalidate(Set<String> tables) {
+    if (tableDependencyIndex == null || tables == null) {
+      clear();
+      return;
+    }
+    tablesToInvalidateOnCommit.addAll(tables);
+    Iterator<Object> keys = entriesToAddOnCommit.keySet().iterator();
+    while (keys.hasNext()) {
+      Set<String> entryTables = tablesOfEntriesToAdd.get(keys.next());
+      if (entryTables == null || !Collections.disjoint(entryTables, tables)) {
+        keys.remove();
+      }
+    }
+  }
+
   public void commit() {
     if (clearOnCommit) {
       delegate.clear();
+      if (tableDependencyIndex != null) {
+        tableDependencyIndex.clear(delegate);
+      }
+    } else if (!tablesToInvalidateOnCommit.isEmpty()) {
+      invalidateEntries();
     }
     // 在commit操作时，存入缓存
     flushPendingEntries();
+    if (tableDependencyIndex != null && tableDependencyIndex.isOverflowing(delegate)) {
+      // index中的key大多已被缓存淘汰，清空缓存以释放它们
+      log.debug("Clearing cache " + delegate.getId() + " as most of its table dependencies were evicted");
+      delegate.clear();
+      tableDependencyIndex.clear(delegate);
+    }
+    landLoadingEntries();
     reset();
   }
 
   public void rollback() {
     unlockMissedEntries();
+    landLoadingEntries();
     reset();
   }
 
@@ -113,21 +204,71 @@ public class TransactionalCache implements Cache {
     clearOnCommit = false;
     entriesToAddOnCommit.clear();
     entriesMissedInCache.clear();
+    tablesToInvalidateOnCommit.clear();
+    tablesOfEntriesToAdd.clear();
+  }
+
+  private boolean isInvalidatedOnCommit(Object key) {
+    return !tablesToInvalidateOnCommit.isEmpty()
+        && tableDependencyIndex.dependsOn(delegate, key, tablesToInvalidateOnCommit);
+  }
+
+  private void invalidateEntries() {
+    for (Object key : tableDependencyIndex.remove(delegate, tablesToInvalidateOnCommit)) {
+      // put null instead of removing, as BlockingCache only releases its lock on removeObject
+      delegate.putObject(key, null);
+    }
   }
 
   private void flushPendingEntries() {
     // 遍历entriesToAddOnCommit集合，将其中记录的缓存项添加到二级缓存中
     for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
       delegate.putObject(entry.getKey(), entry.getValue());
+      if (tableDependencyIndex != null) {
+        tableDependencyIndex.register(delegate, entry.getKey(), tablesOfEntriesToAdd.get(entry.getKey()));
+      }
     }
     // 遍历entriesMissedInCache，将missingKey置为null
     for (Object entry : entriesMissedInCache) {
       if (!entriesToAddOnCommit.containsKey(entry)) {
         delegate.putObject(entry, null);
+        if (tableDependencyIndex != null) {
+          tableDependencyIndex.remove(delegate, entry);
+        }
       }
     }
   }
 
+  private Object awaitLoadingSession(Object key) {
+    SingleFlightRegistry.Flight flight = new SingleFlightRegistry.Flight();
+    SingleFlightRegistry.Flight leader = singleFlightRegistry.join(key, flight);
+    if (leader == null) {
+      // no other session is loading this key, this one will
+      entriesLoading.put(key, flight);
+      return null;
+    }
+    if (!singleFlightRegistry.await(leader, singleFlightTimeout)) {
+      log.debug("Not waiting any longer for another session loading " + key + " in cache " + delegate.getId());
+    }
+    // 只读取已提交的缓存项，leader回滚、失败或者超时时由当前session查询数据库
+    return delegate.getObject(key);
+  }
+
+  private void land(Object key) {
+    SingleFlightRegistry.Flight flight = entriesLoading.remove(key);
+    if (flight != null) {
+      singleFlightRegistry.land(key, flight);
+    }
+  }
+
+  private void landLoadingEntries() {
+    // 在缓存项提交之后调用，等待的session从缓存中读取
+    for (Map.Entry<Object, SingleFlightRegistry.Flight> entry : entriesLoading.entrySet()) {
+      singleFlightRegistry.land(entry.getKey(), entry.getValue());
+    }
+    entriesLoading.clear();
+  }
+
   private void unlockMissedEntries() {
     for (Object entry : entriesMissedInCache) {
       try {
@@ -0,0 +1,199 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheInvalidationEvent;
+import org.apache.ibatis.cache.CacheInvalidationListener;
+import org.apache.ibatis.cache.CacheInvalidationTransport;
+
+/**
+ * Near cache decorator: a local cache in front of an optional remote cache shared by all the nodes.
+ * <p>
+ * Reads are served by the local cache, then by the remote cache, whose values are copied into the local cache.
+ * Writes go to both. When an entry is removed or the cache is cleared, which happens when a
+ * {@link TransactionalCache} commits, the invalidation is published through the {@link CacheInvalidationTransport},
+ * so that the other nodes drop it from their local cache.
+ * <p>
+ * Invalidations received from other nodes are queued and applied before the next access, so that the local cache
+ * is only touched by the threads that already use it.
+ * <p>
+ * The transport only holds the cache weakly: once the configuration that built it is discarded, for example when it
+ * is rebuilt, the cache is unsubscribed on the next invalidation published through the transport.
+ * Only whole-cache clears and key removals are published, so a cache shared by several nodes is never invalidated
+ * by table, see {@link org.apache.ibatis.session.Configuration#isSharedCache(String)}.
+ *
+ * @see org.apache.ibatis.cache.impl.LoopbackInvalidationTransport
+ */
+public class TwoTierCache implements Cache, CacheInvalidationListener {
+
+  // 本地缓存
+  private final Cache delegate;
+  // 所有节点共享的远程缓存，可以为null
+  private final Cache remote;
+  // 广播失效消息
+  private final CacheInvalidationTransport transport;
+  // 当前实例的id，用于忽略自己发出的消息
+  private final String sourceId = UUID.randomUUID().toString();
+  // 收到的其他节点的失效消息，在下次访问时处理
+  private final Queue<CacheInvalidationEvent> receivedInvalidations = new ConcurrentLinkedQueue<>();
+  // 注册到transport上的监听器，只弱引用当前实例
+  private final Subscription subscription;
+
+  public TwoTierCache(Cache delegate, Cache remote, CacheInvalidationTransport transport) {
+    this.delegate = delegate;
+    this.remote = remote;
+    this.transport = transport;
+    this.subscription = transport == null ? null : new Subscription(this, transport);
+    if (subscription != null) {
+      transport.subscribe(subscription);
+    }
+  }
+
+  public Cache getRemote() {
+    return remote;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    applyReceivedInvalidations();
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    applyReceivedInvalidations();
+    delegate.putObject(key, value);
+    if (remote != null) {
+      remote.putObject(key, value);
+    }
+    if (value == null) {
+      // null is put for the keys that were missed or invalidated by the transaction
+      publish(key);
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    applyReceivedInvalidations();
+    Object value = delegate.getObject(key);
+    if (value == null && remote != null) {
+      value = remote.getObject(key);
+      if (value != null) {
+        delegate.putObject(key, value);
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    applyReceivedInvalidations();
+    Object value = delegate.removeObject(key);
+    if (remote != null) {
+      remote.removeObject(key);
+    }
+    publish(key);
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    receivedInvalidations.clear();
+    delegate.clear();
+    if (remote != null) {
+      remote.clear();
+    }
+    publish(null);
+  }
+
+  @Override
+  public void onInvalidation(CacheInvalidationEvent event) {
+    if (getId().equals(event.getCacheId()) && !sourceId.equals(event.getSourceId())) {
+      receivedInvalidations.add(event);
+    }
+  }
+
+  /**
+   * Stops receiving the invalidations of the other nodes.
+   */
+  public void close() {
+    if (subscription != null) {
+      transport.unsubscribe(subscription);
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private void publish(Object key) {
+    if (transport != null) {
+      transport.publish(new CacheInvalidationEvent(getId(), sourceId, key));
+    }
+  }
+
+  private void applyReceivedInvalidations() {
+    CacheInvalidationEvent event;
+    while ((event = receivedInvalidations.poll()) != null) {
+      if (event.isClear()) {
+        delegate.clear();
+      } else {
+        delegate.removeObject(event.getKey());
+      }
+    }
+  }
+
+  private static class Subscription implements CacheInvalidationListener {
+
+    private final WeakReference<TwoTierCache> cache;
+    private final CacheInvalidationTransport transport;
+
+    Subscription(TwoTierCache cache, CacheInvalidationTransport transport) {
+      this.cache = new WeakReference<>(cache);
+      this.transport = transport;
+    }
+
+    @Override
+    public void onInvalidation(CacheInvalidationEvent event) {
+      TwoTierCache subscribed = cache.get();
+      if (subscribed == null) {
+        // 缓存所属的configuration已被丢弃
+        transport.unsubscribe(this);
+      } else {
+        subscribed.onInvalidation(event);
+      }
+    }
+
+  }
+
+}
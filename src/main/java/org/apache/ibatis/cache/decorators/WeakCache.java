@@ -21,6 +21,7 @@ import java.util.Deque;
 import java.util.LinkedList;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatsCounter;
 
 /**
  * Weak Reference cache decorator.
@@ -35,6 +36,7 @@ public class WeakCache implements Cache {
   private final ReferenceQueue<Object> queueOfGarbageCollectedEntries;
   private final Cache delegate;
   private int numberOfHardLinks;
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
 
   public WeakCache(Cache delegate) {
     this.delegate = delegate;
@@ -58,6 +60,10 @@ public class WeakCache implements Cache {
     this.numberOfHardLinks = size;
   }
 
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     removeGarbageCollectedItems();
@@ -100,6 +106,7 @@ public class WeakCache implements Cache {
     WeakEntry sv;
     while ((sv = (WeakEntry) queueOfGarbageCollectedEntries.poll()) != null) {
       delegate.removeObject(sv.key);
+      statsCounter.recordEviction();
     }
   }
 
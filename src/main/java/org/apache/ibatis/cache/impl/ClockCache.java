@@ -0,0 +1,285 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Arrays;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheStatsCounter;
+
+/**
+ * Bounded cache implementation that evicts with the CLOCK algorithm, an approximation of least recently used.
+ * <p>
+ * Keys and values are kept in two arrays of an open addressing hash table, so an entry does not need any node
+ * object, unlike a {@link PerpetualCache} decorated with an {@link org.apache.ibatis.cache.decorators.LruCache},
+ * which keeps every key in two maps. A read only sets the reference bit of the entry. When the cache is full,
+ * the clock hand sweeps the table, clearing the bits it finds set, and evicts the first entry whose bit is clear.
+ * <p>
+ * Null values are not kept. This cache is not thread safe, {@link org.apache.ibatis.mapping.CacheBuilder}
+ * wraps it with a {@link org.apache.ibatis.cache.decorators.SynchronizedCache} but not with eviction decorators.
+ */
+public class ClockCache implements Cache {
+
+  private static final int MIN_CAPACITY = 16;
+
+  // 代替null key
+  private static final Object NULL_KEY = new Object();
+
+  // cache的id
+  private final String id;
+
+  // 哈希表的key，开放寻址，负载因子不超过0.5
+  private Object[] keys;
+
+  // 与keys下标对应的value
+  private Object[] values;
+
+  // 每个槽位的访问位，读取时置位，时钟指针经过时清除
+  private long[] referenced;
+
+  // 缓存项个数
+  private int count;
+
+  // 时钟指针
+  private int hand;
+
+  // 缓存上限
+  private int size;
+
+  // 记录淘汰的缓存项个数
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
+
+  public ClockCache(String id) {
+    this.id = id;
+    setSize(1024);
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return count;
+  }
+
+  public void setSize(int size) {
+    if (size <= 0) {
+      throw new CacheException("Cache size must be greater than zero but was " + size + ".");
+    }
+    this.size = size;
+    Object[] oldKeys = keys;
+    Object[] oldValues = values;
+    long[] oldReferenced = referenced;
+    int capacity = MIN_CAPACITY;
+    while (capacity < size * 2L && capacity < (1 << 30)) {
+      capacity <<= 1;
+    }
+    keys = new Object[capacity];
+    values = new Object[capacity];
+    referenced = new long[(capacity + 63) >>> 6];
+    count = 0;
+    hand = 0;
+    if (oldKeys != null) {
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != null) {
+          if (count >= size) {
+            evict();
+          }
+          int slot = insert(oldKeys[i], oldValues[i]);
+          if (isReferenced(oldReferenced, i)) {
+            setReferenced(slot);
+          }
+        }
+      }
+    }
+  }
+
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (value == null) {
+      // a null value is only put to release locks, there is nothing to keep
+      removeObject(key);
+      return;
+    }
+    Object k = maskNull(key);
+    int slot = find(k);
+    if (slot >= 0) {
+      values[slot] = value;
+      setReferenced(slot);
+      return;
+    }
+    if (count >= size) {
+      evict();
+    }
+    insert(k, value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    int slot = find(maskNull(key));
+    if (slot < 0) {
+      return null;
+    }
+    setReferenced(slot);
+    return values[slot];
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    int slot = find(maskNull(key));
+    if (slot < 0) {
+      return null;
+    }
+    Object value = values[slot];
+    delete(slot);
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(keys, null);
+    Arrays.fill(values, null);
+    Arrays.fill(referenced, 0L);
+    count = 0;
+    hand = 0;
+  }
+
+  private int find(Object key) {
+    int mask = keys.length - 1;
+    int i = indexFor(key, mask);
+    Object k;
+    while ((k = keys[i]) != null) {
+      if (k.equals(key)) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  private int insert(Object key, Object value) {
+    int mask = keys.length - 1;
+    int i = indexFor(key, mask);
+    while (keys[i] != null) {
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    values[i] = value;
+    count++;
+    return i;
+  }
+
+  private void evict() {
+    int mask = keys.length - 1;
+    while (true) {
+      if (keys[hand] != null) {
+        if (isReferenced(referenced, hand)) {
+          // 第二次机会，清除访问位
+          clearReferenced(hand);
+        } else {
+          // delete() may move a following entry into this slot, the hand does not move so that it is checked next
+          delete(hand);
+          statsCounter.recordEviction();
+          return;
+        }
+      }
+      hand = (hand + 1) & mask;
+    }
+  }
+
+  private void delete(int slot) {
+    // backward shift deletion: move back the following entries of the cluster that can not be found any more
+    int mask = keys.length - 1;
+    int hole = slot;
+    int i = slot;
+    while (true) {
+      i = (i + 1) & mask;
+      Object k = keys[i];
+      if (k == null) {
+        break;
+      }
+      int home = indexFor(k, mask);
+      boolean reachable = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+      if (!reachable) {
+        keys[hole] = k;
+        values[hole] = values[i];
+        if (isReferenced(referenced, i)) {
+          setReferenced(hole);
+        } else {
+          clearReferenced(hole);
+        }
+        hole = i;
+      }
+    }
+    keys[hole] = null;
+    values[hole] = null;
+    clearReferenced(hole);
+    count--;
+  }
+
+  private void setReferenced(int slot) {
+    referenced[slot >>> 6] |= 1L << slot;
+  }
+
+  private void clearReferenced(int slot) {
+    referenced[slot >>> 6] &= ~(1L << slot);
+  }
+
+  private static boolean isReferenced(long[] referenced, int slot) {
+    return (referenced[slot >>> 6] & (1L << slot)) != 0;
+  }
+
+  private static int indexFor(Object key, int mask) {
+    int h = key.hashCode();
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  private static Object maskNull(Object key) {
+    return key == null ? NULL_KEY : key;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+}
@@ -0,0 +1,476 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+
+/**
+ * Serializer that writes a compact binary form of the cached objects.
+ * <p>
+ * Beans are written property by property with the {@link Reflector} metadata, so they do not need to implement
+ * {@link Serializable}. Every property that can be both read and written is copied, except static and transient
+ * fields, and beans need a no-arg constructor.
+ * Strings, primitive wrappers, {@link BigDecimal}, {@link BigInteger}, {@link Date} and its java.sql subclasses,
+ * enums, byte arrays, {@link ArrayList}, {@link HashSet}, {@link LinkedHashSet}, {@link HashMap} and
+ * {@link LinkedHashMap} are written directly, and references shared between beans and collections are preserved.
+ * Any other object, including lazy loading proxies, is written with the Java serialization.
+ */
+public class CompactCacheSerializer implements CacheSerializer {
+
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte STRING = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte SHORT = 5;
+  private static final byte BYTE = 6;
+  private static final byte BOOLEAN = 7;
+  private static final byte DOUBLE = 8;
+  private static final byte FLOAT = 9;
+  private static final byte CHARACTER = 10;
+  private static final byte BIG_DECIMAL = 11;
+  private static final byte BIG_INTEGER = 12;
+  private static final byte DATE = 13;
+  private static final byte SQL_DATE = 14;
+  private static final byte SQL_TIME = 15;
+  private static final byte SQL_TIMESTAMP = 16;
+  private static final byte BYTE_ARRAY = 17;
+  private static final byte ENUM = 18;
+  private static final byte ARRAY_LIST = 19;
+  private static final byte HASH_SET = 20;
+  private static final byte LINKED_HASH_SET = 21;
+  private static final byte HASH_MAP = 22;
+  private static final byte LINKED_HASH_MAP = 23;
+  private static final byte BEAN = 24;
+  private static final byte SERIALIZED = 25;
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+  private static final String[] NOT_A_BEAN = new String[0];
+
+  private final ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+  private final ObjectFactory objectFactory = new DefaultObjectFactory();
+  private final CacheSerializer fallback = new JdkCacheSerializer();
+
+  // 每个bean类型需要复制的属性，按名称排序，保证读写的顺序一致
+  private final Map<Class<?>, String[]> beanProperties = new ConcurrentHashMap<>();
+
+  @Override
+  public byte[] serialize(Object value) {
+    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+         DataOutputStream out = new DataOutputStream(bos)) {
+      new Output(out).writeObject(value);
+      out.flush();
+      return bos.toByteArray();
+    } catch (CacheException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CacheException("Error serializing object.  Cause: " + e, e);
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      return new Input(in).readObject();
+    } catch (CacheException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CacheException("Error deserializing object.  Cause: " + e, e);
+    }
+  }
+
+  private String[] getBeanProperties(Class<?> type) {
+    String[] properties = beanProperties.computeIfAbsent(type, this::resolveBeanProperties);
+    return properties == NOT_A_BEAN ? null : properties;
+  }
+
+  private String[] resolveBeanProperties(Class<?> type) {
+    if (type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers())
+        || type.getName().startsWith("java.") || type.getName().startsWith("javax.")
+        || WriteReplaceInterface.class.isAssignableFrom(type)
+        || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+      return NOT_A_BEAN;
+    }
+    Reflector reflector = reflectorFactory.findForClass(type);
+    if (!reflector.hasDefaultConstructor()) {
+      return NOT_A_BEAN;
+    }
+    List<String> properties = new ArrayList<>();
+    for (String property : reflector.getGetablePropertyNames()) {
+      if (reflector.hasSetter(property) && !isStaticOrTransientField(type, property)) {
+        properties.add(property);
+      }
+    }
+    String[] result = properties.toArray(new String[0]);
+    Arrays.sort(result);
+    return result;
+  }
+
+  private static boolean isStaticOrTransientField(Class<?> type, String name) {
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (field.getName().equals(name)) {
+          int modifiers = field.getModifiers();
+          return Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers);
+        }
+      }
+    }
+    return false;
+  }
+
+  private final class Output {
+
+    private final DataOutputStream out;
+    // 已经写过的bean和集合，用于处理共享和循环引用
+    private final Map<Object, Integer> references = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classes = new HashMap<>();
+
+    private Output(DataOutputStream out) {
+      this.out = out;
+    }
+
+    private void writeObject(Object value) throws Exception {
+      if (value == null) {
+        out.writeByte(NULL);
+        return;
+      }
+      Class<?> type = value.getClass();
+      if (type == String.class) {
+        out.writeByte(STRING);
+        writeString((String) value);
+      } else if (type == Integer.class) {
+        out.writeByte(INTEGER);
+        out.writeInt((Integer) value);
+      } else if (type == Long.class) {
+        out.writeByte(LONG);
+        out.writeLong((Long) value);
+      } else if (type == Short.class) {
+        out.writeByte(SHORT);
+        out.writeShort((Short) value);
+      } else if (type == Byte.class) {
+        out.writeByte(BYTE);
+        out.writeByte((Byte) value);
+      } else if (type == Boolean.class) {
+        out.writeByte(BOOLEAN);
+        out.writeBoolean((Boolean) value);
+      } else if (type == Double.class) {
+        out.writeByte(DOUBLE);
+        out.writeDouble((Double) value);
+      } else if (type == Float.class) {
+        out.writeByte(FLOAT);
+        out.writeFloat((Float) value);
+      } else if (type == Character.class) {
+        out.writeByte(CHARACTER);
+        out.writeChar((Character) value);
+      } else if (type == BigDecimal.class) {
+        out.writeByte(BIG_DECIMAL);
+        writeString(value.toString());
+      } else if (type == BigInteger.class) {
+        out.writeByte(BIG_INTEGER);
+        writeBytes(((BigInteger) value).toByteArray());
+      } else if (type == Date.class) {
+        out.writeByte(DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == java.sql.Date.class) {
+        out.writeByte(SQL_DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == java.sql.Time.class) {
+        out.writeByte(SQL_TIME);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == java.sql.Timestamp.class) {
+        out.writeByte(SQL_TIMESTAMP);
+        out.writeLong(((java.sql.Timestamp) value).getTime());
+        out.writeInt(((java.sql.Timestamp) value).getNanos());
+      } else if (type == byte[].class) {
+        out.writeByte(BYTE_ARRAY);
+        writeBytes((byte[]) value);
+      } else if (value instanceof Enum) {
+        out.writeByte(ENUM);
+        writeClass(((Enum<?>) value).getDeclaringClass());
+        writeString(((Enum<?>) value).name());
+      } else if (type == ArrayList.class) {
+        writeCollection(ARRAY_LIST, (Collection<?>) value);
+      } else if (type == HashSet.class) {
+        writeCollection(HASH_SET, (Collection<?>) value);
+      } else if (type == LinkedHashSet.class) {
+        writeCollection(LINKED_HASH_SET, (Collection<?>) value);
+      } else if (type == HashMap.class) {
+        writeMap(HASH_MAP, (Map<?, ?>) value);
+      } else if (type == LinkedHashMap.class) {
+        writeMap(LINKED_HASH_MAP, (Map<?, ?>) value);
+      } else {
+        String[] properties = getBeanProperties(type);
+        if (properties == null) {
+          out.writeByte(SERIALIZED);
+          writeBytes(fallback.serialize(value));
+        } else if (!writeReference(value)) {
+          out.writeByte(BEAN);
+          writeClass(type);
+          Reflector reflector = reflectorFactory.findForClass(type);
+          for (String property : properties) {
+            writeObject(reflector.getGetInvoker(property).invoke(value, NO_ARGUMENTS));
+          }
+        }
+      }
+    }
+
+    private void writeCollection(byte tag, Collection<?> collection) throws Exception {
+      if (writeReference(collection)) {
+        return;
+      }
+      out.writeByte(tag);
+      writeVarInt(collection.size());
+      for (Object element : collection) {
+        writeObject(element);
+      }
+    }
+
+    private void writeMap(byte tag, Map<?, ?> map) throws Exception {
+      if (writeReference(map)) {
+        return;
+      }
+      out.writeByte(tag);
+      writeVarInt(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        writeObject(entry.getKey());
+        writeObject(entry.getValue());
+      }
+    }
+
+    private boolean writeReference(Object value) throws IOException {
+      Integer reference = references.get(value);
+      if (reference != null) {
+        out.writeByte(REFERENCE);
+        writeVarInt(reference);
+        return true;
+      }
+      references.put(value, references.size());
+      return false;
+    }
+
+    private void writeClass(Class<?> type) throws IOException {
+      Integer index = classes.get(type);
+      if (index != null) {
+        writeVarInt(index);
+      } else {
+        // a new index is followed by the class name
+        index = classes.size();
+        classes.put(type, index);
+        writeVarInt(index);
+        writeString(type.getName());
+      }
+    }
+
+    private void writeString(String value) throws IOException {
+      writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+      writeVarInt(bytes.length);
+      out.write(bytes);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+      while ((value & ~0x7F) != 0) {
+        out.writeByte((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte(value);
+    }
+  }
+
+  private final class Input {
+
+    private final DataInputStream in;
+    private final List<Object> references = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+
+    private Input(DataInputStream in) {
+      this.in = in;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object readObject() throws Exception {
+      byte tag = in.readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case REFERENCE:
+          return references.get(readVarInt());
+        case STRING:
+          return readString();
+        case INTEGER:
+          return in.readInt();
+        case LONG:
+          return in.readLong();
+        case SHORT:
+          return in.readShort();
+        case BYTE:
+          return in.readByte();
+        case BOOLEAN:
+          return in.readBoolean();
+        case DOUBLE:
+          return in.readDouble();
+        case FLOAT:
+          return in.readFloat();
+        case CHARACTER:
+          return in.readChar();
+        case BIG_DECIMAL:
+          return new BigDecimal(readString());
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case DATE:
+          return new Date(in.readLong());
+        case SQL_DATE:
+          return new java.sql.Date(in.readLong());
+        case SQL_TIME:
+          return new java.sql.Time(in.readLong());
+        case SQL_TIMESTAMP:
+          java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readLong());
+          timestamp.setNanos(in.readInt());
+          return timestamp;
+        case BYTE_ARRAY:
+          return readBytes();
+        case ENUM:
+          Class enumType = readClass();
+          return Enum.valueOf(enumType, readString());
+        case ARRAY_LIST: {
+          int size = readVarInt();
+          return readElements(new ArrayList<>(size), size);
+        }
+        case HASH_SET: {
+          int size = readVarInt();
+          return readElements(new HashSet<>(capacity(size)), size);
+        }
+        case LINKED_HASH_SET: {
+          int size = readVarInt();
+          return readElements(new LinkedHashSet<>(capacity(size)), size);
+        }
+        case HASH_MAP: {
+          int size = readVarInt();
+          return readEntries(new HashMap<>(capacity(size)), size);
+        }
+        case LINKED_HASH_MAP: {
+          int size = readVarInt();
+          return readEntries(new LinkedHashMap<>(capacity(size)), size);
+        }
+        case BEAN:
+          return readBean(readClass());
+        case SERIALIZED:
+          return fallback.deserialize(readBytes());
+        default:
+          throw new CacheException("Unknown type tag " + tag + " in serialized cache object.");
+      }
+    }
+
+    private Collection<Object> readElements(Collection<Object> collection, int size) throws Exception {
+      references.add(collection);
+      for (int i = 0; i < size; i++) {
+        collection.add(readObject());
+      }
+      return collection;
+    }
+
+    private Map<Object, Object> readEntries(Map<Object, Object> map, int size) throws Exception {
+      references.add(map);
+      for (int i = 0; i < size; i++) {
+        Object key = readObject();
+        map.put(key, readObject());
+      }
+      return map;
+    }
+
+    private Object readBean(Class<?> type) throws Exception {
+      String[] properties = getBeanProperties(type);
+      if (properties == null) {
+        throw new CacheException("Cannot read an instance of " + type.getName() + " as a bean.");
+      }
+      Object bean = objectFactory.create(type);
+      references.add(bean);
+      Reflector reflector = reflectorFactory.findForClass(type);
+      for (String property : properties) {
+        reflector.getSetInvoker(property).invoke(bean, new Object[] { readObject() });
+      }
+      return bean;
+    }
+
+    private Class<?> readClass() throws Exception {
+      int index = readVarInt();
+      if (index == classes.size()) {
+        classes.add(Resources.classForName(readString()));
+      }
+      return classes.get(index);
+    }
+
+    private String readString() throws IOException {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() throws IOException {
+      byte[] bytes = new byte[readVarInt()];
+      in.readFully(bytes);
+      return bytes;
+    }
+
+    private int readVarInt() throws IOException {
+      int value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = in.readByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+    }
+
+    private int capacity(int size) {
+      return Math.max((int) (size / .75f) + 1, 16);
+    }
+  }
+
+}
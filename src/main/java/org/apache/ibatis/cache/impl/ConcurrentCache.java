@@ -0,0 +1,220 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheStatsCounter;
+
+/**
+ * Thread safe and bounded cache implementation.
+ * <p>
+ * Reads never lock: every entry records the value of a logical clock that only advances on writes,
+ * and a read stamps the entry only when that value has changed.
+ * When the cache grows beyond its size, one writer trims it to 7/8 of the size, evicting the least recently used
+ * entries first. Other writers do not wait for the trim, so the size is a soft bound.
+ * <p>
+ * As this cache is thread safe and bounds itself, {@link org.apache.ibatis.mapping.CacheBuilder}
+ * does not wrap it with eviction decorators or with a {@link org.apache.ibatis.cache.decorators.SynchronizedCache}.
+ */
+public class ConcurrentCache implements Cache {
+
+  // cache的id
+  private final String id;
+
+  // 记录缓存项的map
+  private final ConcurrentHashMap<Object, Entry> cache = new ConcurrentHashMap<>();
+
+  // 逻辑时钟，只在写入时前进
+  private final AtomicLong clock = new AtomicLong();
+
+  // 同一时刻只允许一个线程清理缓存
+  private final ReentrantLock evictionLock = new ReentrantLock();
+
+  // 缓存上限
+  private volatile int size = 1024;
+
+  // 记录淘汰的缓存项个数
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
+
+  public ConcurrentCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return cache.size();
+  }
+
+  public void setSize(int size) {
+    if (size <= 0) {
+      throw new CacheException("Cache size must be greater than zero but was " + size + ".");
+    }
+    this.size = size;
+  }
+
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (value == null) {
+      // a null value is only put to release locks, there is nothing to keep
+      cache.remove(key);
+      return;
+    }
+    cache.put(key, new Entry(value, clock.incrementAndGet()));
+    if (cache.size() > size) {
+      evict();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Entry entry = cache.get(key);
+    if (entry == null) {
+      return null;
+    }
+    long now = clock.get();
+    if (entry.lastAccess != now) {
+      entry.lastAccess = now;
+    }
+    return entry.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Entry entry = cache.remove(key);
+    return entry == null ? null : entry.value;
+  }
+
+  /**
+   * Removes an entry only if it still holds the given value, so that a value put by another thread in the meantime
+   * is kept.
+   *
+   * @param key the key of the entry
+   * @param value the value that must still be held, compared by identity
+   * @return <code>true</code> if the entry was removed
+   * @since 3.5.3
+   */
+  public boolean removeObject(Object key, Object value) {
+    Entry entry = cache.get(key);
+    return entry != null && entry.value == value && cache.remove(key, entry);
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+  }
+
+  private void evict() {
+    if (!evictionLock.tryLock()) {
+      // another thread is already trimming the cache
+      return;
+    }
+    try {
+      int limit = size;
+      if (cache.size() <= limit) {
+        return;
+      }
+      // readers keep stamping entries, so sort on a snapshot of the stamps
+      List<Candidate> candidates = new ArrayList<>(cache.size());
+      for (Map.Entry<Object, Entry> e : cache.entrySet()) {
+        candidates.add(new Candidate(e.getKey(), e.getValue()));
+      }
+      int excess = candidates.size() - (limit - limit / 8);
+      if (excess <= 0) {
+        return;
+      }
+      candidates.sort(Comparator.comparingLong(c -> c.lastAccess));
+      for (int i = 0; i < excess; i++) {
+        Candidate eldest = candidates.get(i);
+        // do not remove a value that has been replaced in the meantime
+        if (cache.remove(eldest.key, eldest.entry)) {
+          statsCounter.recordEviction();
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static final class Entry {
+
+    private final Object value;
+
+    private volatile long lastAccess;
+
+    private Entry(Object value, long lastAccess) {
+      this.value = value;
+      this.lastAccess = lastAccess;
+    }
+  }
+
+  private static final class Candidate {
+
+    private final Object key;
+
+    private final Entry entry;
+
+    private final long lastAccess;
+
+    private Candidate(Object key, Entry entry) {
+      this.key = key;
+      this.entry = entry;
+      this.lastAccess = entry.lastAccess;
+    }
+  }
+
+}
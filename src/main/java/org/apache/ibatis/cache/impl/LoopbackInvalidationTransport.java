@@ -0,0 +1,52 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.ibatis.cache.CacheInvalidationEvent;
+import org.apache.ibatis.cache.CacheInvalidationListener;
+import org.apache.ibatis.cache.CacheInvalidationTransport;
+
+/**
+ * Delivers the invalidations to the listeners of the same JVM, in the publishing thread.
+ * <p>
+ * It is meant for tests, and for applications that build several configurations of the same mappers in one JVM.
+ */
+public class LoopbackInvalidationTransport implements CacheInvalidationTransport {
+
+  private final List<CacheInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(CacheInvalidationEvent event) {
+    for (CacheInvalidationListener listener : listeners) {
+      listener.onInvalidation(event);
+    }
+  }
+
+  @Override
+  public void subscribe(CacheInvalidationListener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void unsubscribe(CacheInvalidationListener listener) {
+    // caches are equal when they have the same id, so compare the instances
+    listeners.removeIf(subscribed -> subscribed == listener);
+  }
+
+}
@@ -0,0 +1,343 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.CacheStatsCounter;
+
+/**
+ * Cache implementation that keeps serialized values outside of the Java heap.
+ * <p>
+ * Values are serialized into direct {@link ByteBuffer} slabs of {@code slabSize} bytes, at most
+ * {@code maxBytes} bytes in total. Slabs are filled one after the other. When all of them are full, the slab written
+ * the longest time ago is reused and every entry it holds is evicted. Only the keys are kept on the heap.
+ * <p>
+ * As values are deserialized on every read, callers always get a copy, just like a read-write cache.
+ * Values that do not fit in one slab are not cached. Values are serialized with the {@link CacheSerializer}
+ * of the cache, which defaults to the Java serialization.
+ * <pre>
+ * &lt;cache type="org.apache.ibatis.cache.impl.OffHeapCache"&gt;
+ *   &lt;property name="maxBytes" value="1073741824"/&gt;
+ *   &lt;property name="slabSize" value="8388608"/&gt;
+ * &lt;/cache&gt;
+ * </pre>
+ */
+public class OffHeapCache implements Cache, InitializingObject {
+
+  private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+  private static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+  // cache的id
+  private final String id;
+
+  // 读写锁，写入和淘汰slab时需要独占
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // key --> 缓存项在slab中的位置，只有key保存在堆内
+  private final Map<Object, Location> index = new HashMap<>();
+
+  // 堆外内存的总大小
+  private long maxBytes = DEFAULT_MAX_BYTES;
+
+  // 每个slab的大小
+  private int slabSize = DEFAULT_SLAB_SIZE;
+
+  // 序列化器
+  private CacheSerializer serializer = new JdkCacheSerializer();
+
+  // 记录淘汰的缓存项个数
+  private CacheStatsCounter statsCounter = new CacheStatsCounter();
+
+  private Slab[] slabs;
+
+  // 当前正在写入的slab
+  private int current;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public void initialize() {
+    lock.writeLock().lock();
+    try {
+      if (maxBytes <= 0 || slabSize <= 0) {
+        throw new CacheException("OffHeapCache requires a positive maxBytes and slabSize, but got "
+          + maxBytes + " and " + slabSize + ".");
+      }
+      if (maxBytes / slabSize < 2) {
+        // keep at least two slabs, so that evicting one does not empty the whole cache
+        slabSize = (int) Math.max(1, maxBytes / 2);
+      }
+      int slabCount = (int) Math.min(Integer.MAX_VALUE, maxBytes / slabSize);
+      slabs = new Slab[slabCount];
+      for (int i = 0; i < slabCount; i++) {
+        slabs[i] = new Slab();
+      }
+      index.clear();
+      current = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    lock.readLock().lock();
+    try {
+      return index.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public int getSlabSize() {
+    return slabSize;
+  }
+
+  public void setSlabSize(int slabSize) {
+    this.slabSize = slabSize;
+  }
+
+  public CacheSerializer getSerializer() {
+    return serializer;
+  }
+
+  public void setSerializer(CacheSerializer serializer) {
+    this.serializer = serializer;
+  }
+
+  public void setStatsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+    statsCounter.setMemoryEstimator(this::getUsedBytes);
+  }
+
+  /**
+   * @return the number of bytes written into the slabs, including the bytes of removed entries
+   */
+  public long getUsedBytes() {
+    lock.readLock().lock();
+    try {
+      long usedBytes = 0;
+      if (slabs != null) {
+        for (Slab slab : slabs) {
+          usedBytes += slab.position;
+        }
+      }
+      return usedBytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (value == null) {
+      // a null value is only put to release locks, there is nothing to keep
+      remove(key, false);
+      return;
+    }
+    byte[] bytes = serializer.serialize(value);
+    lock.writeLock().lock();
+    try {
+      if (slabs == null) {
+        initialize();
+      }
+      if (bytes.length > slabSize) {
+        index.remove(key);
+        return;
+      }
+      Slab slab = slabs[current];
+      if (slab.remaining(slabSize) < bytes.length) {
+        current = (current + 1) % slabs.length;
+        slab = slabs[current];
+        evict(slab);
+      }
+      index.put(key, slab.write(key, bytes, slabSize));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    byte[] bytes;
+    lock.readLock().lock();
+    try {
+      Location location = index.get(key);
+      if (location == null) {
+        return null;
+      }
+      bytes = location.slab.read(location.offset, location.length);
+    } finally {
+      lock.readLock().unlock();
+    }
+    return serializer.deserialize(bytes);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    byte[] bytes = remove(key, true);
+    return bytes == null ? null : serializer.deserialize(bytes);
+  }
+
+  private byte[] remove(Object key, boolean read) {
+    lock.writeLock().lock();
+    try {
+      // the bytes stay in their slab until the slab is reused
+      Location location = index.remove(key);
+      // 在锁内复制，释放锁后slab可能被重用
+      return location == null || !read ? null : location.slab.read(location.offset, location.length);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      index.clear();
+      if (slabs != null) {
+        for (Slab slab : slabs) {
+          slab.reset();
+        }
+      }
+      current = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void evict(Slab slab) {
+    for (Object key : slab.keys) {
+      Location location = index.get(key);
+      // the key may have been written again into another slab
+      if (location != null && location.slab == slab) {
+        index.remove(key);
+        statsCounter.recordEviction();
+      }
+    }
+    slab.reset();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static final class Slab {
+
+    // 第一次写入时才分配堆外内存
+    private ByteBuffer buffer;
+
+    // 写入该slab的key，淘汰slab时需要从index中删除
+    private final List<Object> keys = new ArrayList<>();
+
+    private int position;
+
+    private int remaining(int slabSize) {
+      return slabSize - position;
+    }
+
+    private Location write(Object key, byte[] bytes, int slabSize) {
+      if (buffer == null) {
+        buffer = ByteBuffer.allocateDirect(slabSize);
+      }
+      ByteBuffer target = buffer.duplicate();
+      // call Buffer#position(int) so that the code also links on Java 8
+      ((Buffer) target).position(position);
+      target.put(bytes);
+      Location location = new Location(this, position, bytes.length);
+      position += bytes.length;
+      keys.add(key);
+      return location;
+    }
+
+    private byte[] read(int offset, int length) {
+      byte[] bytes = new byte[length];
+      ByteBuffer source = buffer.duplicate();
+      ((Buffer) source).position(offset);
+      source.get(bytes);
+      return bytes;
+    }
+
+    private void reset() {
+      keys.clear();
+      position = 0;
+    }
+  }
+
+  private static final class Location {
+
+    private final Slab slab;
+
+    private final int offset;
+
+    private final int length;
+
+    private Location(Slab slab, int offset, int length) {
+      this.slab = slab;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+}
@@ -21,7 +21,7 @@ import java.io.Closeable;
  * Cursor contract to handle fetching items lazily using an Iterator.
  * Cursors are a perfect fit to handle millions of items queries that would not normally fits in memory.
  * If you use collections in resultMaps then cursor SQL queries must be ordered (resultOrdered="true")
- * using the id columns of the resultMap.
+ * using the id columns of the resultMap, or the streamingNestedResultsEnabled setting must be enabled.
  *
  * @author Guillaume Darmont / guillaume@dropinocean.com
  */
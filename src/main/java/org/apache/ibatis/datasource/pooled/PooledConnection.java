@@ -34,6 +34,8 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
   private static final String CLOSE = "close";
+  private static final String PREPARE_STATEMENT = "prepareStatement";
+  private static final String PREPARE_CALL = "prepareCall";
   private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
 
   private final int hashCode;
@@ -53,6 +55,8 @@ class PooledConnection implements InvocationHandler {
   private int connectionTypeCode;
   // 该PooledConnection对象是否有效，防止connection调用close了，放回连接池中，再使用该对象来操作数据库
   private boolean valid;
+  // realConnection的预编译statement缓存，放回连接池时传给新的PooledConnection，为null表示不缓存
+  private final PooledStatementCache statementCache;
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -61,6 +65,18 @@ class PooledConnection implements InvocationHandler {
    * @param dataSource - the dataSource that the connection is from
    */
   public PooledConnection(Connection connection, PooledDataSource dataSource) {
+    this(connection, dataSource, dataSource.newStatementCache(connection));
+  }
+
+  /**
+   * Constructor for a connection returned to the pool, that keeps the statements cached for the real connection.
+   *
+   * @param connection - the connection that is to be presented as a pooled connection
+   * @param dataSource - the dataSource that the connection is from
+   * @param statementCache - the statements of the connection, or null if they are not cached
+   */
+  PooledConnection(Connection connection, PooledDataSource dataSource, PooledStatementCache statementCache) {
+    this.statementCache = statementCache;
     this.hashCode = connection.hashCode();
     this.realConnection = connection;
     this.dataSource = dataSource;
@@ -104,6 +120,15 @@ class PooledConnection implements InvocationHandler {
     return proxyConnection;
   }
 
+  /**
+   * Getter for the statements cached for the real connection.
+   *
+   * @return The statement cache, or null if statements are not cached
+   */
+  PooledStatementCache getStatementCache() {
+    return statementCache;
+  }
+
   /**
    * Gets the hashcode of the real connection (or 0 if it is null).
    *
@@ -258,6 +283,10 @@ class PooledConnection implements InvocationHandler {
         // 就是判断valid字段
         checkConnection();
       }
+      if (statementCache != null && (PREPARE_STATEMENT.equals(methodName) || PREPARE_CALL.equals(methodName))) {
+        // 从realConnection的statement缓存中获取
+        return statementCache.prepare(method, args);
+      }
       // 其他方法用realConnection来执行， 比如commit、rollback
       return method.invoke(realConnection, args);
     } catch (Throwable t) {
@@ -23,6 +23,7 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -65,6 +66,8 @@ public class PooledDataSource implements DataSource {
   protected boolean poolPingEnabled;
   // 当连接超过poolPingConnectionsNotUsedFor未使用时，发送ping语句来检测数据库连接是否可用
   protected int poolPingConnectionsNotUsedFor;
+  // 每个连接缓存的空闲预编译statement的最大个数，0表示不缓存
+  protected int poolPreparedStatementCacheSize;
 
   // 连接类型hashcode，由数据库url，用户名、密码来计算得到，在构造函数中初始化
   private int expectedConnectionTypeCode;
@@ -260,6 +263,18 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * The maximum number of idle prepared statements kept open for each connection, so that the sessions borrowing it
+   * do not prepare the same statements again. Zero, the default, disables the cache.
+   *
+   * @param poolPreparedStatementCacheSize the number of statements
+   * @since 3.5.3
+   */
+  public void setPoolPreparedStatementCacheSize(int poolPreparedStatementCacheSize) {
+    this.poolPreparedStatementCacheSize = poolPreparedStatementCacheSize;
+    forceCloseAll();
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -332,7 +347,8 @@ public class PooledDataSource implements DataSource {
    */
   // 强制关闭所有的连接
   public void forceCloseAll() {
-    synchronized (state) {
+    state.lock.lock();
+    try {
       expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
       // 遍历每一个活跃的connection
       for (int i = state.activeConnections.size(); i > 0; i--) {
@@ -372,6 +388,8 @@ public class PooledDataSource implements DataSource {
           // ignore
         }
       }
+    } finally {
+      state.lock.unlock();
     }
     if (log.isDebugEnabled()) {
       log.debug("PooledDataSource forcefully closed/removed all connections.");
@@ -382,6 +400,11 @@ public class PooledDataSource implements DataSource {
     return state;
   }
 
+  PooledStatementCache newStatementCache(Connection connection) {
+    return poolPreparedStatementCacheSize > 0
+        ? new PooledStatementCache(connection, poolPreparedStatementCacheSize, state) : null;
+  }
+
   private int assembleConnectionTypeCode(String url, String username, String password) {
     return ("" + url + username + password).hashCode();
   }
@@ -389,7 +412,8 @@ public class PooledDataSource implements DataSource {
   // 当connection调用close()方法时，这个方法将会被调用
   protected void pushConnection(PooledConnection conn) throws SQLException {
 
-    synchronized (state) {
+    state.lock.lock();
+    try {
       // 从活跃连接数中移除connection
       state.activeConnections.remove(conn);
       if (conn.isValid()) {
@@ -403,7 +427,7 @@ public class PooledDataSource implements DataSource {
             conn.getRealConnection().rollback();
           }
           // 根据realConnection来创建新的PooledConnection
-          PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+          PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this, conn.getStatementCache());
           // 加入到空闲连接集合中
           state.idleConnections.add(newConn);
           // 设置created时间
@@ -415,8 +439,8 @@ public class PooledDataSource implements DataSource {
           if (log.isDebugEnabled()) {
             log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
           }
-          // notifyAll，唤醒getConnection中等待的线程
-          state.notifyAll();
+          // 唤醒getConnection中等待的线程
+          state.connectionReturned.signalAll();
         } else {
           // 空闲连接数已经达到最大
           // 累计checkOut时间
@@ -440,6 +464,8 @@ public class PooledDataSource implements DataSource {
         // 连接是无效的，则无效连接数+1
         state.badConnectionCount++;
       }
+    } finally {
+      state.lock.unlock();
     }
   }
 
@@ -451,7 +477,8 @@ public class PooledDataSource implements DataSource {
 
     // 是否为空连接
     while (conn == null) {
-      synchronized (state) {
+      state.lock.lock();
+      try {
         if (!state.idleConnections.isEmpty()) {
           // 空闲连接数不为空，则从空闲连接中取出一个connection
           // Pool has available connection
@@ -505,7 +532,8 @@ public class PooledDataSource implements DataSource {
                 }
               }
               // 创建新的connection
-              conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+              conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this,
+                  oldestActiveConnection.getStatementCache());
               //设置创建的时间戳
               conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
               // 设置最后使用的时间戳
@@ -528,8 +556,12 @@ public class PooledDataSource implements DataSource {
                   log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
                 }
                 long wt = System.currentTimeMillis();
-                // wait等待
-                state.wait(poolTimeToWait);
+                // 等待连接归还，await不会占住虚拟线程的载体线程
+                if (poolTimeToWait > 0) {
+                  state.connectionReturned.await(poolTimeToWait, TimeUnit.MILLISECONDS);
+                } else {
+                  state.connectionReturned.await();
+                }
                 // 累计等待时间
                 state.accumulatedWaitTime += System.currentTimeMillis() - wt;
               } catch (InterruptedException e) {
@@ -577,6 +609,8 @@ public class PooledDataSource implements DataSource {
             }
           }
         }
+      } finally {
+        state.lock.unlock();
       }
 
     }
@@ -0,0 +1,161 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * Proxy of a statement of a {@link PooledStatementCache}, that returns the statement to the cache when it is closed.
+ * <p>
+ * The settings changed by the user, such as the fetch size or the query timeout, are restored before the statement
+ * is returned.
+ */
+class PooledStatement implements InvocationHandler {
+
+  private static final String CLOSE = "close";
+
+  // 可以恢复原值的设置
+  private static final Set<String> RESTORABLE_SETTERS = new HashSet<>(Arrays.asList(
+      "setFetchSize", "setFetchDirection", "setQueryTimeout", "setMaxRows", "setLargeMaxRows", "setMaxFieldSize"));
+
+  // 无法恢复原值的方法，调用后statement不再放回缓存
+  private static final Set<String> UNCACHEABLE_METHODS = new HashSet<>(Arrays.asList(
+      "closeOnCompletion", "setCursorName", "setEscapeProcessing", "setPoolable"));
+
+  // 真正的statement对象
+  private final PreparedStatement realStatement;
+  // statement在缓存中的key
+  private final CacheKey key;
+  private final PooledStatementCache statementCache;
+  // 被修改的设置 --> 原值
+  private final Map<Method, Object> originalSettings = new LinkedHashMap<>();
+  // 最近一次返回给调用者的结果集
+  private ResultSet resultSet;
+  // 出错或者调用了无法恢复的方法
+  private boolean cacheable = true;
+  private boolean closed;
+
+  PooledStatement(PreparedStatement realStatement, CacheKey key, PooledStatementCache statementCache) {
+    this.realStatement = realStatement;
+    this.key = key;
+    this.statementCache = statementCache;
+  }
+
+  Object getProxyStatement(Class<?> statementType) {
+    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] { statementType }, this);
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    String methodName = method.getName();
+    if (Object.class.equals(method.getDeclaringClass())) {
+      if ("equals".equals(methodName)) {
+        return proxy == args[0];
+      } else if ("hashCode".equals(methodName)) {
+        return System.identityHashCode(proxy);
+      }
+      return method.invoke(realStatement, args);
+    }
+    if (CLOSE.hashCode() == methodName.hashCode() && CLOSE.equals(methodName)) {
+      close();
+      return null;
+    }
+    if ("isClosed".equals(methodName)) {
+      return closed || realStatement.isClosed();
+    }
+    if (closed) {
+      throw new SQLException("Error accessing PooledStatement. Statement is closed.");
+    }
+    try {
+      if (RESTORABLE_SETTERS.contains(methodName)) {
+        saveOriginalSetting(method);
+      } else if (UNCACHEABLE_METHODS.contains(methodName)) {
+        cacheable = false;
+      }
+      Object result = method.invoke(realStatement, args);
+      if (result instanceof ResultSet) {
+        resultSet = (ResultSet) result;
+      }
+      return result;
+    } catch (Throwable t) {
+      Throwable cause = ExceptionUtil.unwrapThrowable(t);
+      if (cause instanceof SQLException) {
+        // 出错的statement可能处于未知状态，关闭时不再放回缓存
+        cacheable = false;
+      }
+      throw cause;
+    }
+  }
+
+  private void saveOriginalSetting(Method setter) throws Exception {
+    if (!originalSettings.containsKey(setter)) {
+      Method getter = Statement.class.getMethod("g" + setter.getName().substring(1));
+      originalSettings.put(setter, getter.invoke(realStatement));
+    }
+  }
+
+  private void close() throws SQLException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (cacheable && reset()) {
+      statementCache.release(key, realStatement);
+    } else {
+      realStatement.close();
+    }
+  }
+
+  private boolean reset() {
+    try {
+      // 未关闭的结果集会占用服务端游标，在放回缓存之前关闭
+      // some drivers only return the result set of executeQuery() once, so also close the one returned to the caller
+      closeResultSet(realStatement.getResultSet());
+      closeResultSet(resultSet);
+      resultSet = null;
+      realStatement.clearParameters();
+      realStatement.clearBatch();
+      realStatement.clearWarnings();
+      for (Map.Entry<Method, Object> setting : originalSettings.entrySet()) {
+        setting.getKey().invoke(realStatement, setting.getValue());
+      }
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  private static void closeResultSet(ResultSet resultSet) throws SQLException {
+    if (resultSet != null) {
+      resultSet.close();
+    }
+  }
+
+}
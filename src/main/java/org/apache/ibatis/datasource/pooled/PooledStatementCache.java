@@ -0,0 +1,158 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * Prepared statements of one physical connection, kept open between the sessions that borrow it.
+ * <p>
+ * Statements are looked up by the arguments of {@link Connection#prepareStatement} or {@link Connection#prepareCall}.
+ * Closing a statement returns it to the cache, which keeps at most {@code size} idle statements and closes the
+ * least recently used ones. A statement that threw an {@link SQLException} or was asked to close on completion is
+ * closed instead of being returned.
+ */
+class PooledStatementCache {
+
+  private static final Log log = LogFactory.getLog(PooledStatementCache.class);
+
+  // 真正的connection对象
+  private final Connection realConnection;
+  // 用于记录命中、未命中和淘汰的次数
+  private final PoolState state;
+  // 空闲的statement，按访问顺序排列，超过size时关闭最久未使用的statement
+  private final Map<CacheKey, PreparedStatement> idleStatements;
+  // 保护idleStatements，淘汰时关闭statement不会占住虚拟线程的载体线程
+  private final Lock lock = new ReentrantLock();
+
+  PooledStatementCache(Connection realConnection, final int size, PoolState state) {
+    this.realConnection = realConnection;
+    this.state = state;
+    this.idleStatements = new LinkedHashMap<CacheKey, PreparedStatement>(16, .75F, true) {
+      private static final long serialVersionUID = 5416404305236400935L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<CacheKey, PreparedStatement> eldest) {
+        boolean tooBig = size() > size;
+        if (tooBig) {
+          close(eldest.getValue());
+          PooledStatementCache.this.state.lock.lock();
+          try {
+            PooledStatementCache.this.state.statementCacheEvictionCount++;
+          } finally {
+            PooledStatementCache.this.state.lock.unlock();
+          }
+        }
+        return tooBig;
+      }
+    };
+  }
+
+  /**
+   * Returns a cached statement, or prepares a new one with the real connection.
+   *
+   * @param method the prepareStatement or prepareCall method
+   * @param args the arguments of the method
+   * @return a proxy of the statement that returns it to the cache when closed
+   */
+  Object prepare(Method method, Object[] args) throws Throwable {
+    CacheKey key = new CacheKey();
+    key.update(method.getName());
+    for (Object arg : args) {
+      key.update(arg);
+    }
+    PreparedStatement statement;
+    lock.lock();
+    try {
+      statement = idleStatements.remove(key);
+    } finally {
+      lock.unlock();
+    }
+    if (statement != null && !statement.isClosed()) {
+      state.lock.lock();
+      try {
+        state.statementCacheHitCount++;
+      } finally {
+        state.lock.unlock();
+      }
+    } else {
+      try {
+        statement = (PreparedStatement) method.invoke(realConnection, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+      state.lock.lock();
+      try {
+        state.statementCacheMissCount++;
+      } finally {
+        state.lock.unlock();
+      }
+    }
+    return new PooledStatement(statement, key, this).getProxyStatement(method.getReturnType());
+  }
+
+  /**
+   * Returns a statement that was closed by its user.
+   */
+  void release(CacheKey key, PreparedStatement statement) {
+    PreparedStatement replaced;
+    lock.lock();
+    try {
+      // 同一语句同时打开了多个statement时，只保留一个
+      replaced = idleStatements.containsKey(key) ? statement : null;
+      if (replaced == null) {
+        idleStatements.put(key, statement);
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (replaced != null) {
+      close(replaced);
+    }
+  }
+
+  int getSize() {
+    lock.lock();
+    try {
+      return idleStatements.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void close(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      if (log.isDebugEnabled()) {
+        log.debug("Error closing cached statement: " + e.getMessage());
+      }
+    }
+  }
+
+}
@@ -18,14 +18,23 @@ package org.apache.ibatis.executor;
 import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -37,6 +46,7 @@ import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.ResultHandler;
@@ -53,6 +63,9 @@ public abstract class BaseExecutor implements Executor {
 
   private static final Log log = LogFactory.getLog(BaseExecutor.class);
 
+  // 没有设置batchSize时，批量写入每批执行的参数个数
+  private static final int DEFAULT_BULK_CHUNK_SIZE = 1000;
+
   // 事务对象，实现事务的提交、回滚、关闭
   protected Transaction transaction;
 
@@ -122,6 +135,16 @@ public abstract class BaseExecutor implements Executor {
     return doUpdate(ms, parameter);
   }
 
+  @Override
+  public int updateAll(MappedStatement ms, Iterable<?> parameters) throws SQLException {
+    ErrorContext.instance().resource(ms.getResource()).activity("executing a bulk update").object(ms.getId());
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    clearLocalCache();
+    return doUpdateAll(ms, parameters);
+  }
+
   @Override
   // 用于批量查询
   public List<BatchResult> flushStatements() throws SQLException {
@@ -175,18 +198,100 @@ public abstract class BaseExecutor implements Executor {
       queryStack--;
     }
     if (queryStack == 0) {
-      // 当外层查询结束了，所有的嵌套查询也已经完成，这个时候就可以触发DeferredLoad加载一级缓存中嵌套查询的结果对象
-      for (DeferredLoad deferredLoad : deferredLoads) {
-        deferredLoad.load();
+      finishOutermostQuery();
+    }
+    return list;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<List<Object>> queryMany(List<MappedStatement> mappedStatements, List<Object> parameters) throws SQLException {
+    ErrorContext.instance().activity("executing several queries");
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    List<List<Object>> results = new ArrayList<>(Collections.nCopies(mappedStatements.size(), null));
+    // 可以合并到一次执行中的查询
+    List<Integer> pipelined = new ArrayList<>();
+    List<BoundSql> boundSqls = new ArrayList<>();
+    List<CacheKey> keys = new ArrayList<>();
+    try {
+      queryStack++;
+      for (int i = 0; i < mappedStatements.size(); i++) {
+        MappedStatement ms = mappedStatements.get(i);
+        Object parameter = parameters.get(i);
+        if (queryStack == 1 && ms.isFlushCacheRequired()) {
+          clearLocalCache();
+        }
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        CacheKey key = createCacheKey(ms, parameter, RowBounds.DEFAULT, boundSql);
+        List<Object> list = (List<Object>) localCache.getObject(key);
+        if (list != null) {
+          handleLocallyCachedOutputParameters(ms, key, parameter, boundSql);
+          results.set(i, list);
+        } else if (configuration.isMultiStatementSelectsEnabled() && isPipelinable(ms)) {
+          pipelined.add(i);
+          boundSqls.add(boundSql);
+          keys.add(key);
+        } else {
+          results.set(i, queryFromDatabase(ms, parameter, RowBounds.DEFAULT, NO_RESULT_HANDLER, key, boundSql));
+        }
       }
-      // issue #601
-      deferredLoads.clear();
-      if (configuration.getLocalCacheScope() == LocalCacheScope.STATEMENT) {
-        // issue #482
-        clearLocalCache();
+      if (pipelined.size() == 1) {
+        int i = pipelined.get(0);
+        results.set(i, queryFromDatabase(mappedStatements.get(i), parameters.get(i), RowBounds.DEFAULT, NO_RESULT_HANDLER, keys.get(0), boundSqls.get(0)));
+      } else if (!pipelined.isEmpty()) {
+        List<MappedStatement> pipelinedStatements = new ArrayList<>();
+        List<Object> pipelinedParameters = new ArrayList<>();
+        for (int i : pipelined) {
+          pipelinedStatements.add(mappedStatements.get(i));
+          pipelinedParameters.add(parameters.get(i));
+        }
+        for (CacheKey key : keys) {
+          localCache.putObject(key, EXECUTION_PLACEHOLDER);
+        }
+        List<List<Object>> lists;
+        try {
+          lists = doQueryMany(pipelinedStatements, pipelinedParameters, boundSqls);
+        } finally {
+          for (CacheKey key : keys) {
+            localCache.removeObject(key);
+          }
+        }
+        for (int j = 0; j < pipelined.size(); j++) {
+          localCache.putObject(keys.get(j), lists.get(j));
+          results.set(pipelined.get(j), lists.get(j));
+        }
       }
+    } finally {
+      queryStack--;
+    }
+    if (queryStack == 0) {
+      finishOutermostQuery();
+    }
+    return results;
+  }
+
+  private void finishOutermostQuery() {
+    // 当外层查询结束了，所有的嵌套查询也已经完成，这个时候就可以触发DeferredLoad加载一级缓存中嵌套查询的结果对象
+    for (DeferredLoad deferredLoad : deferredLoads) {
+      deferredLoad.load();
+    }
+    // issue #601
+    deferredLoads.clear();
+    if (configuration.getLocalCacheScope() == LocalCacheScope.STATEMENT) {
+      // issue #482
+      clearLocalCache();
     }
-    return list;
+  }
+
+  /**
+   * A select can share an execution with other selects when it is a prepared statement that
+   * reads a single result set.
+   */
+  private boolean isPipelinable(MappedStatement ms) {
+    return ms.getStatementType() == StatementType.PREPARED && ms.getResultSets() == null
+        && ms.getResultMaps().size() == 1;
   }
 
   @Override
@@ -214,12 +319,13 @@ public abstract class BaseExecutor implements Executor {
       throw new ExecutorException("Executor was closed.");
     }
     // 创建cacheKey，条件有id，offset，limit、sql，还有sql语句的参数映射value
-    CacheKey cacheKey = new CacheKey();
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    // id、offset、limit、sql、每个参数以及environment id，预先分配好容量
+    CacheKey cacheKey = new CacheKey(5 + parameterMappings.size());
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
     cacheKey.update(rowBounds.getLimit());
     cacheKey.update(boundSql.getSql());
-    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
     // mimic DefaultParameterHandler logic
     for (ParameterMapping parameterMapping : parameterMappings) {
@@ -299,6 +405,128 @@ public abstract class BaseExecutor implements Executor {
   protected abstract <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql)
       throws SQLException;
 
+  /**
+   * Runs several selects as one statement made of their SQL separated by semicolons, and maps the result sets it
+   * returns one after the other. Runs them one by one when the driver does not support multiple result sets, or when
+   * a plugin replaced the parameter handler.
+   *
+   * @since 3.5.3
+   */
+  protected List<List<Object>> doQueryMany(List<MappedStatement> mappedStatements, List<Object> parameters, List<BoundSql> boundSqls)
+      throws SQLException {
+    MappedStatement first = mappedStatements.get(0);
+    Connection connection = getConnection(first.getStatementLog());
+    List<ParameterHandler> parameterHandlers = new ArrayList<>();
+    boolean pipelinable = connection.getMetaData().supportsMultipleResultSets();
+    for (int i = 0; pipelinable && i < mappedStatements.size(); i++) {
+      ParameterHandler parameterHandler = configuration.newParameterHandler(mappedStatements.get(i), parameters.get(i), boundSqls.get(i));
+      parameterHandlers.add(parameterHandler);
+      pipelinable = parameterHandler instanceof DefaultParameterHandler;
+    }
+    List<List<Object>> results = new ArrayList<>();
+    if (!pipelinable) {
+      for (int i = 0; i < mappedStatements.size(); i++) {
+        results.add(doQuery(mappedStatements.get(i), parameters.get(i), RowBounds.DEFAULT, NO_RESULT_HANDLER, boundSqls.get(i)));
+      }
+      return results;
+    }
+    StringBuilder sql = new StringBuilder();
+    List<ParameterMapping> parameterMappings = new ArrayList<>();
+    for (BoundSql boundSql : boundSqls) {
+      if (sql.length() > 0) {
+        sql.append(";\n");
+      }
+      sql.append(boundSql.getSql());
+      parameterMappings.addAll(boundSql.getParameterMappings());
+    }
+    BoundSql combinedSql = new BoundSql(configuration, sql.toString(), parameterMappings, parameters.get(0));
+    StatementHandler handler = configuration.newStatementHandler(wrapper, first, parameters.get(0), RowBounds.DEFAULT, NO_RESULT_HANDLER, combinedSql);
+    Statement stmt = null;
+    try {
+      stmt = handler.prepare(connection, transaction.getTimeout());
+      PreparedStatement ps = (PreparedStatement) stmt;
+      int offset = 0;
+      for (int i = 0; i < parameterHandlers.size(); i++) {
+        ((DefaultParameterHandler) parameterHandlers.get(i)).setParameters(ps, offset);
+        offset += boundSqls.get(i).getParameterMappings().size();
+      }
+      ps.execute();
+      // 每个查询的ResultSetHandler处理完自己的结果集后，会移动到下一个结果集
+      for (int i = 0; i < mappedStatements.size(); i++) {
+        ResultSetHandler resultSetHandler = configuration.newResultSetHandler(wrapper, mappedStatements.get(i),
+            RowBounds.DEFAULT, parameterHandlers.get(i), NO_RESULT_HANDLER, boundSqls.get(i));
+        results.add(resultSetHandler.handleResultSets(ps));
+      }
+      return results;
+    } finally {
+      closeStatement(stmt);
+    }
+  }
+
+  /**
+   * Adds the parameters to the batch of a single statement, which is executed every {@code batchSize} parameters,
+   * so that only one batch of parameters is kept in memory. A new statement is prepared when the SQL changes.
+   *
+   * @since 3.5.3
+   */
+  protected int doUpdateAll(MappedStatement ms, Iterable<?> parameters) throws SQLException {
+    Integer batchSize = ms.getBatchSize() != null ? ms.getBatchSize() : configuration.getDefaultBatchSize();
+    int chunkSize = batchSize != null && batchSize > 0 ? batchSize : DEFAULT_BULK_CHUNK_SIZE;
+    // 当前批次的参数，执行后用于设置生成的主键
+    List<Object> chunk = new ArrayList<>(Math.min(chunkSize, DEFAULT_BULK_CHUNK_SIZE));
+    Statement stmt = null;
+    String currentSql = null;
+    int updated = 0;
+    try {
+      for (Object parameter : parameters) {
+        StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, RowBounds.DEFAULT, null, null);
+        String sql = handler.getBoundSql().getSql();
+        if (stmt == null || !sql.equals(currentSql)) {
+          if (stmt != null) {
+            updated += executeChunk(ms, stmt, chunk);
+            closeStatement(stmt);
+            stmt = null;
+          }
+          stmt = handler.prepare(getConnection(ms.getStatementLog()), transaction.getTimeout());
+          currentSql = sql;
+        }
+        handler.parameterize(stmt);
+        handler.batch(stmt);
+        chunk.add(parameter);
+        if (chunk.size() >= chunkSize) {
+          updated += executeChunk(ms, stmt, chunk);
+        }
+      }
+      if (stmt != null && !chunk.isEmpty()) {
+        updated += executeChunk(ms, stmt, chunk);
+      }
+      return updated;
+    } finally {
+      closeStatement(stmt);
+    }
+  }
+
+  private int executeChunk(MappedStatement ms, Statement stmt, List<Object> chunk) throws SQLException {
+    applyTransactionTimeout(stmt);
+    int updated = 0;
+    for (int count : stmt.executeBatch()) {
+      // drivers may only report that the statement succeeded
+      if (count > 0) {
+        updated += count;
+      }
+    }
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+      ((Jdbc3KeyGenerator) keyGenerator).processBatch(ms, stmt, chunk);
+    } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) {
+      for (Object parameter : chunk) {
+        keyGenerator.processAfter(this, ms, stmt, parameter);
+      }
+    }
+    chunk.clear();
+    return updated;
+  }
+
   protected void closeStatement(Statement statement) {
     if (statement != null) {
       try {
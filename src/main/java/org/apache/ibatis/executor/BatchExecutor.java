@@ -17,12 +17,17 @@ package org.apache.ibatis.executor;
 
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -30,10 +35,17 @@ import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.type.TypeHandlerRegistry;
 
 /**
  * @author Jeff Butler
@@ -41,6 +53,18 @@ import org.apache.ibatis.transaction.Transaction;
  * batch
  *
  * jdbc只支持update、insert、delete的批量操作
+ * <p>
+ * By default a new statement is prepared whenever the SQL changes. A reordering executor keeps one statement for
+ * each distinct statement and SQL until the batch is flushed, so that interleaved statements, such as the inserts
+ * of parents and children, are still batched. The statements are executed in the order they were first used.
+ * A statement is only moved before the statements used after it when all of them declare their tables, and none of
+ * them writes a table the other one writes or depends on, otherwise a new statement is prepared. The tables and the
+ * dependencies, such as the parent tables of foreign keys, are the ones declared by the mapped statements: the SQL
+ * does not tell which rows reference each other, so statements that do not declare their tables are never moved.
+ * <p>
+ * The pending batches are executed before they are flushed when a statement reaches its batchSize or the estimated
+ * size of the parameters reaches batchMaxBytes. Their results are passed to the {@link BatchResultHandler}, or kept
+ * until the statements are flushed when there is none.
  */
 public class BatchExecutor extends BaseExecutor {
 
@@ -54,9 +78,28 @@ public class BatchExecutor extends BaseExecutor {
   private String currentSql;
   // 当前的mappedStatement
   private MappedStatement currentStatement;
+  // 是否将交错执行的语句合并到之前的statement中
+  private final boolean reordering;
+  // mappedStatement和sql --> 可以继续添加参数的statement在statementList中的下标
+  private final Map<CacheKey, Integer> openStatements = new HashMap<>();
+  // 与statementList对应，每个statement声明的mappedStatement，用于判断能否交换顺序
+  private final List<MappedStatement> statementMappings = new ArrayList<>();
+  // 自动执行的批处理结果，没有batchResultHandler时在flushStatements()中返回
+  private final List<BatchResult> executedResultList = new ArrayList<>();
+  // 接收自动执行的批处理结果
+  private BatchResultHandler batchResultHandler;
+  // 尚未执行的参数的估算字节数
+  private long pendingBytes;
+  // 与statementList对应，合并为多行insert执行的语句，为null表示使用jdbc批处理
+  private final List<RewrittenInsert> rewrittenInserts = new ArrayList<>();
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
+    this(configuration, transaction, false);
+  }
+
+  public BatchExecutor(Configuration configuration, Transaction transaction, boolean reordering) {
     super(configuration, transaction);
+    this.reordering = reordering;
   }
 
   @Override
@@ -67,38 +110,286 @@ public class BatchExecutor extends BaseExecutor {
     final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
-    final Statement stmt;
-    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
+    // 合并的insert在执行时才设置参数，先读取参数的值：调用者可能复用同一个参数对象，
+    // 延迟加载的属性也可能触发查询并执行批处理（fix Issues 322）
+    final Object[] rowValues = isRewriteCandidate(handler, ms)
+        ? ((DefaultParameterHandler) handler.getParameterHandler()).getParameterValues() : null;
+    final int index;
+    if (reordering) {
+      index = batchReordered(handler, ms, sql, parameterObject);
+    } else if (sql.equals(currentSql) && ms.equals(currentStatement)) {
       // sql和mappedStatement一样，说明当前和上一个执行的语句是一样的，所以从statementList获取最后一个元素
-      int last = statementList.size() - 1;
-      stmt = statementList.get(last);
-      // 重新设置事务的超时时间
-      applyTransactionTimeout(stmt);
-      // 处理sql占位符
-      handler.parameterize(stmt);//fix Issues 322
-      BatchResult batchResult = batchResultList.get(last);
+      index = statementList.size() - 1;
+      Statement stmt = statementList.get(index);
+      if (stmt != null) {
+        // 重新设置事务的超时时间
+        applyTransactionTimeout(stmt);
+        // 处理sql占位符
+        handler.parameterize(stmt);//fix Issues 322
+      }
       // 添加到batchResult，使用同一个statement来批量执行
-      batchResult.addParameterObject(parameterObject);
+      batchResultList.get(index).addParameterObject(parameterObject);
     } else {
-      // 获取connection
-      Connection connection = getConnection(ms.getStatementLog());
-      // 创建新的statement
-      stmt = handler.prepare(connection, transaction.getTimeout());
-      // 处理sql占位符
-      handler.parameterize(stmt);    //fix Issues 322
+      // 创建新的statement，添加到statementList集合中
+      addStatement(handler, ms, sql, parameterObject);
       // 设置currentSql和currentStatement
       currentSql = sql;
       currentStatement = ms;
-      // 添加statement到statementList集合中，
-      statementList.add(stmt);
-      // 创建BatchResult对象，添加到batchResultList
-      batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      index = statementList.size() - 1;
+    }
+    final Statement stmt = statementList.get(index);
+    final BatchResult batchResult = batchResultList.get(index);
+    if (stmt == null) {
+      // 执行时再合并为多行insert
+      rewrittenInserts.get(index).add(boundSql, rowValues);
+    } else {
+      // 底层通过 ps.addBatch()
+      handler.batch(stmt);
+    }
+    if (isBatchFull(ms, boundSql, parameterObject, batchResult)) {
+      executePendingBatches();
     }
-    // 底层通过 ps.addBatch()
-    handler.batch(stmt);
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  @Override
+  public void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    this.batchResultHandler = batchResultHandler;
+  }
+
+  private boolean isBatchFull(MappedStatement ms, BoundSql boundSql, Object parameterObject, BatchResult batchResult) {
+    Integer batchSize = ms.getBatchSize() != null ? ms.getBatchSize() : configuration.getDefaultBatchSize();
+    Long batchMaxBytes = ms.getBatchMaxBytes() != null ? ms.getBatchMaxBytes() : configuration.getDefaultBatchMaxBytes();
+    boolean full = batchSize != null && batchResult.getParameterObjects().size() >= batchSize;
+    if (batchMaxBytes != null) {
+      pendingBytes += estimateBytes(boundSql, parameterObject);
+      full = full || pendingBytes >= batchMaxBytes;
+    }
+    return full;
+  }
+
+  private void executePendingBatches() throws SQLException {
+    List<BatchResult> results = executeBatches();
+    if (batchResultHandler == null) {
+      executedResultList.addAll(results);
+    } else {
+      for (BatchResult result : results) {
+        batchResultHandler.handleBatchResult(result);
+      }
+    }
+  }
+
+  private boolean isRewriteCandidate(StatementHandler handler, MappedStatement ms) {
+    if (!configuration.isRewriteBatchedInserts()
+        || ms.getStatementType() != StatementType.PREPARED
+        || ms.getSqlCommandType() != SqlCommandType.INSERT
+        || !(handler.getParameterHandler() instanceof DefaultParameterHandler)) {
+      return false;
+    }
+    // selectKey语句需要在每一行插入后执行
+    Class<?> keyGeneratorType = ms.getKeyGenerator().getClass();
+    if (!Jdbc3KeyGenerator.class.equals(keyGeneratorType) && !NoKeyGenerator.class.equals(keyGeneratorType)) {
+      return false;
+    }
+    for (ParameterMapping parameterMapping : handler.getBoundSql().getParameterMappings()) {
+      if (parameterMapping.getMode() != ParameterMode.IN) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private RewrittenInsert newRewrittenInsert(StatementHandler handler, MappedStatement ms, String sql) {
+    MultiRowInsert insert = isRewriteCandidate(handler, ms) ? MultiRowInsert.parse(sql) : null;
+    return insert == null ? null : new RewrittenInsert(insert);
+  }
+
+  private void executeRewrittenInsert(BatchResult batchResult, RewrittenInsert rewrittenInsert) throws SQLException {
+    MappedStatement ms = batchResult.getMappedStatement();
+    List<Object> parameterObjects = batchResult.getParameterObjects();
+    List<BoundSql> rows = rewrittenInsert.rows;
+    List<Object[]> values = rewrittenInsert.values;
+    Integer maxParameters = configuration.getRewriteBatchedInsertsMaxParameters();
+    Long maxBytes = configuration.getRewriteBatchedInsertsMaxBytes();
+    int[] updateCounts = new int[rows.size()];
+    int from = 0;
+    while (from < rows.size()) {
+      // 每条语句至少一行，参数个数和估算字节数不超过上限
+      int parameters = rows.get(from).getParameterMappings().size();
+      long bytes = maxBytes == null ? 0 : estimateBytes(values.get(from));
+      int to = from + 1;
+      while (to < rows.size()) {
+        int rowParameters = rows.get(to).getParameterMappings().size();
+        long rowBytes = maxBytes == null ? 0 : estimateBytes(values.get(to));
+        if (maxParameters != null && parameters + rowParameters > maxParameters
+            || maxBytes != null && bytes + rowBytes > maxBytes) {
+          break;
+        }
+        parameters += rowParameters;
+        bytes += rowBytes;
+        to++;
+      }
+      try {
+        executeRewrittenRows(ms, rewrittenInsert, parameterObjects, from, to, updateCounts);
+      } catch (SQLException e) {
+        throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(),
+            Arrays.copyOf(updateCounts, from), e);
+      }
+      from = to;
+    }
+    batchResult.setUpdateCounts(updateCounts);
+  }
+
+  private void executeRewrittenRows(MappedStatement ms, RewrittenInsert rewrittenInsert, List<Object> parameterObjects,
+      int from, int to, int[] updateCounts) throws SQLException {
+    List<BoundSql> rows = rewrittenInsert.rows;
+    MultiRowInsert insert = rewrittenInsert.insert;
+    List<ParameterMapping> parameterMappings = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      parameterMappings.addAll(rows.get(i).getParameterMappings());
+    }
+    BoundSql boundSql = new BoundSql(configuration, insert.sql(to - from), parameterMappings, parameterObjects.get(from));
+    StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObjects.get(from), RowBounds.DEFAULT, null, boundSql);
+    Statement stmt = null;
+    try {
+      stmt = handler.prepare(getConnection(ms.getStatementLog()), transaction.getTimeout());
+      PreparedStatement ps = (PreparedStatement) stmt;
+      int offset = 0;
+      for (int i = from; i < to; i++) {
+        new DefaultParameterHandler(ms, parameterObjects.get(i), rows.get(i))
+            .setParameters(ps, offset, rewrittenInsert.values.get(i));
+        offset += rows.get(i).getParameterMappings().size();
+      }
+      int updated = ps.executeUpdate();
+      // 驱动只返回总的更新条数，每行插入一条记录时才能对应到每个参数
+      Arrays.fill(updateCounts, from, to, updated == to - from ? 1 : Statement.SUCCESS_NO_INFO);
+      if (Jdbc3KeyGenerator.class.equals(ms.getKeyGenerator().getClass())) {
+        ((Jdbc3KeyGenerator) ms.getKeyGenerator()).processBatch(ms, ps, new ArrayList<>(parameterObjects.subList(from, to)));
+      }
+    } finally {
+      closeStatement(stmt);
+    }
+  }
+
+  private long estimateBytes(BoundSql boundSql, Object parameterObject) {
+    // 与DefaultParameterHandler相同的方式获取参数值
+    TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+    MetaObject metaObject = null;
+    long bytes = 0;
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      if (parameterMapping.getMode() == ParameterMode.OUT) {
+        continue;
+      }
+      String propertyName = parameterMapping.getProperty();
+      Object value;
+      if (boundSql.hasAdditionalParameter(propertyName)) {
+        value = boundSql.getAdditionalParameter(propertyName);
+      } else if (parameterObject == null) {
+        value = null;
+      } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+        value = parameterObject;
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameterObject);
+        }
+        value = metaObject.getValue(propertyName);
+      }
+      bytes += estimateBytes(value);
+    }
+    return bytes;
+  }
+
+  private static long estimateBytes(Object[] values) {
+    long bytes = 0;
+    for (Object value : values) {
+      bytes += estimateBytes(value);
+    }
+    return bytes;
+  }
+
+  private static long estimateBytes(Object value) {
+    if (value instanceof CharSequence) {
+      return 2L * ((CharSequence) value).length();
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    } else if (value instanceof char[]) {
+      return 2L * ((char[]) value).length;
+    }
+    return 8;
+  }
+
+  private int batchReordered(StatementHandler handler, MappedStatement ms, String sql, Object parameterObject)
+      throws SQLException {
+    CacheKey key = new CacheKey();
+    key.update(ms.getId());
+    key.update(sql);
+    Integer index = openStatements.get(key);
+    if (index != null && canMoveBefore(index)) {
+      Statement stmt = statementList.get(index);
+      if (stmt != null) {
+        applyTransactionTimeout(stmt);
+        handler.parameterize(stmt);
+      }
+      batchResultList.get(index).addParameterObject(parameterObject);
+      return index;
+    }
+    openStatements.put(key, statementList.size());
+    addStatement(handler, ms, sql, parameterObject);
+    statementMappings.add(ms);
+    return statementList.size() - 1;
+  }
+
+  private void addStatement(StatementHandler handler, MappedStatement ms, String sql, Object parameterObject)
+      throws SQLException {
+    RewrittenInsert rewrittenInsert = newRewrittenInsert(handler, ms, sql);
+    // 合并为多行insert的语句在执行时才创建statement
+    Statement stmt = null;
+    if (rewrittenInsert == null) {
+      // 获取connection
+      Connection connection = getConnection(ms.getStatementLog());
+      stmt = handler.prepare(connection, transaction.getTimeout());
+      // 处理sql占位符，在添加到statementList之前（fix Issues 322）
+      handler.parameterize(stmt);
+    }
+    statementList.add(stmt);
+    batchResultList.add(new BatchResult(ms, sql, parameterObject));
+    rewrittenInserts.add(rewrittenInsert);
+  }
+
+  private boolean canMoveBefore(int index) {
+    MappedStatement ms = statementMappings.get(index);
+    for (int i = index + 1, n = statementList.size(); i < n; i++) {
+      if (!isIndependent(ms, statementMappings.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isIndependent(MappedStatement ms, MappedStatement other) {
+    // 没有声明表的语句不与其他语句交换顺序
+    if (ms.getTables() == null || other.getTables() == null) {
+      return false;
+    }
+    // 被依赖的表的写入可以提前到依赖它的语句之前，反之则不行
+    return Collections.disjoint(ms.getTables(), other.getTables())
+        && (ms.getDependsOn() == null || Collections.disjoint(ms.getDependsOn(), other.getTables()));
+  }
+
+  @Override
+  protected int doUpdateAll(MappedStatement ms, Iterable<?> parameters) throws SQLException {
+    // 先执行之前的批处理，保持语句的执行顺序
+    executePendingBatches();
+    return super.doUpdateAll(ms, parameters);
+  }
+
+  @Override
+  protected List<List<Object>> doQueryMany(List<MappedStatement> mappedStatements, List<Object> parameters, List<BoundSql> boundSqls)
+      throws SQLException {
+    flushStatements();
+    return super.doQueryMany(mappedStatements, parameters, boundSqls);
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
@@ -130,20 +421,38 @@ public class BatchExecutor extends BaseExecutor {
 
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
+    if (isRollback) {
+      // 如果标记为rollback，关闭statement并返回空集合
+      executedResultList.clear();
+      closeStatements();
+      return Collections.emptyList();
+    }
+    if (executedResultList.isEmpty()) {
+      return executeBatches();
+    }
+    List<BatchResult> results = new ArrayList<>(executedResultList);
+    executedResultList.clear();
+    results.addAll(executeBatches());
+    return results;
+  }
+
+  private List<BatchResult> executeBatches() throws SQLException {
     try {
       List<BatchResult> results = new ArrayList<>();
-      if (isRollback) {
-        // 如果标记为rollback，直接返回空集合
-        return Collections.emptyList();
-      }
       // 遍历statementList
       for (int i = 0, n = statementList.size(); i < n; i++) {
         Statement stmt = statementList.get(i);
-        // 设置事务timeout
-        applyTransactionTimeout(stmt);
         // 获取batchResult
         BatchResult batchResult = batchResultList.get(i);
         try {
+          RewrittenInsert rewrittenInsert = rewrittenInserts.get(i);
+          if (rewrittenInsert != null) {
+            executeRewrittenInsert(batchResult, rewrittenInsert);
+            results.add(batchResult);
+            continue;
+          }
+          // 设置事务timeout
+          applyTransactionTimeout(stmt);
           // stmt.executeBatch() --> 批量执行sql， 设置更新的条数
           batchResult.setUpdateCounts(stmt.executeBatch());
           MappedStatement ms = batchResult.getMappedStatement();
@@ -178,13 +487,40 @@ public class BatchExecutor extends BaseExecutor {
       }
       return results;
     } finally {
-      for (Statement stmt : statementList) {
-        closeStatement(stmt);
-      }
-      currentSql = null;
-      statementList.clear();
-      batchResultList.clear();
+      closeStatements();
+    }
+  }
+
+  private static class RewrittenInsert {
+
+    private final MultiRowInsert insert;
+
+    // 每个参数的BoundSql，与BatchResult中的参数对应
+    private final List<BoundSql> rows = new ArrayList<>();
+    // 每个参数在添加到批处理时读取的值
+    private final List<Object[]> values = new ArrayList<>();
+
+    private RewrittenInsert(MultiRowInsert insert) {
+      this.insert = insert;
+    }
+
+    private void add(BoundSql row, Object[] rowValues) {
+      rows.add(row);
+      values.add(rowValues);
+    }
+  }
+
+  private void closeStatements() {
+    for (Statement stmt : statementList) {
+      closeStatement(stmt);
     }
+    currentSql = null;
+    statementList.clear();
+    batchResultList.clear();
+    rewrittenInserts.clear();
+    openStatements.clear();
+    statementMappings.clear();
+    pendingBytes = 0;
   }
 
 }
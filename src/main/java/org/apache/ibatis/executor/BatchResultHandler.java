@@ -0,0 +1,31 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+/**
+ * Receives the results of the batches that a batch executor executes before the statements are flushed,
+ * because a statement reached its batchSize or the pending batches reached their batchMaxBytes.
+ * <p>
+ * Results passed to the handler are not returned by {@link Executor#flushStatements()}.
+ *
+ * @since 3.5.3
+ * @see org.apache.ibatis.session.SqlSession#setBatchResultHandler(BatchResultHandler)
+ */
+public interface BatchResultHandler {
+
+  void handleBatchResult(BatchResult batchResult);
+
+}
@@ -16,10 +16,14 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.CacheStatsCounter;
 import org.apache.ibatis.cache.TransactionalCacheManager;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
@@ -46,10 +50,15 @@ public class CachingExecutor implements Executor {
   // 装饰的executor对象
   private final Executor delegate;
   // 事务缓存管理器
-  private final TransactionalCacheManager tcm = new TransactionalCacheManager();
+  private final TransactionalCacheManager tcm;
 
   public CachingExecutor(Executor delegate) {
+    this(delegate, new TransactionalCacheManager());
+  }
+
+  public CachingExecutor(Executor delegate, TransactionalCacheManager tcm) {
     this.delegate = delegate;
+    this.tcm = tcm;
     delegate.setExecutorWrapper(this);
   }
 
@@ -79,10 +88,24 @@ public class CachingExecutor implements Executor {
 
   @Override
   public int update(MappedStatement ms, Object parameterObject) throws SQLException {
-    flushCacheIfRequired(ms);
+    flushCacheIfRequired(ms, parameterObject, null);
     return delegate.update(ms, parameterObject);
   }
 
+  @Override
+  public int updateAll(MappedStatement ms, Iterable<?> parameters) throws SQLException {
+    Cache cache = ms.getCache();
+    if (cache != null && ms.isFlushCacheRequired()) {
+      if (isInvalidatedByTable(ms, cache)) {
+        // 参数在执行时才读取，无法预先从sql中解析表名
+        tcm.invalidate(cache, ms.getTables());
+      } else {
+        tcm.clear(cache);
+      }
+    }
+    return delegate.updateAll(ms, parameters);
+  }
+
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameterObject);
@@ -91,9 +114,35 @@ public class CachingExecutor implements Executor {
     return query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
   }
 
+  @Override
+  public List<List<Object>> queryMany(List<MappedStatement> mappedStatements, List<Object> parameters) throws SQLException {
+    List<List<Object>> results = new ArrayList<>(Collections.nCopies(mappedStatements.size(), null));
+    // 使用二级缓存的查询单独执行，其余的交给delegate合并执行
+    List<Integer> uncached = new ArrayList<>();
+    List<MappedStatement> uncachedStatements = new ArrayList<>();
+    List<Object> uncachedParameters = new ArrayList<>();
+    for (int i = 0; i < mappedStatements.size(); i++) {
+      MappedStatement ms = mappedStatements.get(i);
+      if (ms.getCache() != null) {
+        results.set(i, query(ms, parameters.get(i), RowBounds.DEFAULT, NO_RESULT_HANDLER));
+      } else {
+        uncached.add(i);
+        uncachedStatements.add(ms);
+        uncachedParameters.add(parameters.get(i));
+      }
+    }
+    if (!uncached.isEmpty()) {
+      List<List<Object>> lists = delegate.queryMany(uncachedStatements, uncachedParameters);
+      for (int j = 0; j < uncached.size(); j++) {
+        results.set(uncached.get(j), lists.get(j));
+      }
+    }
+    return results;
+  }
+
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
-    flushCacheIfRequired(ms);
+    flushCacheIfRequired(ms, parameter, null);
     return delegate.queryCursor(ms, parameter, rowBounds);
   }
 
@@ -104,7 +153,7 @@ public class CachingExecutor implements Executor {
     Cache cache = ms.getCache();
     if (cache != null) {
       // 根据<select>节点配置，是否决定清空缓存
-      flushCacheIfRequired(ms);
+      flushCacheIfRequired(ms, parameterObject, boundSql);
       if (ms.isUseCache() && resultHandler == null) {
         // mybatis二级缓存不支持存储过程的out类型参数
         ensureNoOutParams(ms, boundSql);
@@ -112,8 +161,20 @@ public class CachingExecutor implements Executor {
         //   从事务缓存管理器中获取缓存，如果没有，查询数据库后添加至缓存
         List<E> list = (List<E>) tcm.getObject(cache, key);
         if (list == null) {
-          list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
-          tcm.putObject(cache, key, list); // issue #578 and #116
+          long start = System.nanoTime();
+          try {
+            list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+            recordLoad(ms, cache, System.nanoTime() - start);
+          } catch (SQLException | RuntimeException e) {
+            // 查询失败，唤醒等待该key的其他session
+            tcm.removeObject(cache, key);
+            throw e;
+          }
+          if (isInvalidatedByTable(ms, cache)) {
+            tcm.putObject(cache, key, list, getTables(ms, parameterObject, boundSql));
+          } else {
+            tcm.putObject(cache, key, list); // issue #578 and #116
+          }
         }
         return list;
       }
@@ -178,13 +239,40 @@ public class CachingExecutor implements Executor {
     delegate.clearLocalCache();
   }
 
-  private void flushCacheIfRequired(MappedStatement ms) {
+  private void flushCacheIfRequired(MappedStatement ms, Object parameterObject, BoundSql boundSql) {
     Cache cache = ms.getCache();
     if (cache != null && ms.isFlushCacheRequired()) {
-      tcm.clear(cache);
+      if (isInvalidatedByTable(ms, cache)) {
+        // 只失效依赖于该语句所写的表的缓存项
+        tcm.invalidate(cache, getTables(ms, parameterObject, boundSql));
+      } else {
+        tcm.clear(cache);
+      }
     }
   }
 
+  private boolean isInvalidatedByTable(MappedStatement ms, Cache cache) {
+    // 多个节点共享的缓存只能整体清空
+    return tcm.isTableInvalidationEnabled() && !ms.getConfiguration().isSharedCache(cache.getId());
+  }
+
+  private void recordLoad(MappedStatement ms, Cache cache, long nanos) {
+    CacheStatsCounter statsCounter = ms.getConfiguration().getCacheStatsCounter(cache.getId());
+    if (statsCounter != null) {
+      statsCounter.recordLoad(nanos);
+    }
+  }
+
+  private Set<String> getTables(MappedStatement ms, Object parameterObject, BoundSql boundSql) {
+    // 无法解析出表名时为null，认为依赖所有的表
+    return ms.getTables(parameterObject, boundSql);
+  }
+
+  @Override
+  public void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    delegate.setBatchResultHandler(batchResultHandler);
+  }
+
   @Override
   public void setExecutorWrapper(Executor executor) {
     throw new UnsupportedOperationException("This method should not be called");
@@ -16,6 +16,7 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.ibatis.cache.CacheKey;
@@ -46,6 +47,39 @@ public interface Executor {
 
   <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException;
 
+  /**
+   * Runs several independent selects. Executors that support it run them in a single execution.
+   *
+   * @param mappedStatements the selects
+   * @param parameters the parameter of each select
+   * @return the result list of each select, in the same order
+   * @since 3.5.3
+   */
+  default List<List<Object>> queryMany(List<MappedStatement> mappedStatements, List<Object> parameters) throws SQLException {
+    List<List<Object>> results = new ArrayList<>(mappedStatements.size());
+    for (int i = 0; i < mappedStatements.size(); i++) {
+      results.add(query(mappedStatements.get(i), parameters.get(i), RowBounds.DEFAULT, NO_RESULT_HANDLER));
+    }
+    return results;
+  }
+
+  /**
+   * Runs an update once for each parameter, reading the parameters only when they are needed.
+   * Executors that support it add the parameters to JDBC batches executed every {@code batchSize} parameters.
+   *
+   * @param ms the update
+   * @param parameters the parameters, such as a {@link Cursor}
+   * @return the number of updated rows
+   * @since 3.5.3
+   */
+  default int updateAll(MappedStatement ms, Iterable<?> parameters) throws SQLException {
+    int updated = 0;
+    for (Object parameter : parameters) {
+      updated += update(ms, parameter);
+    }
+    return updated;
+  }
+
   List<BatchResult> flushStatements() throws SQLException;
 
   void commit(boolean required) throws SQLException;
@@ -68,4 +102,14 @@ public interface Executor {
 
   void setExecutorWrapper(Executor executor);
 
+  /**
+   * Sets the handler of the batches executed before the statements are flushed. Only batch executors use it.
+   *
+   * @param batchResultHandler the handler, or <code>null</code> to return the results when the statements are flushed
+   * @since 3.5.3
+   */
+  default void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    // statements are not batched
+  }
+
 }
@@ -0,0 +1,134 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+/**
+ * A single row insert whose rows can be sent together as one {@code INSERT ... VALUES (...), (...)} statement.
+ * Only inserts made of {@code INSERT INTO table [(columns)] VALUES (...)} and nothing after their row are rewritten.
+ *
+ * @since 3.5.3
+ */
+final class MultiRowInsert {
+
+  // VALUES和第一行之间的部分，例如 "insert into t (a, b) values "
+  private final String prefix;
+
+  // 一行的值，例如 "(?, ?)"
+  private final String row;
+
+  private MultiRowInsert(String prefix, String row) {
+    this.prefix = prefix;
+    this.row = row;
+  }
+
+  /**
+   * @param sql the SQL of the insert
+   * @return the insert, or <code>null</code> when the SQL is not a single row insert
+   */
+  static MultiRowInsert parse(String sql) {
+    // 在原SQL上忽略大小写匹配关键字，转换大小写可能改变字符串的长度
+    int start = skipWhitespace(sql, 0);
+    if (!startsWithKeyword(sql, start, "insert")) {
+      return null;
+    }
+    int depth = 0;
+    int i = start;
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        i = skipQuoted(sql, i);
+        if (i < 0) {
+          return null;
+        }
+        continue;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && startsWithKeyword(sql, i, "values") && isBoundary(sql, i - 1)
+          && isBoundary(sql, i + 6)) {
+        int rowStart = skipWhitespace(sql, i + 6);
+        int rowEnd = rowStart < sql.length() && sql.charAt(rowStart) == '(' ? skipRow(sql, rowStart) : -1;
+        if (rowEnd < 0 || skipWhitespace(sql, rowEnd) < sql.length()) {
+          // several rows, or clauses after the row such as ON DUPLICATE KEY UPDATE
+          return null;
+        }
+        return new MultiRowInsert(sql.substring(0, rowStart), sql.substring(rowStart, rowEnd));
+      } else if (depth == 0 && startsWithKeyword(sql, i, "select") && isBoundary(sql, i - 1)) {
+        return null;
+      }
+      i++;
+    }
+    return null;
+  }
+
+  /**
+   * @param rows the number of rows
+   * @return the SQL inserting the rows
+   */
+  String sql(int rows) {
+    StringBuilder sql = new StringBuilder(prefix.length() + rows * (row.length() + 2));
+    sql.append(prefix).append(row);
+    for (int i = 1; i < rows; i++) {
+      sql.append(", ").append(row);
+    }
+    return sql.toString();
+  }
+
+  private static int skipRow(String sql, int start) {
+    int depth = 0;
+    int i = start;
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        i = skipQuoted(sql, i);
+        if (i < 0) {
+          return -1;
+        }
+        continue;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        return i + 1;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  private static int skipQuoted(String sql, int start) {
+    char quote = sql.charAt(start);
+    int end = sql.indexOf(quote, start + 1);
+    return end < 0 ? -1 : end + 1;
+  }
+
+  private static int skipWhitespace(String sql, int start) {
+    int i = start;
+    while (i < sql.length() && (Character.isWhitespace(sql.charAt(i)) || sql.charAt(i) == ';')) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean startsWithKeyword(String sql, int index, String keyword) {
+    return sql.regionMatches(true, index, keyword, 0, keyword.length());
+  }
+
+  private static boolean isBoundary(String sql, int index) {
+    return index < 0 || index >= sql.length() || !Character.isLetterOrDigit(sql.charAt(index)) && sql.charAt(index) != '_';
+  }
+
+}
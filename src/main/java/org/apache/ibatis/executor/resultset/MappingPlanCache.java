@@ -0,0 +1,158 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Keeps, across queries, what the result set handler resolves from the columns of a result set: the index of each
+ * column, the type handlers, the mapped and unmapped columns of each result map and column prefix, and the automatic
+ * mappings.
+ * <p>
+ * Plans are keyed by statement id and by the names, classes and JDBC types of the columns. The metadata of each
+ * result set is still read, and a plan is only reused when it describes exactly the same columns, so a statement
+ * whose columns change (for instance a dynamic select list) gets one plan per set of columns.
+ * The cache is thread safe and keeps at most {@code size} plans, evicting the least recently used ones first.
+ *
+ * @since 3.5.3
+ */
+public class MappingPlanCache {
+
+  // key --> plan，使用有界的ConcurrentCache保存
+  private final ConcurrentCache plans = new ConcurrentCache(MappingPlanCache.class.getName());
+
+  public MappingPlanCache(int size) {
+    plans.setSize(size);
+  }
+
+  /**
+   * @return the number of plans currently kept
+   */
+  public int getSize() {
+    return plans.getSize();
+  }
+
+  public void clear() {
+    plans.clear();
+  }
+
+  Plan getPlan(String statementId, List<String> columnNames, List<String> classNames, List<JdbcType> jdbcTypes) {
+    PlanKey key = new PlanKey(statementId, columnNames, classNames, jdbcTypes);
+    Plan plan = (Plan) plans.getObject(key);
+    if (plan == null) {
+      // 两个线程同时未命中时各自创建，后写入的生效
+      plan = new Plan(columnNames, true);
+      plans.putObject(key.copy(), plan);
+    }
+    return plan;
+  }
+
+  /**
+   * What is resolved from the columns of a result set. A plan kept by the cache is shared by several threads.
+   */
+  static final class Plan {
+
+    // 是否由多个线程共享
+    private final boolean shared;
+    // 列名（大写） --> 列序号，同名的列取第一列，与按列名取值时一致
+    final Map<String, Integer> columnIndexes;
+    // 列前缀 --> 列名 --> 列序号
+    final Map<String, Map<String, Integer>> resolvedColumnIndexes;
+    // 列名 --> java类型 --> 类型处理器
+    final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlers;
+    // resultMap id和列前缀 --> 已经映射的列名
+    final Map<String, List<String>> mappedColumnNames;
+    // resultMap id和列前缀 --> 未映射的列名
+    final Map<String, List<String>> unmappedColumnNames;
+    // resultMap id和列前缀 --> 自动映射
+    final Map<String, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>> autoMappings;
+
+    Plan(List<String> columnNames, boolean shared) {
+      this.shared = shared;
+      this.columnIndexes = newMap();
+      this.resolvedColumnIndexes = newMap();
+      this.typeHandlers = newMap();
+      this.mappedColumnNames = newMap();
+      this.unmappedColumnNames = newMap();
+      this.autoMappings = newMap();
+      for (int i = 0; i < columnNames.size(); i++) {
+        final String columnName = columnNames.get(i);
+        if (columnName != null) {
+          columnIndexes.putIfAbsent(columnName.toUpperCase(Locale.ENGLISH), i + 1);
+        }
+      }
+    }
+
+    // 不共享的plan仍使用HashMap，允许null的key
+    <K, V> Map<K, V> newMap() {
+      return shared ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+  }
+
+  private static final class PlanKey {
+
+    private final String statementId;
+    private final List<String> columnNames;
+    private final List<String> classNames;
+    private final List<JdbcType> jdbcTypes;
+    private final int hashCode;
+
+    private PlanKey(String statementId, List<String> columnNames, List<String> classNames, List<JdbcType> jdbcTypes) {
+      this.statementId = statementId;
+      this.columnNames = columnNames;
+      this.classNames = classNames;
+      this.jdbcTypes = jdbcTypes;
+      this.hashCode = Objects.hash(statementId, columnNames, classNames, jdbcTypes);
+    }
+
+    // 查找时直接使用结果集的列，保存时复制一份
+    private PlanKey copy() {
+      return new PlanKey(statementId, new ArrayList<>(columnNames), new ArrayList<>(classNames), new ArrayList<>(jdbcTypes));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PlanKey)) {
+        return false;
+      }
+      PlanKey other = (PlanKey) o;
+      return hashCode == other.hashCode
+          && statementId.equals(other.statementId)
+          && columnNames.equals(other.columnNames)
+          && classNames.equals(other.classNames)
+          && jdbcTypes.equals(other.jdbcTypes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+}
@@ -49,14 +49,24 @@ public class ResultSetWrapper {
   private final List<String> classNames = new ArrayList<>();
   // 每一列的jdbcType
   private final List<JdbcType> jdbcTypes = new ArrayList<>();
-  // 类型处理器map， key为resultMap的Id
-  private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
-  // 已经映射的列名map， key为resultMap的id
-  private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
-  // 未映射的列名map， key为resultMap的id
-  private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+  // 根据列解析出的列序号、类型处理器、已映射和未映射的列名，开启mappingPlanCacheSize时由同样的列共享
+  private final MappingPlanCache.Plan plan;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
+    this(rs, configuration, null);
+  }
+
+  /**
+   * Wraps a result set of a statement. When the configuration has a {@link MappingPlanCache}, what is resolved from
+   * the columns is shared with the previous result sets of the same statement that had the same columns.
+   *
+   * @param rs the result set
+   * @param configuration the configuration
+   * @param statementId the id of the statement, or <code>null</code> not to share the resolved columns
+   * @throws SQLException if the metadata of the result set cannot be read
+   * @since 3.5.3
+   */
+  public ResultSetWrapper(ResultSet rs, Configuration configuration, String statementId) throws SQLException {
     super();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.resultSet = rs;
@@ -70,6 +80,12 @@ public class ResultSetWrapper {
       jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
       classNames.add(metaData.getColumnClassName(i));
     }
+    final MappingPlanCache mappingPlanCache = configuration.getMappingPlanCache();
+    if (mappingPlanCache != null && statementId != null) {
+      this.plan = mappingPlanCache.getPlan(statementId, columnNames, classNames, jdbcTypes);
+    } else {
+      this.plan = new MappingPlanCache.Plan(columnNames, false);
+    }
   }
 
   public ResultSet getResultSet() {
@@ -97,6 +113,40 @@ public class ResultSetWrapper {
     return null;
   }
 
+  /**
+   * Gets the 1-based index of a column, resolved once per result set.
+   *
+   * @param columnName the column name, as written in the result mapping
+   * @return the index of the column or -1 when the result set has no such column
+   * @since 3.5.3
+   */
+  public int getColumnIndex(String columnName) {
+    return getColumnIndex(columnName, null);
+  }
+
+  /**
+   * Gets the 1-based index of a column whose name is the given prefix followed by the given name.
+   * The prefix is only prepended when the index is not resolved yet, so mapping a row does not build any column name.
+   *
+   * @param columnName the column name without its prefix
+   * @param columnPrefix the column prefix, may be null
+   * @return the index of the column or -1 when the result set has no such column
+   * @since 3.5.3
+   */
+  public int getColumnIndex(String columnName, String columnPrefix) {
+    if (columnName == null) {
+      return -1;
+    }
+    final Map<String, Integer> indexes = plan.resolvedColumnIndexes.computeIfAbsent(columnPrefix == null ? "" : columnPrefix, k -> plan.newMap());
+    Integer index = indexes.get(columnName);
+    if (index == null) {
+      final String prefixedColumnName = columnPrefix == null || columnName.isEmpty() ? columnName : columnPrefix + columnName;
+      index = plan.columnIndexes.getOrDefault(prefixedColumnName.toUpperCase(Locale.ENGLISH), -1);
+      indexes.put(columnName, index);
+    }
+    return index;
+  }
+
   /**
    * Gets the type handler to use when reading the result set.
    * Tries to get from the TypeHandlerRegistry by searching for the property type.
@@ -108,10 +158,10 @@ public class ResultSetWrapper {
    */
   public TypeHandler<?> getTypeHandler(Class<?> propertyType, String columnName) {
     TypeHandler<?> handler = null;
-    Map<Class<?>, TypeHandler<?>> columnHandlers = typeHandlerMap.get(columnName);
+    Map<Class<?>, TypeHandler<?>> columnHandlers = plan.typeHandlers.get(columnName);
     if (columnHandlers == null) {
-      columnHandlers = new HashMap<>();
-      typeHandlerMap.put(columnName, columnHandlers);
+      columnHandlers = plan.newMap();
+      plan.typeHandlers.put(columnName, columnHandlers);
     } else {
       handler = columnHandlers.get(propertyType);
     }
@@ -169,29 +219,34 @@ public class ResultSetWrapper {
     }
 
     // 将ResultMap的Id和列前缀组成key，将ResultMap映射的列名及未映射的列名保存到Map中
-    mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), mappedColumnNames);
-    unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), unmappedColumnNames);
+    plan.mappedColumnNames.put(getMapKey(resultMap, columnPrefix), mappedColumnNames);
+    plan.unmappedColumnNames.put(getMapKey(resultMap, columnPrefix), unmappedColumnNames);
   }
 
   public List<String> getMappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+    List<String> mappedColumnNames = plan.mappedColumnNames.get(getMapKey(resultMap, columnPrefix));
     if (mappedColumnNames == null) {
       // 从mappedColumnNamesMap中没有找到mappedColumnNames,则加载MappedColumn
       loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-      mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+      mappedColumnNames = plan.mappedColumnNames.get(getMapKey(resultMap, columnPrefix));
     }
     return mappedColumnNames;
   }
 
   public List<String> getUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+    List<String> unMappedColumnNames = plan.unmappedColumnNames.get(getMapKey(resultMap, columnPrefix));
     if (unMappedColumnNames == null) {
       loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-      unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+      unMappedColumnNames = plan.unmappedColumnNames.get(getMapKey(resultMap, columnPrefix));
     }
     return unMappedColumnNames;
   }
 
+  // resultMap id和列前缀 --> 自动映射，由DefaultResultSetHandler创建
+  Map<String, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>> getAutoMappings() {
+    return plan.autoMappings;
+  }
+
   private String getMapKey(ResultMap resultMap, String columnPrefix) {
     return resultMap.getId() + ":" + columnPrefix;
   }
@@ -0,0 +1,133 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.apache.ibatis.reflection.ArrayUtil;
+
+/**
+ * Identifies the object a row maps to when mapping nested result maps.
+ * <p>
+ * A key holds the id of the result map, the column prefix and the values of the key columns, in the order the columns
+ * are read. As the key columns of a result map and column prefix are the same for every row of a result set, the
+ * column names are not kept. A key of a nested object also refers to the key of its parent instead of copying it.
+ *
+ * @since 3.5.3
+ */
+final class RowKey {
+
+  // 没有任何值的行，不会被缓存
+  static final RowKey NULL_ROW_KEY = new RowKey(null, null, 0);
+
+  private final String resultMapId;
+  private final String columnPrefix;
+  // 键列的值，没有读取的列为null
+  private Object[] values;
+  private int size;
+  // 是否读取到了值
+  private boolean found;
+  private RowKey parent;
+  private int hashCode;
+
+  RowKey(String resultMapId, String columnPrefix, int expectedSize) {
+    this.resultMapId = resultMapId;
+    this.columnPrefix = columnPrefix;
+    this.values = new Object[Math.max(expectedSize, 1)];
+    this.hashCode = 31 * Objects.hashCode(resultMapId) + Objects.hashCode(columnPrefix);
+  }
+
+  /**
+   * Adds the value of the next key column.
+   *
+   * @param value the value, may be <code>null</code>
+   * @param found whether the value identifies the row, a <code>null</code> value usually does not
+   */
+  void add(Object value, boolean found) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+    }
+    values[size++] = value;
+    hashCode = 31 * hashCode + (value == null ? 0 : ArrayUtil.hashCode(value));
+    this.found |= found;
+  }
+
+  /**
+   * @return this key, or {@link #NULL_ROW_KEY} if no value identifies the row
+   */
+  RowKey orNull() {
+    return found ? this : NULL_ROW_KEY;
+  }
+
+  /**
+   * Makes this key the key of a nested object of the given parent. The key is changed in place, as the key of a nested
+   * object is only used once combined.
+   *
+   * @param parentKey the key of the parent object
+   * @return this key, or {@link #NULL_ROW_KEY} if one of the keys is
+   */
+  RowKey combine(RowKey parentKey) {
+    if (this == NULL_ROW_KEY || parentKey == NULL_ROW_KEY) {
+      return NULL_ROW_KEY;
+    }
+    parent = parentKey;
+    hashCode = 31 * hashCode + parentKey.hashCode;
+    return this;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RowKey)) {
+      return false;
+    }
+    RowKey other = (RowKey) o;
+    if (hashCode != other.hashCode || size != other.size
+        || !Objects.equals(resultMapId, other.resultMapId) || !Objects.equals(columnPrefix, other.columnPrefix)) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (!ArrayUtil.equals(values[i], other.values[i])) {
+        return false;
+      }
+    }
+    return Objects.equals(parent, other.parent);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(String.valueOf(resultMapId));
+    if (columnPrefix != null) {
+      sb.append(':').append(columnPrefix);
+    }
+    for (int i = 0; i < size; i++) {
+      sb.append(':').append(ArrayUtil.toString(values[i]));
+    }
+    if (parent != null) {
+      sb.append(" < ").append(parent);
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,292 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.property.PropertyNamer;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Generates with Javassist a {@link RowMapper} for each result map and set of columns, which reads the columns by
+ * index and calls the constructor and the setters of the result type directly, instead of going through a
+ * {@link org.apache.ibatis.reflection.MetaObject} for each property of each row.
+ * <p>
+ * The generated mappers are kept for the life of the configuration. When a mapper cannot be generated, for instance
+ * because a property has no public setter, the result map keeps being mapped by reflection.
+ * <p>
+ * The generated classes are only unloaded with the class loader of the result type, so at most
+ * {@link #MAX_VARIANTS_PER_RESULT_MAP} sets of columns are compiled for each result map; the other sets of columns,
+ * for instance those of a dynamic select list, are mapped by reflection.
+ *
+ * @since 3.5.3
+ */
+public class RowMapperCompiler {
+
+  /**
+   * The maximum number of sets of columns a mapper is generated for, for each result map.
+   */
+  public static final int MAX_VARIANTS_PER_RESULT_MAP = 16;
+
+  private static final Log log = LogFactory.getLog(RowMapperCompiler.class);
+
+  // 无法生成mapper时缓存的占位对象
+  private static final RowMapper UNSUPPORTED = rs -> null;
+
+  private static final AtomicInteger counter = new AtomicInteger();
+
+  private final Configuration configuration;
+
+  // resultMap id和列 --> 生成的mapper
+  private final ConcurrentMap<String, RowMapper> rowMappers = new ConcurrentHashMap<>();
+
+  // resultMap id --> 已生成mapper的列组合个数
+  private final ConcurrentMap<String, AtomicInteger> variantCounts = new ConcurrentHashMap<>();
+
+  public RowMapperCompiler(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  /**
+   * Returns the mapper generated for a result map and set of columns, generating it the first time.
+   *
+   * @param resultMapId the id of the result map
+   * @param columns identifies the columns of the result set
+   * @param type the result type
+   * @param constructorArgs the columns passed to the constructor, empty to use the default constructor
+   * @param properties the columns set on the properties, in the order they are set
+   * @return the mapper, or <code>null</code> if it cannot be generated or the result map has too many sets of columns
+   */
+  public RowMapper getRowMapper(String resultMapId, String columns, Class<?> type, List<ColumnMapping> constructorArgs,
+      List<ColumnMapping> properties) {
+    String key = resultMapId + ":" + columns;
+    RowMapper rowMapper = rowMappers.get(key);
+    if (rowMapper == null) {
+      AtomicInteger variants = variantCounts.computeIfAbsent(resultMapId, id -> new AtomicInteger());
+      // 并发时可能略微超过上限，但生成的类的个数仍然有界
+      if (variants.get() >= MAX_VARIANTS_PER_RESULT_MAP) {
+        return null;
+      }
+      rowMapper = rowMappers.computeIfAbsent(key, k -> {
+        if (variants.incrementAndGet() == MAX_VARIANTS_PER_RESULT_MAP) {
+          log.warn("Result map " + resultMapId + " was used with " + MAX_VARIANTS_PER_RESULT_MAP
+              + " sets of columns, other sets of columns will be mapped by reflection");
+        }
+        return compile(type, constructorArgs, properties);
+      });
+    }
+    return rowMapper == UNSUPPORTED ? null : rowMapper;
+  }
+
+  private RowMapper compile(Class<?> type, List<ColumnMapping> constructorArgs, List<ColumnMapping> properties) {
+    try {
+      String source = source(type, constructorArgs, properties);
+      if (source == null) {
+        return UNSUPPORTED;
+      }
+      ClassPool pool = new ClassPool(true);
+      pool.insertClassPath(new ClassClassPath(RowMapper.class));
+      pool.insertClassPath(new ClassClassPath(type));
+      // 生成的类与结果类型在同一个包中
+      CtClass ctClass = pool.makeClass(type.getName() + "$$RowMapper$$" + counter.incrementAndGet());
+      ctClass.addInterface(pool.get(RowMapper.class.getName()));
+      ctClass.addField(CtField.make("private final " + TypeHandler.class.getName() + "[] h;", ctClass));
+      ctClass.addConstructor(CtNewConstructor.make(
+          "public " + ctClass.getSimpleName() + "(" + TypeHandler.class.getName() + "[] h) { this.h = h; }", ctClass));
+      ctClass.addMethod(CtNewMethod.make(source, ctClass));
+      Class<?> mapperClass = ctClass.toClass(type);
+      ctClass.detach();
+      TypeHandler<?>[] typeHandlers = new TypeHandler<?>[constructorArgs.size() + properties.size()];
+      for (int i = 0; i < constructorArgs.size(); i++) {
+        typeHandlers[i] = constructorArgs.get(i).typeHandler;
+      }
+      for (int i = 0; i < properties.size(); i++) {
+        typeHandlers[constructorArgs.size() + i] = properties.get(i).typeHandler;
+      }
+      return (RowMapper) mapperClass.getConstructor(TypeHandler[].class).newInstance((Object) typeHandlers);
+    } catch (Throwable t) {
+      // the result map is mapped by reflection, like when the compiler is disabled
+      if (log.isDebugEnabled()) {
+        log.debug("Could not generate a row mapper for " + type.getName() + ".  Cause: " + t);
+      }
+      return UNSUPPORTED;
+    }
+  }
+
+  private String source(Class<?> type, List<ColumnMapping> constructorArgs, List<ColumnMapping> properties) {
+    if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())
+        || (type.getEnclosingClass() != null && !Modifier.isStatic(type.getModifiers()))) {
+      return null;
+    }
+    StringBuilder source = new StringBuilder("public Object map(java.sql.ResultSet rs) throws java.sql.SQLException {\n");
+    String typeName = sourceName(type);
+    Class<?>[] argTypes = new Class<?>[constructorArgs.size()];
+    for (int i = 0; i < argTypes.length; i++) {
+      argTypes[i] = constructorArgs.get(i).javaType;
+    }
+    try {
+      // only the public constructors can be called by the generated class
+      type.getConstructor(argTypes);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+    // 与反射映射一致：构造函数的参数全部为null时返回null
+    source.append("  boolean found = false;\n");
+    StringBuilder args = new StringBuilder();
+    for (int i = 0; i < argTypes.length; i++) {
+      ColumnMapping arg = constructorArgs.get(i);
+      source.append("  Object a").append(i).append(" = h[").append(i).append("].getResult(rs, ")
+          .append(arg.columnIndex).append(");\n");
+      source.append("  if (a").append(i).append(" != null) { found = true; }\n");
+      if (argTypes[i].isPrimitive()) {
+        source.append("  else { throw new org.apache.ibatis.reflection.ReflectionException(\"Error instantiating ")
+            .append(typeName).append(": column ").append(arg.columnIndex).append(" of primitive argument ").append(i)
+            .append(" is null.\"); }\n");
+      }
+      args.append(i == 0 ? "" : ", ").append(cast(argTypes[i], "a" + i));
+    }
+    if (argTypes.length > 0) {
+      source.append("  if (!found) { return null; }\n");
+    }
+    source.append("  ").append(typeName).append(" o = new ").append(typeName).append("(").append(args).append(");\n");
+    source.append("  Object v;\n");
+    Reflector reflector = configuration.getReflectorFactory().findForClass(type);
+    for (int i = 0; i < properties.size(); i++) {
+      ColumnMapping property = properties.get(i);
+      if (property.property.indexOf('.') >= 0 || property.property.indexOf('[') >= 0
+          || !reflector.hasSetter(property.property)) {
+        return null;
+      }
+      Method setter = findSetter(type, property.property, reflector.getSetterType(property.property));
+      if (setter == null) {
+        return null;
+      }
+      Class<?> setterType = setter.getParameterTypes()[0];
+      source.append("  v = h[").append(argTypes.length + i).append("].getResult(rs, ")
+          .append(property.columnIndex).append(");\n");
+      source.append("  if (v != null) { found = true; o.").append(setter.getName()).append("(")
+          .append(cast(setterType, "v")).append("); }\n");
+      if (configuration.isCallSettersOnNulls() && !setterType.isPrimitive()) {
+        // gcode issue #377, call setter on nulls (value is not 'found')
+        source.append("  else { o.").append(setter.getName()).append("((").append(sourceName(setterType))
+            .append(") null); }\n");
+      }
+    }
+    boolean found = !constructorArgs.isEmpty() || configuration.isReturnInstanceForEmptyRow();
+    source.append("  return ").append(found ? "o" : "found ? o : null").append(";\n}");
+    return source.toString();
+  }
+
+  private static Method findSetter(Class<?> type, String property, Class<?> setterType) {
+    Method candidate = null;
+    for (Method method : type.getMethods()) {
+      if (method.getParameterCount() == 1 && PropertyNamer.isSetter(method.getName())
+          && property.equals(PropertyNamer.methodToProperty(method.getName()))) {
+        if (method.getParameterTypes()[0] == setterType) {
+          return method;
+        }
+        // the type of a generic setter is resolved by the reflector
+        if (method.getParameterTypes()[0].isAssignableFrom(setterType)) {
+          candidate = method;
+        }
+      }
+    }
+    return candidate;
+  }
+
+  private static String cast(Class<?> type, String value) {
+    if (type == Object.class) {
+      return value;
+    }
+    if (!type.isPrimitive()) {
+      return "(" + sourceName(type) + ") " + value;
+    }
+    String wrapper;
+    if (type == int.class) {
+      wrapper = "Integer";
+    } else if (type == char.class) {
+      wrapper = "Character";
+    } else {
+      wrapper = Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+    }
+    return "((java.lang." + wrapper + ") " + value + ")." + type.getName() + "Value()";
+  }
+
+  private static String sourceName(Class<?> type) {
+    return type.isArray() ? sourceName(type.getComponentType()) + "[]" : type.getName();
+  }
+
+  /**
+   * A column mapped to a constructor argument or to a property.
+   */
+  public static final class ColumnMapping {
+
+    // 列在结果集中的序号，从1开始
+    private final int columnIndex;
+
+    // 属性名，构造函数参数时为null
+    private final String property;
+
+    // 构造函数参数的类型
+    private final Class<?> javaType;
+
+    private final TypeHandler<?> typeHandler;
+
+    private ColumnMapping(int columnIndex, String property, Class<?> javaType, TypeHandler<?> typeHandler) {
+      this.columnIndex = columnIndex;
+      this.property = property;
+      this.javaType = javaType;
+      this.typeHandler = typeHandler;
+    }
+
+    /**
+     * @param columnIndex the index of the column, starting at 1
+     * @param javaType the type of the argument
+     * @param typeHandler the type handler reading the column
+     * @return the mapping of a constructor argument
+     */
+    public static ColumnMapping forArgument(int columnIndex, Class<?> javaType, TypeHandler<?> typeHandler) {
+      return new ColumnMapping(columnIndex, null, javaType, typeHandler);
+    }
+
+    /**
+     * @param columnIndex the index of the column, starting at 1
+     * @param property the name of the property
+     * @param typeHandler the type handler reading the column
+     * @return the mapping of a property
+     */
+    public static ColumnMapping forProperty(int columnIndex, String property, TypeHandler<?> typeHandler) {
+      return new ColumnMapping(columnIndex, property, null, typeHandler);
+    }
+  }
+
+}
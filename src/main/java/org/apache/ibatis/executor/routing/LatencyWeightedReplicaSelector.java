@@ -0,0 +1,124 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.routing;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.ibatis.mapping.Environment;
+
+/**
+ * Gives the sessions a random replica, weighted by the inverse of the average time its selects took.
+ * A replica twice as fast as another one gets twice as many sessions.
+ * <p>
+ * The average is exponentially weighted, so that it follows the changes of load of the replicas. Replicas without
+ * measure yet are weighted like the fastest replica, so that they are soon measured.
+ * <p>
+ * As the average of a replica only changes when it is given sessions, a small share of the sessions is given to a
+ * replica chosen uniformly, so that a replica that was slow keeps being measured and gets its share back once it
+ * recovers.
+ *
+ * @since 3.5.3
+ */
+public class LatencyWeightedReplicaSelector implements ReplicaSelector {
+
+  private static final double DEFAULT_SMOOTHING = 0.2;
+
+  private static final double DEFAULT_EXPLORATION = 0.05;
+
+  // environment id --> select的平均耗时（纳秒）
+  private final ConcurrentMap<String, Double> latencies = new ConcurrentHashMap<>();
+
+  // 新的耗时在平均值中所占的比重
+  private final double smoothing;
+
+  // 不按耗时加权、随机选择读库的session所占的比例
+  private final double exploration;
+
+  public LatencyWeightedReplicaSelector() {
+    this(DEFAULT_SMOOTHING);
+  }
+
+  /**
+   * @param smoothing the weight of a new measure in the average, greater than 0 and at most 1
+   */
+  public LatencyWeightedReplicaSelector(double smoothing) {
+    this(smoothing, DEFAULT_EXPLORATION);
+  }
+
+  /**
+   * @param smoothing the weight of a new measure in the average, greater than 0 and at most 1
+   * @param exploration the share of the sessions given to a replica chosen uniformly, at least 0 and less than 1
+   */
+  public LatencyWeightedReplicaSelector(double smoothing, double exploration) {
+    if (smoothing <= 0 || smoothing > 1) {
+      throw new IllegalArgumentException("The smoothing must be greater than 0 and at most 1, but got " + smoothing);
+    }
+    if (exploration < 0 || exploration >= 1) {
+      throw new IllegalArgumentException("The exploration must be at least 0 and less than 1, but got " + exploration);
+    }
+    this.smoothing = smoothing;
+    this.exploration = exploration;
+  }
+
+  @Override
+  public Environment select(List<Environment> replicas) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (exploration > 0 && random.nextDouble() < exploration) {
+      return replicas.get(random.nextInt(replicas.size()));
+    }
+    double[] latency = new double[replicas.size()];
+    double fastest = Double.MAX_VALUE;
+    for (int i = 0; i < latency.length; i++) {
+      Double average = latencies.get(replicas.get(i).getId());
+      latency[i] = average == null ? -1 : Math.max(1, average);
+      if (average != null) {
+        fastest = Math.min(fastest, latency[i]);
+      }
+    }
+    double total = 0;
+    double[] weights = new double[latency.length];
+    for (int i = 0; i < latency.length; i++) {
+      weights[i] = 1 / (latency[i] < 0 ? (fastest == Double.MAX_VALUE ? 1 : fastest) : latency[i]);
+      total += weights[i];
+    }
+    double point = random.nextDouble(total);
+    for (int i = 0; i < weights.length; i++) {
+      point -= weights[i];
+      if (point < 0) {
+        return replicas.get(i);
+      }
+    }
+    return replicas.get(replicas.size() - 1);
+  }
+
+  @Override
+  public void queryCompleted(Environment replica, long elapsedNanos) {
+    latencies.merge(replica.getId(), (double) elapsedNanos,
+        (average, latest) -> average + smoothing * (latest - average));
+  }
+
+  /**
+   * @param replica the replica
+   * @return the average time the selects on the replica took in nanoseconds, or <code>null</code> if none completed
+   */
+  public Double getLatency(Environment replica) {
+    return latencies.get(replica.getId());
+  }
+
+}
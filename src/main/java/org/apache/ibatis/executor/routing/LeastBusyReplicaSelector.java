@@ -0,0 +1,72 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.routing;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.mapping.Environment;
+
+/**
+ * Gives the sessions the replica used by the fewest open sessions. Replicas used by as many sessions are given in
+ * turn.
+ *
+ * @since 3.5.3
+ */
+public class LeastBusyReplicaSelector implements ReplicaSelector {
+
+  // environment id --> 正在使用该replica的session数
+  private final ConcurrentMap<String, AtomicInteger> inUse = new ConcurrentHashMap<>();
+
+  private final AtomicInteger next = new AtomicInteger();
+
+  @Override
+  public Environment select(List<Environment> replicas) {
+    int start = next.getAndIncrement() & Integer.MAX_VALUE;
+    Environment selected = null;
+    int fewest = Integer.MAX_VALUE;
+    for (int i = 0; i < replicas.size(); i++) {
+      Environment replica = replicas.get((start + i) % replicas.size());
+      int sessions = counter(replica).get();
+      if (sessions < fewest) {
+        selected = replica;
+        fewest = sessions;
+      }
+    }
+    counter(selected).incrementAndGet();
+    return selected;
+  }
+
+  @Override
+  public void released(Environment replica) {
+    counter(replica).decrementAndGet();
+  }
+
+  /**
+   * @param replica the replica
+   * @return the number of open sessions using the replica
+   */
+  public int getSessions(Environment replica) {
+    return counter(replica).get();
+  }
+
+  private AtomicInteger counter(Environment replica) {
+    return inUse.computeIfAbsent(replica.getId(), id -> new AtomicInteger());
+  }
+
+}
@@ -0,0 +1,314 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.routing;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.BatchResultHandler;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementRoute;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Executor that runs the selects of a session on a read replica and the other statements on the primary data source.
+ * <p>
+ * The replica is chosen by the {@link Configuration#getReplicaSelector() replica selector} before the first select of
+ * the session, and is kept until the session is closed. Once the session wrote to the primary, its selects also run
+ * on the primary, so that they see the writes of the session, even after they are committed. Locking reads, that is
+ * selects with a <code>FOR UPDATE</code> or <code>FOR SHARE</code> clause or that {@link MappedStatement#isFlushCacheRequired()
+ * flush the cache}, always run on the primary, because the locks and the data they protect belong to the transaction of
+ * the primary. The {@link MappedStatement#getRoute() route} of a select overrides this choice.
+ *
+ * @since 3.5.3
+ */
+public class ReadWriteExecutor implements Executor {
+
+  private static final Log log = LogFactory.getLog(ReadWriteExecutor.class);
+
+  private static final Pattern LOCKING_CLAUSE = Pattern.compile(
+      "\\bfor\\s+(?:no\\s+key\\s+|key\\s+)?(?:update|share)\\b|\\block\\s+in\\s+share\\s+mode\\b",
+      Pattern.CASE_INSENSITIVE);
+
+  private final Configuration configuration;
+
+  // 主库的executor，执行写操作以及写之后的select
+  private final Executor primary;
+
+  // 读库事务的隔离级别和自动提交方式，与主库事务相同
+  private final TransactionIsolationLevel level;
+  private final boolean autoCommit;
+
+  // 第一次在读库执行select时才选择读库并创建executor
+  private Environment replica;
+  private Executor replicaExecutor;
+
+  private Executor wrapper;
+
+  // session是否已经写过主库
+  private boolean wrote;
+
+  /**
+   * @param configuration the configuration
+   * @param primary the executor of the primary data source
+   * @param level the isolation level of the replica transaction
+   * @param autoCommit the auto commit mode of the replica transaction
+   */
+  public ReadWriteExecutor(Configuration configuration, Executor primary, TransactionIsolationLevel level,
+      boolean autoCommit) {
+    if (configuration.getReplicas().isEmpty()) {
+      throw new ExecutorException("A read write executor requires at least one replica.");
+    }
+    this.configuration = configuration;
+    this.primary = primary;
+    this.level = level;
+    this.autoCommit = autoCommit;
+    this.wrapper = this;
+    // nested selects of the primary are routed too
+    primary.setExecutorWrapper(this);
+  }
+
+  @Override
+  public int update(MappedStatement ms, Object parameter) throws SQLException {
+    markWritten();
+    return primary.update(ms, parameter);
+  }
+
+  @Override
+  public int updateAll(MappedStatement ms, Iterable<?> parameters) throws SQLException {
+    markWritten();
+    return primary.updateAll(ms, parameters);
+  }
+
+  @Override
+  public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler,
+      CacheKey cacheKey, BoundSql boundSql) throws SQLException {
+    if (!isOnReplica(ms, boundSql)) {
+      return primary.query(ms, parameter, rowBounds, resultHandler, cacheKey, boundSql);
+    }
+    Executor executor = replica();
+    long start = System.nanoTime();
+    List<E> list = executor.query(ms, parameter, rowBounds, resultHandler, cacheKey, boundSql);
+    configuration.getReplicaSelector().queryCompleted(replica, System.nanoTime() - start);
+    return list;
+  }
+
+  @Override
+  public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler)
+      throws SQLException {
+    BoundSql boundSql = ms.getBoundSql(parameter);
+    CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
+    return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
+  }
+
+  @Override
+  public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
+    Executor executor = isOnReplica(ms, ms.getBoundSql(parameter)) ? replica() : primary;
+    return executor.queryCursor(ms, parameter, rowBounds);
+  }
+
+  @Override
+  public List<List<Object>> queryMany(List<MappedStatement> mappedStatements, List<Object> parameters)
+      throws SQLException {
+    // 所有select都在同一个数据源上时一起执行
+    boolean onReplica = isOnReplica(mappedStatements.get(0), mappedStatements.get(0).getBoundSql(parameters.get(0)));
+    for (int i = 1; i < mappedStatements.size(); i++) {
+      MappedStatement ms = mappedStatements.get(i);
+      if (isOnReplica(ms, ms.getBoundSql(parameters.get(i))) != onReplica) {
+        List<List<Object>> results = new ArrayList<>(mappedStatements.size());
+        for (int j = 0; j < mappedStatements.size(); j++) {
+          results.add(query(mappedStatements.get(j), parameters.get(j), RowBounds.DEFAULT, NO_RESULT_HANDLER));
+        }
+        return results;
+      }
+    }
+    if (!onReplica) {
+      return primary.queryMany(mappedStatements, parameters);
+    }
+    Executor executor = replica();
+    long start = System.nanoTime();
+    List<List<Object>> results = executor.queryMany(mappedStatements, parameters);
+    configuration.getReplicaSelector().queryCompleted(replica, System.nanoTime() - start);
+    return results;
+  }
+
+  @Override
+  public List<BatchResult> flushStatements() throws SQLException {
+    if (replicaExecutor != null) {
+      replicaExecutor.flushStatements();
+    }
+    return primary.flushStatements();
+  }
+
+  @Override
+  public void commit(boolean required) throws SQLException {
+    primary.commit(required);
+    if (replicaExecutor != null) {
+      replicaExecutor.commit(required);
+    }
+  }
+
+  @Override
+  public void rollback(boolean required) throws SQLException {
+    try {
+      primary.rollback(required);
+    } finally {
+      if (replicaExecutor != null) {
+        replicaExecutor.rollback(required);
+      }
+    }
+  }
+
+  @Override
+  public CacheKey createCacheKey(MappedStatement ms, Object parameterObject, RowBounds rowBounds, BoundSql boundSql) {
+    // the replicas hold the same data, so the results are identified like the results of the primary
+    return primary.createCacheKey(ms, parameterObject, rowBounds, boundSql);
+  }
+
+  @Override
+  public boolean isCached(MappedStatement ms, CacheKey key) {
+    return route(ms).isCached(ms, key);
+  }
+
+  @Override
+  public void clearLocalCache() {
+    primary.clearLocalCache();
+    if (replicaExecutor != null) {
+      replicaExecutor.clearLocalCache();
+    }
+  }
+
+  @Override
+  public void deferLoad(MappedStatement ms, MetaObject resultObject, String property, CacheKey key, Class<?> targetType) {
+    route(ms).deferLoad(ms, resultObject, property, key, targetType);
+  }
+
+  @Override
+  public Transaction getTransaction() {
+    return primary.getTransaction();
+  }
+
+  @Override
+  public void close(boolean forceRollback) {
+    try {
+      if (replicaExecutor != null) {
+        replicaExecutor.close(forceRollback);
+        configuration.getReplicaSelector().released(replica);
+      }
+    } catch (RuntimeException e) {
+      // Ignore.  The primary must be closed anyway.
+      log.warn("Unexpected exception on closing replica executor.  Cause: " + e);
+    } finally {
+      replicaExecutor = null;
+      replica = null;
+      primary.close(forceRollback);
+    }
+  }
+
+  @Override
+  public boolean isClosed() {
+    return primary.isClosed();
+  }
+
+  @Override
+  public void setExecutorWrapper(Executor wrapper) {
+    this.wrapper = wrapper;
+    primary.setExecutorWrapper(wrapper);
+    if (replicaExecutor != null) {
+      replicaExecutor.setExecutorWrapper(wrapper);
+    }
+  }
+
+  @Override
+  public void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    primary.setBatchResultHandler(batchResultHandler);
+  }
+
+  /**
+   * @return the replica chosen for the session, or <code>null</code> if no select ran on a replica yet
+   */
+  public Environment getReplica() {
+    return replica;
+  }
+
+  /**
+   * @return whether the session wrote to the primary, so that its selects run on the primary
+   */
+  public boolean isWritten() {
+    return wrote;
+  }
+
+  private void markWritten() {
+    wrote = true;
+    // the rows cached by the replica may be outdated by the write
+    if (replicaExecutor != null) {
+      replicaExecutor.clearLocalCache();
+    }
+  }
+
+  private boolean isOnReplica(MappedStatement ms, BoundSql boundSql) {
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT) {
+      return false;
+    }
+    StatementRoute route = ms.getRoute();
+    if (route != null) {
+      return route == StatementRoute.REPLICA;
+    }
+    return !wrote && !isLockingRead(ms, boundSql);
+  }
+
+  private boolean isLockingRead(MappedStatement ms, BoundSql boundSql) {
+    // 没有SQL时只能根据flushCache判断
+    return ms.isFlushCacheRequired() || boundSql != null && LOCKING_CLAUSE.matcher(boundSql.getSql()).find();
+  }
+
+  private Executor route(MappedStatement ms) {
+    return isOnReplica(ms, null) ? replica() : primary;
+  }
+
+  private Executor replica() {
+    if (isClosed()) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    if (replicaExecutor == null) {
+      Environment selected = configuration.getReplicaSelector().select(configuration.getReplicas());
+      Transaction transaction = selected.getTransactionFactory().newTransaction(selected.getDataSource(), level, autoCommit);
+      replicaExecutor = new SimpleExecutor(configuration, transaction);
+      replicaExecutor.setExecutorWrapper(wrapper);
+      replica = selected;
+    }
+    return replicaExecutor;
+  }
+
+}
@@ -0,0 +1,56 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.routing;
+
+import java.util.List;
+
+import org.apache.ibatis.mapping.Environment;
+
+/**
+ * Chooses the read replica used by a session. Implementations are shared by all sessions and must be thread safe.
+ *
+ * @since 3.5.3
+ */
+public interface ReplicaSelector {
+
+  /**
+   * Chooses the replica on which a session runs its selects. It is called once per session, before its first select.
+   *
+   * @param replicas the replicas, never empty
+   * @return one of the replicas
+   */
+  Environment select(List<Environment> replicas);
+
+  /**
+   * Called when a select completed on a replica.
+   *
+   * @param replica the replica
+   * @param elapsedNanos the time the select took, in nanoseconds
+   */
+  default void queryCompleted(Environment replica, long elapsedNanos) {
+    // not measured
+  }
+
+  /**
+   * Called when the session that used a replica is closed.
+   *
+   * @param replica the replica
+   */
+  default void released(Environment replica) {
+    // not counted
+  }
+
+}
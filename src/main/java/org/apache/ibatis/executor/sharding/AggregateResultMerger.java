@@ -0,0 +1,97 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.sharding;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Reduces the single results of the shards to one result, for example to add the counts of each shard.
+ * Shards that returned no result are ignored.
+ *
+ * @since 3.5.3
+ */
+public class AggregateResultMerger implements ResultMerger {
+
+  private final BinaryOperator<Object> reducer;
+
+  @SuppressWarnings("unchecked")
+  public AggregateResultMerger(BinaryOperator<?> reducer) {
+    this.reducer = (BinaryOperator<Object>) reducer;
+  }
+
+  /**
+   * @return a merger that adds the numbers returned by the shards, keeping their type; it fails when the sum of
+   *         integers or longs overflows their type, declare a <code>long</code> or <code>BigInteger</code> result instead
+   */
+  public static AggregateResultMerger sum() {
+    return new AggregateResultMerger(AggregateResultMerger::add);
+  }
+
+  @Override
+  public List<Object> merge(MappedStatement ms, Object parameter, List<List<Object>> shardResults) {
+    Object aggregate = null;
+    for (List<Object> results : shardResults) {
+      if (results.size() > 1) {
+        throw new ExecutorException("Statement '" + ms.getId() + "' returned " + results.size()
+            + " results from a shard, but its results are aggregated.");
+      }
+      if (!results.isEmpty() && results.get(0) != null) {
+        try {
+          aggregate = aggregate == null ? results.get(0) : reducer.apply(aggregate, results.get(0));
+        } catch (ArithmeticException e) {
+          throw new ExecutorException("The aggregated result of statement '" + ms.getId() + "' overflows its type."
+              + "  Cause: " + e, e);
+        }
+      }
+    }
+    List<Object> merged = new ArrayList<>(1);
+    if (aggregate != null) {
+      merged.add(aggregate);
+    }
+    return merged;
+  }
+
+  private static Object add(Object a, Object b) {
+    if (a instanceof Integer && b instanceof Integer) {
+      return Math.addExact((Integer) a, (Integer) b);
+    } else if (a instanceof BigDecimal || b instanceof BigDecimal) {
+      return toBigDecimal(a).add(toBigDecimal(b));
+    } else if (a instanceof BigInteger || b instanceof BigInteger) {
+      return toBigDecimal(a).add(toBigDecimal(b)).toBigInteger();
+    } else if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float) {
+      return ((Number) a).doubleValue() + ((Number) b).doubleValue();
+    } else {
+      return Math.addExact(((Number) a).longValue(), ((Number) b).longValue());
+    }
+  }
+
+  private static BigDecimal toBigDecimal(Object number) {
+    if (number instanceof BigDecimal) {
+      return (BigDecimal) number;
+    } else if (number instanceof BigInteger) {
+      return new BigDecimal((BigInteger) number);
+    }
+    return new BigDecimal(number.toString());
+  }
+
+}
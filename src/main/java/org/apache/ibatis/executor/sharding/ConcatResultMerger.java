@@ -0,0 +1,44 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Appends the results of the shards one after the other, in the order of the shards.
+ * This is the merger of the selects that have no other merger.
+ *
+ * @since 3.5.3
+ */
+public class ConcatResultMerger implements ResultMerger {
+
+  @Override
+  public List<Object> merge(MappedStatement ms, Object parameter, List<List<Object>> shardResults) {
+    int size = 0;
+    for (List<Object> results : shardResults) {
+      size += results.size();
+    }
+    List<Object> merged = new ArrayList<>(size);
+    for (List<Object> results : shardResults) {
+      merged.addAll(results);
+    }
+    return merged;
+  }
+
+}
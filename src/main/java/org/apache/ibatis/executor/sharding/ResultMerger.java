@@ -0,0 +1,38 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.sharding;
+
+import java.util.List;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Merges the results that the shards returned for the same select.
+ *
+ * @since 3.5.3
+ * @see org.apache.ibatis.session.Configuration#addResultMerger(String, ResultMerger)
+ */
+public interface ResultMerger {
+
+  /**
+   * @param ms the select
+   * @param parameter the parameter of the select
+   * @param shardResults the result list of each shard, in the order of the shards
+   * @return the merged result list
+   */
+  List<Object> merge(MappedStatement ms, Object parameter, List<List<Object>> shardResults);
+
+}
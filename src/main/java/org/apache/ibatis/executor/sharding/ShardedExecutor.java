@@ -0,0 +1,341 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.sharding;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Executor that runs every statement on each shard, that is on each of a set of identical databases.
+ * <p>
+ * The shards run concurrently on the {@link Configuration#getAsyncExecutor() asynchronous executor}, at most
+ * {@link Configuration#getShardParallelism() shardParallelism} at the same time. The results of a select are merged by
+ * the {@link ResultMerger} registered for the statement, and the update counts are added. Each shard has its own
+ * executor, so each shard keeps its own local cache and transaction.
+ * <p>
+ * When a shard fails, the other shards still complete, then an {@link ExecutorException} naming the shard is thrown.
+ * The failures of the other shards are added as suppressed exceptions.
+ * <p>
+ * The shards commit one by one, in their own transaction, without a two-phase commit: when a shard fails to commit,
+ * the other shards may already have committed and their changes are kept. The exception names the shards that
+ * committed, so that the application can repair the other ones.
+ *
+ * @since 3.5.3
+ */
+public class ShardedExecutor implements Executor {
+
+  private static final Log log = LogFactory.getLog(ShardedExecutor.class);
+
+  private final Configuration configuration;
+
+  // 默认environment的事务，只用于getTransaction
+  private final Transaction transaction;
+
+  // 每个shard的id
+  private final List<String> shardIds;
+
+  // 每个shard的executor，同一时间只会被一个线程使用
+  private final List<Executor> shards;
+
+  private boolean closed;
+
+  /**
+   * @param configuration the configuration
+   * @param transaction the transaction of the default environment
+   * @param shards the executor of each shard, by shard id
+   */
+  public ShardedExecutor(Configuration configuration, Transaction transaction, Map<String, Executor> shards) {
+    if (shards.isEmpty()) {
+      throw new ExecutorException("A sharded executor requires at least one shard.");
+    }
+    this.configuration = configuration;
+    this.transaction = transaction;
+    this.shardIds = new ArrayList<>(shards.keySet());
+    this.shards = new ArrayList<>(shards.values());
+  }
+
+  @Override
+  public int update(MappedStatement ms, Object parameter) throws SQLException {
+    int updated = 0;
+    for (Integer count : onAllShards("updating", shard -> shard.update(ms, parameter))) {
+      updated += count;
+    }
+    return updated;
+  }
+
+  @Override
+  public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler,
+      CacheKey cacheKey, BoundSql boundSql) throws SQLException {
+    // each shard creates its own cache key and bound sql
+    return query(ms, parameter, rowBounds, resultHandler);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler)
+      throws SQLException {
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    // 每个shard都需要返回offset + limit行，合并后再跳过offset行
+    RowBounds shardRowBounds = RowBounds.DEFAULT;
+    if (rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT) {
+      long rows = (long) rowBounds.getOffset() + rowBounds.getLimit();
+      shardRowBounds = new RowBounds(0, (int) Math.min(rows, RowBounds.NO_ROW_LIMIT));
+    }
+    RowBounds bounds = shardRowBounds;
+    List<List<Object>> shardResults = onAllShards("querying",
+        shard -> shard.<Object>query(ms, parameter, bounds, NO_RESULT_HANDLER));
+    List<Object> merged = configuration.getResultMerger(ms.getId()).merge(ms, parameter, shardResults);
+    int from = Math.min(rowBounds.getOffset(), merged.size());
+    int to = (int) Math.min((long) from + rowBounds.getLimit(), merged.size());
+    if (from > 0 || to < merged.size()) {
+      merged = new ArrayList<>(merged.subList(from, to));
+    }
+    if (resultHandler == null) {
+      return (List<E>) merged;
+    }
+    DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
+    for (Object result : merged) {
+      resultContext.nextResultObject(result);
+      resultHandler.handleResult(resultContext);
+      if (resultContext.isStopped()) {
+        break;
+      }
+    }
+    return new ArrayList<>();
+  }
+
+  @Override
+  public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
+    throw new ExecutorException("Statement '" + ms.getId() + "' cannot return a cursor from a sharded executor.");
+  }
+
+  @Override
+  public List<BatchResult> flushStatements() throws SQLException {
+    List<BatchResult> results = new ArrayList<>();
+    for (List<BatchResult> shardResults : onAllShards("flushing statements", Executor::flushStatements)) {
+      results.addAll(shardResults);
+    }
+    return results;
+  }
+
+  @Override
+  public void commit(boolean required) throws SQLException {
+    if (closed) {
+      throw new ExecutorException("Cannot commit, transaction is already closed");
+    }
+    onAllShards("committing", "committed", shard -> {
+      shard.commit(required);
+      return null;
+    });
+    if (required) {
+      transaction.commit();
+    }
+  }
+
+  @Override
+  public void rollback(boolean required) throws SQLException {
+    if (closed) {
+      return;
+    }
+    onAllShards("rolling back", shard -> {
+      shard.rollback(required);
+      return null;
+    });
+    if (required) {
+      transaction.rollback();
+    }
+  }
+
+  @Override
+  public CacheKey createCacheKey(MappedStatement ms, Object parameterObject, RowBounds rowBounds, BoundSql boundSql) {
+    // the merged results are identified like the results of the first shard
+    return shards.get(0).createCacheKey(ms, parameterObject, rowBounds, boundSql);
+  }
+
+  @Override
+  public boolean isCached(MappedStatement ms, CacheKey key) {
+    return false;
+  }
+
+  @Override
+  public void clearLocalCache() {
+    for (Executor shard : shards) {
+      shard.clearLocalCache();
+    }
+  }
+
+  @Override
+  public void deferLoad(MappedStatement ms, MetaObject resultObject, String property, CacheKey key, Class<?> targetType) {
+    // nested selects are loaded by the executor of the shard that returned the result
+    throw new ExecutorException("Deferred loads are not supported by a sharded executor.");
+  }
+
+  @Override
+  public Transaction getTransaction() {
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    return transaction;
+  }
+
+  @Override
+  public void close(boolean forceRollback) {
+    for (Executor shard : shards) {
+      shard.close(forceRollback);
+    }
+    try {
+      if (transaction != null) {
+        transaction.close();
+      }
+    } catch (SQLException e) {
+      // Ignore.  There's nothing that can be done at this point.
+      log.warn("Unexpected exception on closing transaction.  Cause: " + e);
+    } finally {
+      closed = true;
+    }
+  }
+
+  @Override
+  public boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public void setExecutorWrapper(Executor wrapper) {
+    // the shard executors keep themselves as wrapper, so that nested selects stay on their shard
+  }
+
+  /**
+   * @return the executor of each shard, by shard id
+   */
+  public Map<String, Executor> getShards() {
+    Map<String, Executor> map = new LinkedHashMap<>();
+    for (int i = 0; i < shards.size(); i++) {
+      map.put(shardIds.get(i), shards.get(i));
+    }
+    return map;
+  }
+
+  private <T> List<T> onAllShards(String action, ShardOperation<T> operation) {
+    return onAllShards(action, null, operation);
+  }
+
+  /**
+   * @param action what the operation does, for the error message
+   * @param completed what the operation did, to name the shards that succeeded in the error message; <code>null</code>
+   *          to not name them
+   * @param operation the operation run on each shard
+   * @return the result of each shard
+   */
+  private <T> List<T> onAllShards(String action, String completed, ShardOperation<T> operation) {
+    int count = shards.size();
+    Object[] results = new Object[count];
+    Throwable[] failures = new Throwable[count];
+    AtomicInteger next = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(count);
+    // 每个worker依次领取下一个shard，所以同一个shard的executor不会被多个线程同时使用
+    Runnable worker = () -> {
+      int i;
+      while ((i = next.getAndIncrement()) < count) {
+        try {
+          results[i] = operation.apply(shards.get(i));
+        } catch (Throwable t) {
+          failures[i] = t;
+        } finally {
+          done.countDown();
+        }
+      }
+    };
+    Integer parallelism = configuration.getShardParallelism();
+    int workers = Math.min(count, parallelism == null ? count : Math.max(1, parallelism));
+    for (int i = 1; i < workers; i++) {
+      try {
+        configuration.getAsyncExecutor().execute(worker);
+      } catch (RejectedExecutionException e) {
+        // the remaining shards are run by the other workers
+        break;
+      }
+    }
+    worker.run();
+    // 只等待已被领取的shard，排队中的worker启动时没有剩余的shard，线程池满时也不会死锁
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted waiting for the shards while " + action + ".", e);
+    }
+    ExecutorException exception = null;
+    List<String> succeeded = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      if (failures[i] == null) {
+        succeeded.add(shardIds.get(i));
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      if (failures[i] == null) {
+        continue;
+      }
+      if (exception == null) {
+        // 部分shard已经完成，例如已提交的事务无法撤销
+        String detail = completed == null ? "" : "  Shards already " + completed + ": " + succeeded + ".";
+        exception = new ExecutorException("Error " + action + " shard '" + shardIds.get(i) + "'." + detail
+          + "  Cause: " + failures[i], failures[i]);
+      } else {
+        exception.addSuppressed(failures[i]);
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+    List<T> list = new ArrayList<>(count);
+    for (Object result : results) {
+      @SuppressWarnings("unchecked")
+      T t = (T) result;
+      list.add(t);
+    }
+    return list;
+  }
+
+  @FunctionalInterface
+  private interface ShardOperation<T> {
+    T apply(Executor shard) throws SQLException;
+  }
+
+}
@@ -0,0 +1,81 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.sharding;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Merges results that each shard returned sorted with the same order, keeping them sorted.
+ * <p>
+ * The shard lists are merged like in a merge sort, so that only the first result of each shard is compared.
+ * When a limit is given, only the first {@code limit} results are kept, which returns the top N results of all
+ * shards when the select also returns at most N results from each shard.
+ *
+ * @since 3.5.3
+ */
+public class SortedResultMerger implements ResultMerger {
+
+  private final Comparator<Object> comparator;
+
+  private final int limit;
+
+  /**
+   * @param comparator the order of the results of each shard
+   */
+  public SortedResultMerger(Comparator<?> comparator) {
+    this(comparator, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param comparator the order of the results of each shard
+   * @param limit the maximum number of merged results
+   */
+  @SuppressWarnings("unchecked")
+  public SortedResultMerger(Comparator<?> comparator, int limit) {
+    this.comparator = (Comparator<Object>) comparator;
+    this.limit = limit;
+  }
+
+  @Override
+  public List<Object> merge(MappedStatement ms, Object parameter, List<List<Object>> shardResults) {
+    // 每个元素为{shard序号, 下一个结果的位置}，按该shard下一个结果排序
+    PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, shardResults.size()),
+        (a, b) -> comparator.compare(shardResults.get(a[0]).get(a[1]), shardResults.get(b[0]).get(b[1])));
+    int size = 0;
+    for (int i = 0; i < shardResults.size(); i++) {
+      if (!shardResults.get(i).isEmpty()) {
+        heads.add(new int[] { i, 0 });
+        size += shardResults.get(i).size();
+      }
+    }
+    List<Object> merged = new ArrayList<>(Math.min(size, limit));
+    while (!heads.isEmpty() && merged.size() < limit) {
+      int[] head = heads.poll();
+      List<Object> results = shardResults.get(head[0]);
+      merged.add(results.get(head[1]));
+      if (++head[1] < results.size()) {
+        heads.add(head);
+      }
+    }
+    return merged;
+  }
+
+}
@@ -16,6 +16,8 @@
 package org.apache.ibatis.logging;
 
 import java.lang.reflect.Constructor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author Clinton Begin
@@ -31,7 +33,10 @@ public final class LogFactory {
    */
   public static final String MARKER = "MYBATIS";
 
-  private static Constructor<? extends Log> logConstructor;
+  // 切换日志实现时加锁，getLog不加锁
+  private static final Lock lock = new ReentrantLock();
+
+  private static volatile Constructor<? extends Log> logConstructor;
 
   static {
     // 尝试加载slf4j, 这里执行的是 Runnable#run()方法
@@ -61,35 +66,35 @@ public final class LogFactory {
     }
   }
 
-  public static synchronized void useCustomLogging(Class<? extends Log> clazz) {
+  public static void useCustomLogging(Class<? extends Log> clazz) {
     setImplementation(clazz);
   }
 
-  public static synchronized void useSlf4jLogging() {
+  public static void useSlf4jLogging() {
     setImplementation(org.apache.ibatis.logging.slf4j.Slf4jImpl.class);
   }
 
-  public static synchronized void useCommonsLogging() {
+  public static void useCommonsLogging() {
     setImplementation(org.apache.ibatis.logging.commons.JakartaCommonsLoggingImpl.class);
   }
 
-  public static synchronized void useLog4JLogging() {
+  public static void useLog4JLogging() {
     setImplementation(org.apache.ibatis.logging.log4j.Log4jImpl.class);
   }
 
-  public static synchronized void useLog4J2Logging() {
+  public static void useLog4J2Logging() {
     setImplementation(org.apache.ibatis.logging.log4j2.Log4j2Impl.class);
   }
 
-  public static synchronized void useJdkLogging() {
+  public static void useJdkLogging() {
     setImplementation(org.apache.ibatis.logging.jdk14.Jdk14LoggingImpl.class);
   }
 
-  public static synchronized void useStdOutLogging() {
+  public static void useStdOutLogging() {
     setImplementation(org.apache.ibatis.logging.stdout.StdOutImpl.class);
   }
 
-  public static synchronized void useNoLogging() {
+  public static void useNoLogging() {
     setImplementation(org.apache.ibatis.logging.nologging.NoLoggingImpl.class);
   }
 
@@ -104,6 +109,7 @@ public final class LogFactory {
   }
 
   private static void setImplementation(Class<? extends Log> implClass) {
+    lock.lock();
     try {
       // 获得参数为String.class的构造函数
       Constructor<? extends Log> candidate = implClass.getConstructor(String.class);
@@ -116,6 +122,8 @@ public final class LogFactory {
       logConstructor = candidate;
     } catch (Throwable t) {
       throw new LogException("Error setting Log implementation.  Cause: " + t, t);
+    } finally {
+      lock.unlock();
     }
   }
 
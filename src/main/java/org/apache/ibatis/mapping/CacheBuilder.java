@@ -24,12 +24,19 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheInvalidationTransport;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.CacheStatsCounter;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TwoTierCache;
+import org.apache.ibatis.cache.impl.ClockCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
@@ -49,12 +56,24 @@ public class CacheBuilder {
   private Integer size;
   // 清理间隔时间
   private Long clearInterval;
+  // 每个缓存项的存活时间
+  private Long timeToLive;
+  // 缓存项过期前提前刷新的时间
+  private Long refreshAhead;
   // 是否可以读写
   private boolean readWrite;
   // 属性
   private Properties properties;
   // 是否阻塞
   private boolean blocking;
+  // 序列化器，用于readWrite缓存以及有serializer属性的cache实现
+  private CacheSerializer serializer;
+  // 统计计数器，由cache实现和所有装饰器共享
+  private CacheStatsCounter statsCounter;
+  // 远程缓存的实现类，为null时只使用本地缓存
+  private Class<? extends Cache> remoteImplementation;
+  // 向其他节点广播失效消息
+  private CacheInvalidationTransport invalidationTransport;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -83,6 +102,16 @@ public class CacheBuilder {
     return this;
   }
 
+  public CacheBuilder timeToLive(Long timeToLive) {
+    this.timeToLive = timeToLive;
+    return this;
+  }
+
+  public CacheBuilder refreshAhead(Long refreshAhead) {
+    this.refreshAhead = refreshAhead;
+    return this;
+  }
+
   public CacheBuilder readWrite(boolean readWrite) {
     this.readWrite = readWrite;
     return this;
@@ -93,6 +122,26 @@ public class CacheBuilder {
     return this;
   }
 
+  public CacheBuilder serializer(CacheSerializer serializer) {
+    this.serializer = serializer;
+    return this;
+  }
+
+  public CacheBuilder remoteImplementation(Class<? extends Cache> remoteImplementation) {
+    this.remoteImplementation = remoteImplementation;
+    return this;
+  }
+
+  public CacheBuilder invalidationTransport(CacheInvalidationTransport invalidationTransport) {
+    this.invalidationTransport = invalidationTransport;
+    return this;
+  }
+
+  public CacheBuilder statsCounter(CacheStatsCounter statsCounter) {
+    this.statsCounter = statsCounter;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -103,9 +152,14 @@ public class CacheBuilder {
     // implementation默认为是PerpetualCache.class,
     // decorators集合，默认只包含LruCache.class
     setDefaultImplementations();
+    if (statsCounter == null) {
+      statsCounter = new CacheStatsCounter();
+    }
     // 创建基础的Cache对象
     Cache cache = newBaseCacheInstance(implementation, id);
-    // 设置cache对象属性
+    // 设置序列化器、统计计数器和cache对象属性
+    setCacheSerializer(cache);
+    setCacheStatsCounter(cache);
     setCacheProperties(cache);
     // issue #352, do not apply decorators to custom caches
     if (PerpetualCache.class.equals(cache.getClass())) {
@@ -113,14 +167,21 @@ public class CacheBuilder {
       for (Class<? extends Cache> decorator : decorators) {
         // 装饰cache
         cache = newCacheDecoratorInstance(decorator, cache);
-        // 设置属性
+        // 设置统计计数器和属性
+        setCacheStatsCounter(cache);
         setCacheProperties(cache);
       }
       // 添加mybatis标准的装饰器
-      cache = setStandardDecorators(cache);
+      cache = setStandardDecorators(cache, true);
+    } else if (ConcurrentCache.class.equals(cache.getClass())) {
+      // ConcurrentCache自己负责淘汰和线程安全，不需要eviction装饰器和SynchronizedCache
+      cache = setStandardDecorators(cache, false);
+    } else if (ClockCache.class.equals(cache.getClass())) {
+      // ClockCache自己负责淘汰，不需要eviction装饰器
+      cache = setStandardDecorators(cache, true);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       // 不是LoggingCache的子类，则添加Logging的装饰器
-      cache = new LoggingCache(cache);
+      cache = new LoggingCache(cache, statsCounter);
     }
     return cache;
   }
@@ -134,7 +195,7 @@ public class CacheBuilder {
     }
   }
 
-  private Cache setStandardDecorators(Cache cache) {
+  private Cache setStandardDecorators(Cache cache, boolean synchronize) {
     try {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
@@ -143,14 +204,30 @@ public class CacheBuilder {
       if (clearInterval != null) {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
+        ((ScheduledCache) cache).setStatsCounter(statsCounter);
+      }
+      if (timeToLive != null) {
+        cache = new ExpiringCache(cache);
+        ((ExpiringCache) cache).setTimeToLive(timeToLive);
+        ((ExpiringCache) cache).setStatsCounter(statsCounter);
+        if (refreshAhead != null) {
+          ((ExpiringCache) cache).setRefreshAhead(refreshAhead);
+        }
+      }
+      if (remoteImplementation != null || invalidationTransport != null) {
+        cache = new TwoTierCache(cache, newRemoteCacheInstance(), invalidationTransport);
       }
       if (readWrite) {
-        cache = new SerializedCache(cache);
+        cache = serializer == null ? new SerializedCache(cache) : new SerializedCache(cache, serializer);
+        ((SerializedCache) cache).setStatsCounter(statsCounter);
+      }
+      cache = new LoggingCache(cache, statsCounter);
+      if (synchronize) {
+        cache = new SynchronizedCache(cache);
       }
-      cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
       if (blocking) {
         cache = new BlockingCache(cache);
+        ((BlockingCache) cache).setStatsCounter(statsCounter);
       }
       return cache;
     } catch (Exception e) {
@@ -158,6 +235,34 @@ public class CacheBuilder {
     }
   }
 
+  private void setCacheSerializer(Cache cache) {
+    if (serializer != null) {
+      MetaObject metaCache = SystemMetaObject.forObject(cache);
+      if (metaCache.hasSetter("serializer")
+          && CacheSerializer.class.isAssignableFrom(metaCache.getSetterType("serializer"))) {
+        metaCache.setValue("serializer", serializer);
+      }
+    }
+  }
+
+  private Cache newRemoteCacheInstance() {
+    if (remoteImplementation == null) {
+      return null;
+    }
+    Cache remote = newBaseCacheInstance(remoteImplementation, id);
+    setCacheSerializer(remote);
+    setCacheProperties(remote);
+    return remote;
+  }
+
+  private void setCacheStatsCounter(Cache cache) {
+    MetaObject metaCache = SystemMetaObject.forObject(cache);
+    if (metaCache.hasSetter("statsCounter")
+        && CacheStatsCounter.class.isAssignableFrom(metaCache.getSetterType("statsCounter"))) {
+      metaCache.setValue("statsCounter", statsCounter);
+    }
+  }
+
   private void setCacheProperties(Cache cache) {
     if (properties != null) {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
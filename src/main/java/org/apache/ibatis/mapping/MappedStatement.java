@@ -17,15 +17,21 @@ package org.apache.ibatis.mapping;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
+import org.apache.ibatis.builder.StaticSqlSource;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.TableNameParser;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -66,6 +72,17 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  // 语句读写的表，用于按表失效二级缓存，为null时从SQL中解析
+  private Set<String> tables;
+  // 批量执行时必须先于该语句写入的表，如外键引用的父表
+  private Set<String> dependsOn;
+  // 从静态SQL中解析出的表，只解析一次，空集合表示无法解析
+  private volatile Set<String> parsedTables;
+  // 批量执行时，自动执行批处理的条数和字节数上限
+  private Integer batchSize;
+  private Long batchMaxBytes;
+  // 配置了读库时语句使用的数据源，为null时select使用读库，写操作以及写之后的select使用主库
+  private StatementRoute route;
 
   MappedStatement() {
     // constructor disabled
@@ -185,6 +202,31 @@ public final class MappedStatement {
       return this;
     }
 
+    public Builder batchSize(Integer batchSize) {
+      mappedStatement.batchSize = batchSize;
+      return this;
+    }
+
+    public Builder batchMaxBytes(Long batchMaxBytes) {
+      mappedStatement.batchMaxBytes = batchMaxBytes;
+      return this;
+    }
+
+    public Builder route(StatementRoute route) {
+      mappedStatement.route = route;
+      return this;
+    }
+
+    public Builder tables(String tables) {
+      mappedStatement.tables = delimitedStringToTableSet(tables);
+      return this;
+    }
+
+    public Builder dependsOn(String dependsOn) {
+      mappedStatement.dependsOn = delimitedStringToTableSet(dependsOn);
+      return this;
+    }
+
     /**
      * @deprecated Use {@link #resultSets}
      */
@@ -304,6 +346,80 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * Returns the tables declared by the statement, in lower case.
+   *
+   * @return the tables, or <code>null</code> if they were not declared
+   * @since 3.5.3
+   */
+  public Set<String> getTables() {
+    return tables;
+  }
+
+  /**
+   * Returns the tables that must be written before this statement by a reordering batch executor, in lower case.
+   *
+   * @return the tables, such as the parent tables of foreign keys, or <code>null</code> if none were declared
+   * @since 3.5.3
+   */
+  public Set<String> getDependsOn() {
+    return dependsOn;
+  }
+
+  /**
+   * Returns the number of rows after which a batch executor executes the batch of this statement.
+   *
+   * @return the batch size, or <code>null</code> to use the default batch size of the configuration
+   * @since 3.5.3
+   */
+  public Integer getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Returns the estimated number of bytes of parameters after which a batch executor executes the pending batches.
+   *
+   * @return the maximum bytes, or <code>null</code> to use the default of the configuration
+   * @since 3.5.3
+   */
+  public Long getBatchMaxBytes() {
+    return batchMaxBytes;
+  }
+
+  /**
+   * Returns the data source on which the statement runs when read replicas are configured.
+   *
+   * @return the route, or <code>null</code> to run selects on a replica until the session writes
+   * @since 3.5.3
+   */
+  public StatementRoute getRoute() {
+    return route;
+  }
+
+  /**
+   * Returns the tables declared by the statement, or else the tables parsed from its SQL.
+   * The SQL of a statement without dynamic elements is only parsed once.
+   *
+   * @param parameterObject the parameter used to build the SQL of a dynamic statement
+   * @param boundSql the SQL being run, or <code>null</code> to build it when it is needed
+   * @return the tables in lower case, or <code>null</code> if they are unknown
+   * @since 3.5.3
+   */
+  public Set<String> getTables(Object parameterObject, BoundSql boundSql) {
+    if (tables != null) {
+      return tables;
+    }
+    Set<String> parsed = parsedTables;
+    if (parsed == null) {
+      parsed = Collections.unmodifiableSet(
+          TableNameParser.parse((boundSql == null ? getBoundSql(parameterObject) : boundSql).getSql()));
+      if (sqlSource instanceof RawSqlSource || sqlSource instanceof StaticSqlSource) {
+        parsedTables = parsed;
+      }
+    }
+    return parsed.isEmpty() ? null : parsed;
+  }
+
   public BoundSql getBoundSql(Object parameterObject) {
     BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
@@ -333,4 +449,17 @@ public final class MappedStatement {
     }
   }
 
+  private static Set<String> delimitedStringToTableSet(String in) {
+    String[] names = delimitedStringToArray(in);
+    if (names == null) {
+      return null;
+    }
+    Set<String> set = new HashSet<>();
+    for (String name : names) {
+      set.add(name.trim().toLowerCase(Locale.ENGLISH));
+    }
+    return Collections.unmodifiableSet(set);
+  }
+
+
 }
@@ -0,0 +1,32 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+/**
+ * The data source on which a statement runs when read replicas are configured.
+ *
+ * @since 3.5.3
+ */
+public enum StatementRoute {
+  /**
+   * Runs the statement on the primary data source, even when it is a select.
+   */
+  PRIMARY,
+  /**
+   * Runs the select on a read replica, even when the session already wrote to the primary.
+   */
+  REPLICA
+}
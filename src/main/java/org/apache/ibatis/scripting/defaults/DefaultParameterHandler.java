@@ -65,6 +65,73 @@ public class DefaultParameterHandler implements ParameterHandler {
   @Override
   // 向PreparedStatement中设置参数
   public void setParameters(PreparedStatement ps) {
+    setParameters(ps, 0);
+  }
+
+  /**
+   * Sets the parameters of a statement that is a part of a larger statement.
+   *
+   * @param ps the statement
+   * @param offset the number of parameters of the statement that precede this one
+   * @since 3.5.3
+   */
+  public void setParameters(PreparedStatement ps, int offset) {
+    setParameters(ps, offset, getParameterValues());
+  }
+
+  /**
+   * Reads the current values of the parameters, so that they can be set later even if the parameter object changes.
+   *
+   * @return the values, one for each parameter mapping, <code>null</code> for the output parameters
+   * @since 3.5.3
+   */
+  public Object[] getParameterValues() {
+    ErrorContext.instance().activity("setting parameters").object(mappedStatement.getParameterMap().getId());
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    if (parameterMappings == null) {
+      return new Object[0];
+    }
+    Object[] values = new Object[parameterMappings.size()];
+    MetaObject metaObject = null;
+    for (int i = 0; i < parameterMappings.size(); i++) {
+      ParameterMapping parameterMapping = parameterMappings.get(i);
+      // 过滤掉存储过程中的输出参数
+      if (parameterMapping.getMode() != ParameterMode.OUT) {
+        Object value;
+        // 属性名 例如： insert user(id, name)
+        String propertyName = parameterMapping.getProperty();
+
+        // additionalParameters --> 动态sql,DynamicContext的bindings属性
+        if (boundSql.hasAdditionalParameter(propertyName)) { // issue #448 ask first for additional params
+          value = boundSql.getAdditionalParameter(propertyName);
+        } else if (parameterObject == null) {
+          // 用户传入的实参对象为null
+          value = null;
+        } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+          // parameterObject可能是单一值，如int、long
+          value = parameterObject;
+        } else {
+          // 使用metaObject来获取属性， 针对用户传入的实参对象，例如 user对象中name属性
+          if (metaObject == null) {
+            metaObject = configuration.newMetaObject(parameterObject);
+          }
+          value = metaObject.getValue(propertyName);
+        }
+        values[i] = value;
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Sets parameter values that were read earlier by {@link #getParameterValues()}.
+   *
+   * @param ps the statement
+   * @param offset the number of parameters of the statement that precede this one
+   * @param values the values of the parameters
+   * @since 3.5.3
+   */
+  public void setParameters(PreparedStatement ps, int offset, Object[] values) {
     ErrorContext.instance().activity("setting parameters").object(mappedStatement.getParameterMap().getId());
     // 获得boundSql中参数映射集合，其中每一个元素对应一个'?'
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
@@ -72,26 +139,8 @@ public class DefaultParameterHandler implements ParameterHandler {
       // 遍历
       for (int i = 0; i < parameterMappings.size(); i++) {
         ParameterMapping parameterMapping = parameterMappings.get(i);
-        // 过滤掉存储过程中的输出参数
         if (parameterMapping.getMode() != ParameterMode.OUT) {
-          Object value;
-          // 属性名 例如： insert user(id, name)
-          String propertyName = parameterMapping.getProperty();
-
-          // additionalParameters --> 动态sql,DynamicContext的bindings属性
-          if (boundSql.hasAdditionalParameter(propertyName)) { // issue #448 ask first for additional params
-            value = boundSql.getAdditionalParameter(propertyName);
-          } else if (parameterObject == null) {
-            // 用户传入的实参对象为null
-            value = null;
-          } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
-            // parameterObject可能是单一值，如int、long
-            value = parameterObject;
-          } else {
-            // 使用metaObject来获取属性， 针对用户传入的实参对象，例如 user对象中name属性
-            MetaObject metaObject = configuration.newMetaObject(parameterObject);
-            value = metaObject.getValue(propertyName);
-          }
+          Object value = values[i];
           // 获取属性的typeHandler、jdbcType
           TypeHandler typeHandler = parameterMapping.getTypeHandler();
           JdbcType jdbcType = parameterMapping.getJdbcType();
@@ -100,7 +149,7 @@ public class DefaultParameterHandler implements ParameterHandler {
           }
           try {
             // 使用typeHandler来设置参数
-            typeHandler.setParameter(ps, i + 1, value, jdbcType);
+            typeHandler.setParameter(ps, offset + i + 1, value, jdbcType);
           } catch (TypeException | SQLException e) {
             throw new TypeException("Could not set parameters for mapping: " + parameterMapping + ". Cause: " + e, e);
           }
@@ -0,0 +1,163 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import org.apache.ibatis.executor.BatchResult;
+
+/**
+ * Asynchronous view of a {@link SqlSession}.
+ * <p>
+ * The operations run on an {@link Executor}, by default the async executor of the {@link Configuration}, and
+ * complete the returned futures with their results. As a session is bound to one connection and one transaction,
+ * the operations of a session never run concurrently: they run one after the other, in the order they were
+ * submitted, and each operation sees the changes of the previous ones. An operation whose future was cancelled
+ * before it started is skipped.
+ * <p>
+ * The session must not be used synchronously while some of its operations are pending.
+ *
+ * @since 3.5.3
+ * @see SqlSession#getAsyncSession()
+ */
+public class AsyncSqlSession {
+
+  private final SqlSession sqlSession;
+
+  private final Executor executor;
+
+  // 上一个提交的操作，新的操作在其完成之后才执行
+  private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+  public AsyncSqlSession(SqlSession sqlSession) {
+    this(sqlSession, sqlSession.getConfiguration().getAsyncExecutor());
+  }
+
+  public AsyncSqlSession(SqlSession sqlSession, Executor executor) {
+    this.sqlSession = sqlSession;
+    this.executor = executor;
+  }
+
+  public SqlSession getSqlSession() {
+    return sqlSession;
+  }
+
+  /**
+   * Runs an operation on the session once the previously submitted operations are done.
+   * @param <T> the returned object type
+   * @param operation the operation
+   * @return a future completed with the result of the operation, or with the exception it threw
+   */
+  public <T> CompletableFuture<T> submit(Function<SqlSession, T> operation) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    CompletableFuture<Void> next;
+    synchronized (this) {
+      next = tail.handleAsync((ignored, previousError) -> {
+        // 前一个操作失败不影响后面的操作，由调用方通过各自的future处理
+        if (!result.isDone()) {
+          try {
+            result.complete(operation.apply(sqlSession));
+          } catch (Throwable t) {
+            result.completeExceptionally(t);
+          }
+        }
+        return null;
+      }, executor);
+      tail = next;
+    }
+    next.whenComplete((ignored, error) -> {
+      if (error != null) {
+        // the executor rejected the operation
+        result.completeExceptionally(error);
+      }
+    });
+    return result;
+  }
+
+  public <T> CompletableFuture<T> selectOne(String statement) {
+    return submit(session -> session.selectOne(statement));
+  }
+
+  public <T> CompletableFuture<T> selectOne(String statement, Object parameter) {
+    return submit(session -> session.selectOne(statement, parameter));
+  }
+
+  public <E> CompletableFuture<List<E>> selectList(String statement) {
+    return submit(session -> session.selectList(statement));
+  }
+
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter) {
+    return submit(session -> session.selectList(statement, parameter));
+  }
+
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    return submit(session -> session.selectList(statement, parameter, rowBounds));
+  }
+
+  public <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey) {
+    return submit(session -> session.selectMap(statement, parameter, mapKey));
+  }
+
+  public CompletableFuture<Integer> insert(String statement, Object parameter) {
+    return submit(session -> session.insert(statement, parameter));
+  }
+
+  public CompletableFuture<Integer> insertAll(String statement, Iterable<?> parameters) {
+    return submit(session -> session.insertAll(statement, parameters));
+  }
+
+  public CompletableFuture<Integer> update(String statement, Object parameter) {
+    return submit(session -> session.update(statement, parameter));
+  }
+
+  public CompletableFuture<Integer> delete(String statement, Object parameter) {
+    return submit(session -> session.delete(statement, parameter));
+  }
+
+  public CompletableFuture<List<BatchResult>> flushStatements() {
+    return submit(SqlSession::flushStatements);
+  }
+
+  public CompletableFuture<Void> commit() {
+    return submit(session -> {
+      session.commit();
+      return null;
+    });
+  }
+
+  public CompletableFuture<Void> rollback() {
+    return submit(session -> {
+      session.rollback();
+      return null;
+    });
+  }
+
+  /**
+   * Closes the session once the previously submitted operations are done.
+   * @return a future completed when the session is closed
+   */
+  public CompletableFuture<Void> close() {
+    return submit(session -> {
+      session.close();
+      return null;
+    });
+  }
+
+}
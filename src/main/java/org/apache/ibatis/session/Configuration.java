@@ -15,16 +15,24 @@
  */
 package org.apache.ibatis.session;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,10 +42,20 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheInvalidationTransport;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.CacheStats;
+import org.apache.ibatis.cache.CacheStatsCounter;
+import org.apache.ibatis.cache.SingleFlightRegistry;
+import org.apache.ibatis.cache.TableDependencyIndex;
+import org.apache.ibatis.cache.TransactionalCacheManager;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.ClockCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.JdkCacheSerializer;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
@@ -45,6 +63,7 @@ import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -52,8 +71,16 @@ import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.routing.ReadWriteExecutor;
+import org.apache.ibatis.executor.routing.ReplicaSelector;
+import org.apache.ibatis.executor.routing.RoundRobinReplicaSelector;
+import org.apache.ibatis.executor.sharding.ConcatResultMerger;
+import org.apache.ibatis.executor.sharding.ResultMerger;
+import org.apache.ibatis.executor.sharding.ShardedExecutor;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.resultset.MappingPlanCache;
+import org.apache.ibatis.executor.resultset.RowMapperCompiler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.io.VFS;
@@ -110,6 +137,14 @@ public class Configuration {
   protected boolean useGeneratedKeys;
   protected boolean useColumnLabel = true;
   protected boolean cacheEnabled = true;
+  protected boolean cacheSingleFlightEnabled;
+  protected boolean cacheTableInvalidationEnabled;
+  protected boolean multiStatementSelectsEnabled;
+  // selectMany是否在其他连接上并行执行
+  protected boolean parallelSelectsEnabled;
+  protected boolean rewriteBatchedInserts;
+  protected boolean compiledRowMappersEnabled;
+  protected boolean streamingNestedResultsEnabled;
   protected boolean callSettersOnNulls;
   protected boolean useActualParamName = true;
   protected boolean returnInstanceForEmptyRow;
@@ -121,7 +156,14 @@ public class Configuration {
   protected JdbcType jdbcTypeForNull = JdbcType.OTHER;
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
+  protected Integer cacheSingleFlightTimeout;
   protected Integer defaultFetchSize;
+  protected Integer defaultBatchSize;
+  protected Integer shardParallelism;
+  protected Long defaultBatchMaxBytes;
+  protected Integer rewriteBatchedInsertsMaxParameters = 1000;
+  protected Long rewriteBatchedInsertsMaxBytes;
+  protected Integer mappingPlanCacheSize;
   protected ResultSetType defaultResultSetType;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
@@ -134,6 +176,28 @@ public class Configuration {
 
   protected boolean lazyLoadingEnabled = false;
   protected ProxyFactory proxyFactory = new JavassistProxyFactory(); // #224 Using internal Javassist instead of OGNL
+  protected CacheSerializer cacheSerializer = new JdkCacheSerializer();
+  protected CacheInvalidationTransport cacheInvalidationTransport;
+  // 执行异步操作的线程池，没有配置时第一次使用时创建
+  protected volatile ExecutorService asyncExecutor;
+  // 默认异步线程池的最大线程数
+  protected int asyncExecutorPoolSize = 10;
+  // SHARDED executor依次在这些environment上执行语句
+  protected final List<Environment> shards = new ArrayList<>();
+  // statement id --> 合并各shard结果的merger
+  protected final Map<String, ResultMerger> resultMergers = new HashMap<>();
+  protected ResultMerger defaultResultMerger = new ConcatResultMerger();
+  // 配置了读库时，session的select在读库上执行
+  protected final List<Environment> replicas = new ArrayList<>();
+  protected ReplicaSelector replicaSelector = new RoundRobinReplicaSelector();
+  // 所有session共享，合并对同一个缓存key的并发未命中
+  protected final SingleFlightRegistry singleFlightRegistry = new SingleFlightRegistry();
+  // 所有session共享，记录二级缓存项依赖的表
+  protected final TableDependencyIndex tableDependencyIndex = new TableDependencyIndex();
+  // 所有session共享，保存生成的row mapper
+  protected final RowMapperCompiler rowMapperCompiler = new RowMapperCompiler(this);
+  // 所有session共享，保存根据结果集的列解析出的映射信息，没有配置mappingPlanCacheSize时为null
+  protected MappingPlanCache mappingPlanCache;
 
   protected String databaseId;
   /**
@@ -154,6 +218,9 @@ public class Configuration {
       .conflictMessageProducer((savedValue, targetValue) ->
           ". please check " + savedValue.getResource() + " and " + targetValue.getResource());
   protected final Map<String, Cache> caches = new StrictMap<>("Caches collection");
+  protected final Map<String, CacheStatsCounter> cacheStatsCounters = new StrictMap<>("Cache stats collection");
+  // 多个节点共享的缓存，写操作时整体清空
+  protected final Set<String> sharedCacheIds = new HashSet<>();
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
   protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
@@ -187,6 +254,8 @@ public class Configuration {
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
     typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+    typeAliasRegistry.registerAlias("CONCURRENT", ConcurrentCache.class);
+    typeAliasRegistry.registerAlias("CLOCK", ClockCache.class);
     typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
@@ -411,6 +480,359 @@ public class Configuration {
     this.cacheEnabled = cacheEnabled;
   }
 
+  public CacheSerializer getCacheSerializer() {
+    return cacheSerializer;
+  }
+
+  /**
+   * Sets the serializer used by the caches that do not declare their own serializer.
+   *
+   * @param cacheSerializer the serializer, or <code>null</code> to use the Java serialization
+   * @since 3.5.3
+   */
+  public void setCacheSerializer(CacheSerializer cacheSerializer) {
+    if (cacheSerializer == null) {
+      cacheSerializer = new JdkCacheSerializer();
+    }
+    this.cacheSerializer = cacheSerializer;
+  }
+
+  public CacheInvalidationTransport getCacheInvalidationTransport() {
+    return cacheInvalidationTransport;
+  }
+
+  /**
+   * Sets the transport that broadcasts the invalidations of the second level caches to the other nodes.
+   * When it is set, each cache keeps its entries in a local cache that drops the entries invalidated by other nodes.
+   *
+   * @param cacheInvalidationTransport the transport, or <code>null</code> to not broadcast invalidations
+   * @since 3.5.3
+   */
+  public void setCacheInvalidationTransport(CacheInvalidationTransport cacheInvalidationTransport) {
+    this.cacheInvalidationTransport = cacheInvalidationTransport;
+  }
+
+  /**
+   * @return the executor that runs the operations of the asynchronous sessions
+   * @since 3.5.3
+   */
+  public ExecutorService getAsyncExecutor() {
+    ExecutorService executor = asyncExecutor;
+    if (executor == null) {
+      synchronized (this) {
+        executor = asyncExecutor;
+        if (executor == null) {
+          ThreadPoolExecutor pool = new ThreadPoolExecutor(asyncExecutorPoolSize, asyncExecutorPoolSize,
+              60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new AsyncThreadFactory());
+          // 空闲的线程会退出，所以不需要关闭线程池
+          pool.allowCoreThreadTimeOut(true);
+          executor = pool;
+          asyncExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Sets the executor that runs the operations of the asynchronous sessions and of the mapper methods returning a
+   * {@link java.util.concurrent.CompletableFuture}. Without executor, the operations run on at most
+   * {@link #getAsyncExecutorPoolSize() asyncExecutorPoolSize} daemon threads that are created when needed and
+   * discarded after one idle minute, so the default executor never needs to be shut down. An executor set here is
+   * owned by the caller, who shuts it down when the configuration is no longer used.
+   *
+   * @param asyncExecutor the executor, or <code>null</code> to use the default one
+   * @since 3.5.3
+   */
+  public void setAsyncExecutor(ExecutorService asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  public int getAsyncExecutorPoolSize() {
+    return asyncExecutorPoolSize;
+  }
+
+  /**
+   * Sets the maximum number of threads of the default asynchronous executor. Operations submitted while all the threads
+   * are busy wait in a queue. It has no effect once the default executor has been created.
+   *
+   * @param asyncExecutorPoolSize the number of threads, 10 by default
+   * @since 3.5.3
+   */
+  public void setAsyncExecutorPoolSize(int asyncExecutorPoolSize) {
+    this.asyncExecutorPoolSize = asyncExecutorPoolSize;
+  }
+
+  /**
+   * @return the environments on which the {@link ExecutorType#SHARDED} executor runs the statements
+   * @since 3.5.3
+   */
+  public List<Environment> getShards() {
+    return shards;
+  }
+
+  /**
+   * Adds an environment on which the {@link ExecutorType#SHARDED} executor runs the statements.
+   *
+   * @param shard the environment of the shard
+   * @since 3.5.3
+   */
+  public void addShard(Environment shard) {
+    for (Environment environment : shards) {
+      if (environment.getId().equals(shard.getId())) {
+        throw new IllegalArgumentException("Shard " + shard.getId() + " is already added");
+      }
+    }
+    shards.add(shard);
+  }
+
+  /**
+   * @return the read replicas of the default environment
+   * @since 3.5.3
+   */
+  public List<Environment> getReplicas() {
+    return replicas;
+  }
+
+  /**
+   * Adds a read replica of the default environment. When replicas are added, the sessions run their selects on a
+   * replica until they write.
+   *
+   * @param replica the environment of the replica
+   * @since 3.5.3
+   */
+  public void addReplica(Environment replica) {
+    for (Environment environment : replicas) {
+      if (environment.getId().equals(replica.getId())) {
+        throw new IllegalArgumentException("Replica " + replica.getId() + " is already added");
+      }
+    }
+    replicas.add(replica);
+  }
+
+  public ReplicaSelector getReplicaSelector() {
+    return replicaSelector;
+  }
+
+  /**
+   * Sets how the sessions choose their read replica.
+   *
+   * @param replicaSelector the selector, or <code>null</code> to give the replicas to the sessions in turn
+   * @since 3.5.3
+   */
+  public void setReplicaSelector(ReplicaSelector replicaSelector) {
+    if (replicaSelector == null) {
+      replicaSelector = new RoundRobinReplicaSelector();
+    }
+    this.replicaSelector = replicaSelector;
+  }
+
+  public Integer getShardParallelism() {
+    return shardParallelism;
+  }
+
+  /**
+   * Sets the maximum number of shards on which the {@link ExecutorType#SHARDED} executor runs a statement at the same
+   * time.
+   *
+   * @param shardParallelism the number of shards, or <code>null</code> to run the statement on all shards at once
+   * @since 3.5.3
+   */
+  public void setShardParallelism(Integer shardParallelism) {
+    this.shardParallelism = shardParallelism;
+  }
+
+  /**
+   * Sets how the {@link ExecutorType#SHARDED} executor merges the results that the shards returned for a select.
+   *
+   * @param statementId the id of the select
+   * @param resultMerger the merger
+   * @since 3.5.3
+   */
+  public void addResultMerger(String statementId, ResultMerger resultMerger) {
+    resultMergers.put(statementId, resultMerger);
+  }
+
+  /**
+   * @param statementId the id of the select
+   * @return the merger of the select, or the default merger when none was added
+   * @since 3.5.3
+   */
+  public ResultMerger getResultMerger(String statementId) {
+    ResultMerger resultMerger = resultMergers.get(statementId);
+    return resultMerger == null ? defaultResultMerger : resultMerger;
+  }
+
+  public ResultMerger getDefaultResultMerger() {
+    return defaultResultMerger;
+  }
+
+  /**
+   * Sets how the results of the selects without merger are merged. The results of the shards are concatenated by
+   * default.
+   *
+   * @param defaultResultMerger the merger
+   * @since 3.5.3
+   */
+  public void setDefaultResultMerger(ResultMerger defaultResultMerger) {
+    this.defaultResultMerger = defaultResultMerger;
+  }
+
+  public boolean isCompiledRowMappersEnabled() {
+    return compiledRowMappersEnabled;
+  }
+
+  /**
+   * Sets whether the rows of the result maps without nested result maps or nested selects are mapped by classes
+   * generated with Javassist, which read the columns by index and call the constructors and setters directly.
+   * The result maps that cannot be compiled are mapped by reflection.
+   *
+   * @param compiledRowMappersEnabled <code>true</code> to generate row mappers
+   * @since 3.5.3
+   */
+  public void setCompiledRowMappersEnabled(boolean compiledRowMappersEnabled) {
+    this.compiledRowMappersEnabled = compiledRowMappersEnabled;
+  }
+
+  /**
+   * @return the compiler of the row mappers, which keeps the generated mappers
+   * @since 3.5.3
+   */
+  public RowMapperCompiler getRowMapperCompiler() {
+    return rowMapperCompiler;
+  }
+
+  public boolean isStreamingNestedResultsEnabled() {
+    return streamingNestedResultsEnabled;
+  }
+
+  /**
+   * Sets whether the results of nested result maps read through a {@link org.apache.ibatis.cursor.Cursor} or passed
+   * to a {@link ResultHandler} are mapped as ordered results, as if the statements were declared with
+   * <code>resultOrdered="true"</code>. Each root object is then returned as soon as a row of another root object is
+   * read, and the nested objects kept to map its rows are released, so the memory used does not grow with the number
+   * of rows. The rows of a root object must be consecutive.
+   *
+   * @param streamingNestedResultsEnabled <code>true</code> to stream the nested results
+   * @since 3.5.3
+   */
+  public void setStreamingNestedResultsEnabled(boolean streamingNestedResultsEnabled) {
+    this.streamingNestedResultsEnabled = streamingNestedResultsEnabled;
+  }
+
+  public Integer getMappingPlanCacheSize() {
+    return mappingPlanCacheSize;
+  }
+
+  /**
+   * Sets how many mapping plans are kept across queries. A mapping plan is what is resolved from the columns of the
+   * result sets of a statement: the column indexes, the type handlers, the mapped and unmapped columns of each result
+   * map and the automatic mappings. Plans are reused only for result sets with the same columns.
+   *
+   * @param mappingPlanCacheSize the maximum number of plans, or <code>null</code> to resolve the columns of each
+   *     result set again
+   * @since 3.5.3
+   */
+  public void setMappingPlanCacheSize(Integer mappingPlanCacheSize) {
+    this.mappingPlanCacheSize = mappingPlanCacheSize;
+    this.mappingPlanCache = mappingPlanCacheSize == null ? null : new MappingPlanCache(mappingPlanCacheSize);
+  }
+
+  /**
+   * @return the cache of the mapping plans, or <code>null</code> if the plans are not kept across queries
+   * @since 3.5.3
+   */
+  public MappingPlanCache getMappingPlanCache() {
+    return mappingPlanCache;
+  }
+
+  public boolean isCacheSingleFlightEnabled() {
+    return cacheSingleFlightEnabled;
+  }
+
+  /**
+   * Sets whether concurrent misses of the same second level cache key are coalesced, so that only one session
+   * queries the database while the other ones wait for its commit.
+   *
+   * @param cacheSingleFlightEnabled <code>true</code> to coalesce concurrent misses
+   * @since 3.5.3
+   */
+  public void setCacheSingleFlightEnabled(boolean cacheSingleFlightEnabled) {
+    this.cacheSingleFlightEnabled = cacheSingleFlightEnabled;
+  }
+
+  public Integer getCacheSingleFlightTimeout() {
+    return cacheSingleFlightTimeout;
+  }
+
+  /**
+   * Sets the maximum time a session waits for another session loading the same cache key.
+   *
+   * @param cacheSingleFlightTimeout the timeout in milliseconds, or <code>null</code> to wait
+   *          {@link SingleFlightRegistry#DEFAULT_TIMEOUT}
+   * @since 3.5.3
+   */
+  public void setCacheSingleFlightTimeout(Integer cacheSingleFlightTimeout) {
+    this.cacheSingleFlightTimeout = cacheSingleFlightTimeout;
+  }
+
+  public SingleFlightRegistry getSingleFlightRegistry() {
+    return singleFlightRegistry;
+  }
+
+  public boolean isCacheTableInvalidationEnabled() {
+    return cacheTableInvalidationEnabled;
+  }
+
+  /**
+   * Sets whether a write only invalidates the second level cache entries read from the tables it touched,
+   * instead of clearing the whole cache of its namespace.
+   *
+   * @param cacheTableInvalidationEnabled <code>true</code> to invalidate by table
+   * @since 3.5.3
+   */
+  public void setCacheTableInvalidationEnabled(boolean cacheTableInvalidationEnabled) {
+    this.cacheTableInvalidationEnabled = cacheTableInvalidationEnabled;
+  }
+
+  public boolean isMultiStatementSelectsEnabled() {
+    return multiStatementSelectsEnabled;
+  }
+
+  /**
+   * Sets whether the selects run together by {@link SqlSession#selectMany(List)} are sent as a single statement made
+   * of their SQL separated by semicolons. Only enable it when the driver accepts several statements in one execution
+   * and returns their result sets one after the other.
+   *
+   * @param multiStatementSelectsEnabled <code>true</code> to combine the selects
+   * @since 3.5.3
+   */
+  public void setMultiStatementSelectsEnabled(boolean multiStatementSelectsEnabled) {
+    this.multiStatementSelectsEnabled = multiStatementSelectsEnabled;
+  }
+
+  public boolean isParallelSelectsEnabled() {
+    return parallelSelectsEnabled;
+  }
+
+  /**
+   * Sets whether the selects run together by {@link SqlSession#selectMany(List)} run in parallel when they can not be
+   * combined and the session has no uncommitted changes. Each select then runs in its own auto-commit session, on its
+   * own connection of the default environment: it does not see the transaction, isolation level, executor type or
+   * connection of the calling session, and the selects may read different snapshots of the database. The calling
+   * session keeps its connection meanwhile, so the data source must provide one more connection per select.
+   *
+   * @param parallelSelectsEnabled <code>true</code> to run the selects in parallel
+   * @since 3.5.3
+   */
+  public void setParallelSelectsEnabled(boolean parallelSelectsEnabled) {
+    this.parallelSelectsEnabled = parallelSelectsEnabled;
+  }
+
+  public TableDependencyIndex getTableDependencyIndex() {
+    return tableDependencyIndex;
+  }
+
   public Integer getDefaultStatementTimeout() {
     return defaultStatementTimeout;
   }
@@ -433,6 +855,85 @@ public class Configuration {
     this.defaultFetchSize = defaultFetchSize;
   }
 
+  /**
+   * @since 3.5.3
+   */
+  public Integer getDefaultBatchSize() {
+    return defaultBatchSize;
+  }
+
+  /**
+   * Sets the number of rows after which a batch executor executes the batch of a statement,
+   * unless the statement sets its own batchSize.
+   *
+   * @param defaultBatchSize the batch size, or <code>null</code> to execute the batches only when they are flushed
+   * @since 3.5.3
+   */
+  public void setDefaultBatchSize(Integer defaultBatchSize) {
+    this.defaultBatchSize = defaultBatchSize;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public Long getDefaultBatchMaxBytes() {
+    return defaultBatchMaxBytes;
+  }
+
+  /**
+   * Sets the estimated bytes of parameters after which a batch executor executes its pending batches,
+   * unless the statement sets its own batchMaxBytes.
+   *
+   * @param defaultBatchMaxBytes the maximum bytes, or <code>null</code> for no limit
+   * @since 3.5.3
+   */
+  public void setDefaultBatchMaxBytes(Long defaultBatchMaxBytes) {
+    this.defaultBatchMaxBytes = defaultBatchMaxBytes;
+  }
+
+  public boolean isRewriteBatchedInserts() {
+    return rewriteBatchedInserts;
+  }
+
+  /**
+   * Sets whether the batch executors send the batched rows of a single row insert as multi-row inserts,
+   * such as {@code INSERT INTO t (a, b) VALUES (?, ?), (?, ?)}, instead of a JDBC batch.
+   *
+   * @param rewriteBatchedInserts <code>true</code> to rewrite the batched inserts
+   * @since 3.5.3
+   */
+  public void setRewriteBatchedInserts(boolean rewriteBatchedInserts) {
+    this.rewriteBatchedInserts = rewriteBatchedInserts;
+  }
+
+  public Integer getRewriteBatchedInsertsMaxParameters() {
+    return rewriteBatchedInsertsMaxParameters;
+  }
+
+  /**
+   * Sets the maximum number of parameters of a rewritten multi-row insert.
+   *
+   * @param rewriteBatchedInsertsMaxParameters the maximum parameters, or <code>null</code> for no limit
+   * @since 3.5.3
+   */
+  public void setRewriteBatchedInsertsMaxParameters(Integer rewriteBatchedInsertsMaxParameters) {
+    this.rewriteBatchedInsertsMaxParameters = rewriteBatchedInsertsMaxParameters;
+  }
+
+  public Long getRewriteBatchedInsertsMaxBytes() {
+    return rewriteBatchedInsertsMaxBytes;
+  }
+
+  /**
+   * Sets the maximum estimated size of the parameters of a rewritten multi-row insert.
+   *
+   * @param rewriteBatchedInsertsMaxBytes the maximum bytes, or <code>null</code> for no limit
+   * @since 3.5.3
+   */
+  public void setRewriteBatchedInsertsMaxBytes(Long rewriteBatchedInsertsMaxBytes) {
+    this.rewriteBatchedInsertsMaxBytes = rewriteBatchedInsertsMaxBytes;
+  }
+
   /**
    * @since 3.5.2
    */
@@ -600,22 +1101,69 @@ public class Configuration {
   }
 
   public Executor newExecutor(Transaction transaction, ExecutorType executorType) {
+    // the statements stay in the given transaction, even the selects
+    return newExecutor(transaction, executorType, null, false, false);
+  }
+
+  /**
+   * Creates the executor of a session. When read replicas are added, the selects of the session run on a replica
+   * until the session writes.
+   *
+   * @param transaction the transaction of the default environment
+   * @param executorType the type of executor
+   * @param level the isolation level of the shard and replica transactions
+   * @param autoCommit the auto commit mode of the shard and replica transactions
+   * @return the executor
+   * @since 3.5.3
+   */
+  public Executor newExecutor(Transaction transaction, ExecutorType executorType, TransactionIsolationLevel level,
+      boolean autoCommit) {
+    return newExecutor(transaction, executorType, level, autoCommit, true);
+  }
+
+  private Executor newExecutor(Transaction transaction, ExecutorType executorType, TransactionIsolationLevel level,
+      boolean autoCommit, boolean routeSelects) {
     // 默认创建simpleExecutor，但内部都会使用RoutingStatementHandler（策略模式）
     executorType = executorType == null ? defaultExecutorType : executorType;
     executorType = executorType == null ? ExecutorType.SIMPLE : executorType;
     Executor executor;
     if (ExecutorType.BATCH == executorType) {
       executor = new BatchExecutor(this, transaction);
+    } else if (ExecutorType.REORDERING_BATCH == executorType) {
+      // 交错执行的语句也合并到各自的statement中批量执行
+      executor = new BatchExecutor(this, transaction, true);
     } else if (ExecutorType.REUSE == executorType) {
       // 重用statement对象，减少预编译时间
       executor = new ReuseExecutor(this, transaction);
+    } else if (ExecutorType.SHARDED == executorType) {
+      // 每个shard一个SimpleExecutor，在各自的事务中执行
+      if (shards.isEmpty()) {
+        throw new ExecutorException("The SHARDED executor requires at least one shard.");
+      }
+      Map<String, Executor> shardExecutors = new LinkedHashMap<>();
+      for (Environment shard : shards) {
+        Transaction shardTransaction = shard.getTransactionFactory().newTransaction(shard.getDataSource(), level, autoCommit);
+        shardExecutors.put(shard.getId(), new SimpleExecutor(this, shardTransaction));
+      }
+      executor = new ShardedExecutor(this, transaction, shardExecutors);
     } else {
       executor = new SimpleExecutor(this, transaction);
     }
+    // 配置了读库时，select在读库上执行，写操作以及写之后的select在主库上执行
+    if (routeSelects && !replicas.isEmpty() && ExecutorType.SHARDED != executorType) {
+      executor = new ReadWriteExecutor(this, executor, level, autoCommit);
+    }
     // 在mybatis-config.xml中setting标签中开启二级缓存，
     // 则会使用cachingExecuotr来装饰executor来实现二级缓存
     if (cacheEnabled) {
-      executor = new CachingExecutor(executor);
+      if (cacheSingleFlightEnabled || cacheTableInvalidationEnabled) {
+        long timeout = cacheSingleFlightTimeout == null ? SingleFlightRegistry.DEFAULT_TIMEOUT : cacheSingleFlightTimeout;
+        executor = new CachingExecutor(executor, new TransactionalCacheManager(
+            cacheSingleFlightEnabled ? singleFlightRegistry : null, timeout,
+            cacheTableInvalidationEnabled ? tableDependencyIndex : null));
+      } else {
+        executor = new CachingExecutor(executor);
+      }
     }
     // 应用所有插件, 创建executor代理对象
     executor = (Executor) interceptorChain.pluginAll(executor);
@@ -662,6 +1210,59 @@ public class Configuration {
     return caches.containsKey(id);
   }
 
+  /**
+   * Adds a cache together with the counter its decorators record their statistics in.
+   *
+   * @param cache the cache
+   * @param statsCounter the counter of the cache
+   * @since 3.5.3
+   */
+  public void addCache(Cache cache, CacheStatsCounter statsCounter) {
+    addCache(cache);
+    cacheStatsCounters.put(cache.getId(), statsCounter);
+  }
+
+  /**
+   * Marks a cache as shared by several nodes, through a remote cache or a {@link CacheInvalidationTransport}.
+   * Writes clear such a cache as a whole even when {@link #isCacheTableInvalidationEnabled()}, as the tables its
+   * entries depend on are only known by the node that cached them.
+   *
+   * @param id the id of the cache
+   * @since 3.5.3
+   */
+  public void addSharedCacheId(String id) {
+    sharedCacheIds.add(id);
+  }
+
+  /**
+   * @param id the id of the cache
+   * @return <code>true</code> if the cache is shared by several nodes
+   * @since 3.5.3
+   */
+  public boolean isSharedCache(String id) {
+    return sharedCacheIds.contains(id);
+  }
+
+  public CacheStatsCounter getCacheStatsCounter(String id) {
+    return cacheStatsCounters.containsKey(id) ? cacheStatsCounters.get(id) : null;
+  }
+
+  /**
+   * Gets the current statistics of a cache.
+   *
+   * @param id the id of the cache, that is the namespace that declared it
+   * @return the statistics, or <code>null</code> if the cache was not built by MyBatis
+   * @since 3.5.3
+   */
+  public CacheStats getCacheStats(String id) {
+    CacheStatsCounter statsCounter = getCacheStatsCounter(id);
+    if (statsCounter == null) {
+      return null;
+    }
+    Cache cache = caches.get(id);
+    return statsCounter.snapshot(cache.getId(), cache.getSize());
+  }
+
   public void addResultMap(ResultMap rm) {
     resultMaps.put(rm.getId(), rm);
     checkLocallyForDiscriminatedNestedResultMaps(rm);
@@ -1001,4 +1602,20 @@ public class Configuration {
     }
   }
 
+  private static class AsyncThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger poolNumber = new AtomicInteger();
+
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    private final String namePrefix = "mybatis-async-" + poolNumber.incrementAndGet() + "-";
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
 }
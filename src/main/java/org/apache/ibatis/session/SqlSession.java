@@ -17,11 +17,13 @@ package org.apache.ibatis.session;
 
 import java.io.Closeable;
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.BatchResultHandler;
 
 /**
  * The primary Java interface for working with MyBatis.
@@ -78,6 +80,23 @@ public interface SqlSession extends Closeable {
    */
   <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * Runs several independent selects and returns the result list of each one.
+   * When {@code multiStatementSelectsEnabled} is set, they are sent to the database in a single execution.
+   * Otherwise, they run one after the other on this session, unless {@code parallelSelectsEnabled} is set
+   * and the session has no uncommitted changes: they then run in parallel, outside of this session's transaction.
+   * @param calls the selects and their parameters
+   * @return the result list of each select, in the same order as the calls
+   * @since 3.5.3
+   */
+  default List<List<Object>> selectMany(List<StatementCall> calls) {
+    List<List<Object>> results = new ArrayList<>(calls.size());
+    for (StatementCall call : calls) {
+      results.add(selectList(call.getStatement(), call.getParameter()));
+    }
+    return results;
+  }
+
   /**
    * The selectMap is a special case in that it is designed to convert a list
    * of results into a Map based on one of the properties in the resulting
@@ -188,6 +207,24 @@ public interface SqlSession extends Closeable {
    */
   int insert(String statement, Object parameter);
 
+  /**
+   * Execute an insert statement once for each parameter object, reading them one at a time, so that rows can be
+   * copied from a {@link org.apache.ibatis.cursor.Cursor} with constant memory. The inserts are executed as JDBC
+   * batches of <code>batchSize</code> rows. Any generated autoincrement values or selectKey entries will modify
+   * the parameter objects. Sessions that do not batch inserts execute them one at a time.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameters The parameter objects, for example a cursor or <code>stream::iterator</code>.
+   * @return int The number of rows affected by the inserts, as reported by the driver.
+   * @since 3.5.3
+   */
+  default int insertAll(String statement, Iterable<?> parameters) {
+    int inserted = 0;
+    for (Object parameter : parameters) {
+      inserted += insert(statement, parameter);
+    }
+    return inserted;
+  }
+
   /**
    * Execute an update statement. The number of rows affected will be returned.
    * @param statement Unique identifier matching the statement to execute.
@@ -252,6 +289,28 @@ public interface SqlSession extends Closeable {
    */
   List<BatchResult> flushStatements();
 
+  /**
+   * Sets the handler of the batches that are executed before the statements are flushed,
+   * when a statement reaches its batchSize or the pending batches reach their batchMaxBytes.
+   * Without a handler, their results are returned by the next {@link #flushStatements()}.
+   * Sessions that do not batch statements do not support it.
+   * @param batchResultHandler the handler, or <code>null</code>
+   * @since 3.5.3
+   */
+  default void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    throw new UnsupportedOperationException("This session does not support batch result handlers");
+  }
+
+  /**
+   * Returns the asynchronous view of this session, whose operations run one after the other
+   * on the async executor of the configuration.
+   * @return the asynchronous session
+   * @since 3.5.3
+   */
+  default AsyncSqlSession getAsyncSession() {
+    return new AsyncSqlSession(this);
+  }
+
   /**
    * Closes the session.
    */
@@ -27,6 +27,7 @@ import java.util.Properties;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.BatchResultHandler;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
 /**
@@ -216,6 +217,11 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.selectList(statement, parameter, rowBounds);
   }
 
+  @Override
+  public List<List<Object>> selectMany(List<StatementCall> calls) {
+    return sqlSessionProxy.selectMany(calls);
+  }
+
   @Override
   public void select(String statement, ResultHandler handler) {
     sqlSessionProxy.select(statement, handler);
@@ -241,6 +247,11 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.insert(statement, parameter);
   }
 
+  @Override
+  public int insertAll(String statement, Iterable<?> parameters) {
+    return sqlSessionProxy.insertAll(statement, parameters);
+  }
+
   @Override
   public int update(String statement) {
     return sqlSessionProxy.update(statement);
@@ -329,6 +340,25 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSession.flushStatements();
   }
 
+  @Override
+  public void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    final SqlSession sqlSession = localSqlSession.get();
+    if (sqlSession == null) {
+      throw new SqlSessionException("Error:  Cannot set batch result handler.  No managed session is started.");
+    }
+    sqlSession.setBatchResultHandler(batchResultHandler);
+  }
+
+  @Override
+  public AsyncSqlSession getAsyncSession() {
+    final SqlSession sqlSession = localSqlSession.get();
+    if (sqlSession == null) {
+      // 没有托管的session时，每个操作都在自己的session中执行
+      return new AsyncSqlSession(sqlSessionProxy, getConfiguration().getAsyncExecutor());
+    }
+    return sqlSession.getAsyncSession();
+  }
+
   @Override
   public void close() {
     final SqlSession sqlSession = localSqlSession.get();
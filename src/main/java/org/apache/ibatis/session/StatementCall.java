@@ -0,0 +1,55 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * A select to run with {@link SqlSession#selectMany(java.util.List)}.
+ *
+ * @since 3.5.3
+ */
+public final class StatementCall {
+
+  private final String statement;
+
+  private final Object parameter;
+
+  private StatementCall(String statement, Object parameter) {
+    this.statement = statement;
+    this.parameter = parameter;
+  }
+
+  public static StatementCall of(String statement) {
+    return new StatementCall(statement, null);
+  }
+
+  public static StatementCall of(String statement, Object parameter) {
+    return new StatementCall(statement, parameter);
+  }
+
+  public String getStatement() {
+    return statement;
+  }
+
+  public Object getParameter() {
+    return parameter;
+  }
+
+  @Override
+  public String toString() {
+    return statement + "(" + parameter + ")";
+  }
+
+}
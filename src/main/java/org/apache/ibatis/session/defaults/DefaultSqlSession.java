@@ -21,23 +21,31 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.ibatis.binding.BindingException;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.BatchResultHandler;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.AsyncSqlSession;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.StatementCall;
 
 /**
  * The default implementation for {@link SqlSession}.
@@ -61,6 +69,8 @@ public class DefaultSqlSession implements SqlSession {
   private boolean dirty;
   // 为防止用户忘记关闭已打开的游标对象，在调用close()方法时，会遍历cursorList，依次关闭这些游标对象
   private List<Cursor<?>> cursorList;
+  // 异步视图，第一次使用时创建
+  private AsyncSqlSession asyncSqlSession;
 
   public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
     this.configuration = configuration;
@@ -160,6 +170,49 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public List<List<Object>> selectMany(List<StatementCall> calls) {
+    if (calls.size() > 1 && !dirty && configuration.isParallelSelectsEnabled()
+        && !configuration.isMultiStatementSelectsEnabled()) {
+      // 不能合并执行时，在其他连接上并行执行，不在当前session的事务中
+      return selectInParallel(calls);
+    }
+    try {
+      List<MappedStatement> mappedStatements = new ArrayList<>(calls.size());
+      List<Object> parameters = new ArrayList<>(calls.size());
+      for (StatementCall call : calls) {
+        mappedStatements.add(configuration.getMappedStatement(call.getStatement()));
+        parameters.add(wrapCollection(call.getParameter()));
+      }
+      return executor.queryMany(mappedStatements, parameters);
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  private List<List<Object>> selectInParallel(List<StatementCall> calls) {
+    SqlSessionFactory sqlSessionFactory = new DefaultSqlSessionFactory(configuration);
+    List<CompletableFuture<List<Object>>> futures = new ArrayList<>(calls.size());
+    for (StatementCall call : calls) {
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SIMPLE, true)) {
+          return sqlSession.selectList(call.getStatement(), call.getParameter());
+        }
+      }, configuration.getAsyncExecutor()));
+    }
+    List<List<Object>> results = new ArrayList<>(calls.size());
+    for (CompletableFuture<List<Object>> future : futures) {
+      try {
+        results.add(future.join());
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+      }
+    }
+    return results;
+  }
+
   @Override
   public void select(String statement, Object parameter, ResultHandler handler) {
     select(statement, parameter, RowBounds.DEFAULT, handler);
@@ -192,6 +245,34 @@ public class DefaultSqlSession implements SqlSession {
     return update(statement, parameter);
   }
 
+  @Override
+  public int insertAll(String statement, Iterable<?> parameters) {
+    try {
+      dirty = true;
+      MappedStatement ms = configuration.getMappedStatement(statement);
+      // 逐个包装参数，不预先读取所有参数
+      Iterable<Object> wrapped = () -> {
+        Iterator<?> iterator = parameters.iterator();
+        return new Iterator<Object>() {
+          @Override
+          public boolean hasNext() {
+            return iterator.hasNext();
+          }
+
+          @Override
+          public Object next() {
+            return wrapCollection(iterator.next());
+          }
+        };
+      };
+      return executor.updateAll(ms, wrapped);
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error updating database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
   @Override
   public int update(String statement) {
     return update(statement, null);
@@ -265,6 +346,19 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    executor.setBatchResultHandler(batchResultHandler);
+  }
+
+  @Override
+  public AsyncSqlSession getAsyncSession() {
+    if (asyncSqlSession == null) {
+      asyncSqlSession = new AsyncSqlSession(this);
+    }
+    return asyncSqlSession;
+  }
+
   @Override
   public void close() {
     try {
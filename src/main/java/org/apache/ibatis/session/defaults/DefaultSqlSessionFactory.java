@@ -100,7 +100,7 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
       final TransactionFactory transactionFactory = getTransactionFactoryFromEnvironment(environment);
       // 创建新事务
       tx = transactionFactory.newTransaction(environment.getDataSource(), level, autoCommit);
-      final Executor executor = configuration.newExecutor(tx, execType);
+      final Executor executor = configuration.newExecutor(tx, execType, level, autoCommit);
       // 创建defaultSqlSession对象
       return new DefaultSqlSession(configuration, executor, autoCommit);
     } catch (Exception e) {
@@ -127,6 +127,7 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
       final TransactionFactory transactionFactory = getTransactionFactoryFromEnvironment(environment);
       // 根据事务工厂来创建事务
       final Transaction tx = transactionFactory.newTransaction(connection);
+      // 语句都在给定的connection上执行，不路由到读库
       final Executor executor = configuration.newExecutor(tx, execType);
       // 创建defaultSqlSession对象
       return new DefaultSqlSession(configuration, executor, autoCommit);
@@ -25,10 +25,15 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.ibatis.builder.mapper.CustomMapper;
 import org.apache.ibatis.builder.typehandler.CustomIntegerTypeHandler;
 import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.cache.impl.CompactCacheSerializer;
+import org.apache.ibatis.cache.impl.JdkCacheSerializer;
+import org.apache.ibatis.cache.impl.LoopbackInvalidationTransport;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Blog;
@@ -37,6 +42,8 @@ import org.apache.ibatis.domain.blog.mappers.NestedBlogMapper;
 import org.apache.ibatis.domain.jpetstore.Cart;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.routing.LeastBusyReplicaSelector;
+import org.apache.ibatis.executor.routing.RoundRobinReplicaSelector;
 import org.apache.ibatis.io.JBoss6VFS;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.logging.slf4j.Slf4jImpl;
@@ -78,6 +85,21 @@ class XmlConfigBuilderTest {
       assertThat(config.getAutoMappingBehavior()).isEqualTo(AutoMappingBehavior.PARTIAL);
       assertThat(config.getAutoMappingUnknownColumnBehavior()).isEqualTo(AutoMappingUnknownColumnBehavior.NONE);
       assertThat(config.isCacheEnabled()).isTrue();
+      assertThat(config.getCacheSerializer()).isInstanceOf(JdkCacheSerializer.class);
+      assertThat(config.getCacheInvalidationTransport()).isNull();
+      assertThat(config.isCacheSingleFlightEnabled()).isFalse();
+      assertThat(config.getCacheSingleFlightTimeout()).isNull();
+      assertThat(config.isCacheTableInvalidationEnabled()).isFalse();
+      assertThat(config.isMultiStatementSelectsEnabled()).isFalse();
+      assertThat(config.isParallelSelectsEnabled()).isFalse();
+      assertThat(config.isCompiledRowMappersEnabled()).isFalse();
+      assertThat(config.isStreamingNestedResultsEnabled()).isFalse();
+      assertThat(config.getMappingPlanCacheSize()).isNull();
+      assertThat(config.getMappingPlanCache()).isNull();
+      assertThat(config.getShardParallelism()).isNull();
+      assertThat(config.getShards()).isEmpty();
+      assertThat(config.getReplicas()).isEmpty();
+      assertThat(config.getReplicaSelector()).isInstanceOf(RoundRobinReplicaSelector.class);
       assertThat(config.getProxyFactory()).isInstanceOf(JavassistProxyFactory.class);
       assertThat(config.isLazyLoadingEnabled()).isFalse();
       assertThat(config.isAggressiveLazyLoading()).isFalse();
@@ -85,8 +107,16 @@ class XmlConfigBuilderTest {
       assertThat(config.isUseColumnLabel()).isTrue();
       assertThat(config.isUseGeneratedKeys()).isFalse();
       assertThat(config.getDefaultExecutorType()).isEqualTo(ExecutorType.SIMPLE);
+      assertThat(config.getAsyncExecutor()).isInstanceOf(ThreadPoolExecutor.class);
+      assertThat(((ThreadPoolExecutor) config.getAsyncExecutor()).getMaximumPoolSize()).isEqualTo(10);
+      assertThat(config.getAsyncExecutorPoolSize()).isEqualTo(10);
       assertNull(config.getDefaultStatementTimeout());
       assertNull(config.getDefaultFetchSize());
+      assertNull(config.getDefaultBatchSize());
+      assertNull(config.getDefaultBatchMaxBytes());
+      assertThat(config.isRewriteBatchedInserts()).isFalse();
+      assertThat(config.getRewriteBatchedInsertsMaxParameters()).isEqualTo(1000);
+      assertNull(config.getRewriteBatchedInsertsMaxBytes());
       assertNull(config.getDefaultResultSetType());
       assertThat(config.isMapUnderscoreToCamelCase()).isFalse();
       assertThat(config.isSafeRowBoundsEnabled()).isFalse();
@@ -172,6 +202,19 @@ class XmlConfigBuilderTest {
       assertThat(config.getAutoMappingBehavior()).isEqualTo(AutoMappingBehavior.NONE);
       assertThat(config.getAutoMappingUnknownColumnBehavior()).isEqualTo(AutoMappingUnknownColumnBehavior.WARNING);
       assertThat(config.isCacheEnabled()).isFalse();
+      assertThat(config.getCacheSerializer()).isInstanceOf(CompactCacheSerializer.class);
+      assertThat(config.getCacheInvalidationTransport()).isInstanceOf(LoopbackInvalidationTransport.class);
+      assertThat(config.isCacheSingleFlightEnabled()).isTrue();
+      assertThat(config.getCacheSingleFlightTimeout()).isEqualTo(500);
+      assertThat(config.isCacheTableInvalidationEnabled()).isTrue();
+      assertThat(config.isMultiStatementSelectsEnabled()).isTrue();
+      assertThat(config.isParallelSelectsEnabled()).isTrue();
+      assertThat(config.isCompiledRowMappersEnabled()).isTrue();
+      assertThat(config.isStreamingNestedResultsEnabled()).isTrue();
+      assertThat(config.getMappingPlanCacheSize()).isEqualTo(256);
+      assertThat(config.getMappingPlanCache()).isNotNull();
+      assertThat(config.getShardParallelism()).isEqualTo(4);
+      assertThat(config.getReplicaSelector()).isInstanceOf(LeastBusyReplicaSelector.class);
       assertThat(config.getProxyFactory()).isInstanceOf(CglibProxyFactory.class);
       assertThat(config.isLazyLoadingEnabled()).isTrue();
       assertThat(config.isAggressiveLazyLoading()).isTrue();
@@ -179,8 +222,15 @@ class XmlConfigBuilderTest {
       assertThat(config.isUseColumnLabel()).isFalse();
       assertThat(config.isUseGeneratedKeys()).isTrue();
       assertThat(config.getDefaultExecutorType()).isEqualTo(ExecutorType.BATCH);
+      assertThat(config.getAsyncExecutor()).isInstanceOf(ForkJoinPool.class);
+      assertThat(config.getAsyncExecutorPoolSize()).isEqualTo(4);
       assertThat(config.getDefaultStatementTimeout()).isEqualTo(10);
       assertThat(config.getDefaultFetchSize()).isEqualTo(100);
+      assertThat(config.getDefaultBatchSize()).isEqualTo(1000);
+      assertThat(config.getDefaultBatchMaxBytes()).isEqualTo(1048576L);
+      assertThat(config.isRewriteBatchedInserts()).isTrue();
+      assertThat(config.getRewriteBatchedInsertsMaxParameters()).isEqualTo(2000);
+      assertThat(config.getRewriteBatchedInsertsMaxBytes()).isEqualTo(65536L);
       assertThat(config.getDefaultResultSetType()).isEqualTo(ResultSetType.SCROLL_INSENSITIVE);
       assertThat(config.isMapUnderscoreToCamelCase()).isTrue();
       assertThat(config.isSafeRowBoundsEnabled()).isTrue();
@@ -25,7 +25,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.util.Date;
+import java.util.List;
 
 class CacheKeyTest {
 
@@ -87,6 +89,33 @@ class CacheKeyTest {
     assertEquals(key1, key2);
   }
 
+  @Test
+  void shouldTestCacheKeysEqualRegardlessOfInitialCapacity() {
+    CacheKey key1 = new CacheKey(1);
+    CacheKey key2 = new CacheKey(20);
+    for (int i = 0; i < 20; i++) {
+      key1.update(i);
+      key2.update(i);
+    }
+    assertEquals(20, key1.getUpdateCount());
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertEquals(key1.toString(), key2.toString());
+  }
+
+  @Test
+  void shouldNotShareUpdatesWithClone() throws Exception {
+    CacheKey key = new CacheKey(new Object[] { 1, "hello" });
+    CacheKey clone = key.clone();
+    assertEquals(key, clone);
+    clone.update("world");
+    key.update("again");
+    assertEquals(3, clone.getUpdateCount());
+    assertNotEquals(key, clone);
+    assertEquals(new CacheKey(new Object[] { 1, "hello", "world" }), clone);
+    assertEquals(new CacheKey(new Object[] { 1, "hello", "again" }), key);
+  }
+
   @Test
   void serializationExceptionTest() {
     CacheKey cacheKey = new CacheKey();
@@ -103,6 +132,21 @@ class CacheKeyTest {
     Assertions.assertEquals(cacheKey, serialize(cacheKey));
   }
 
+  @Test
+  void shouldKeepSerialFormOfPreviousVersions() throws Exception {
+    ObjectStreamClass serialForm = ObjectStreamClass.lookup(CacheKey.class);
+    assertEquals(1146682552656046210L, serialForm.getSerialVersionUID());
+    assertEquals(List.class, serialForm.getField("updateList").getType());
+
+    CacheKey cacheKey = new CacheKey(1);
+    cacheKey.update("first");
+    CacheKey deserialized = serialize(cacheKey);
+    cacheKey.update("second");
+    deserialized.update("second");
+    assertEquals(cacheKey, deserialized);
+    assertEquals(cacheKey.hashCode(), deserialized.hashCode());
+  }
+
   private static <T> T serialize(T object) throws Exception {
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
       new ObjectOutputStream(baos).writeObject(object);
@@ -0,0 +1,150 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class CacheStatsTest {
+
+  @Test
+  void shouldCountHitsMissesPutsAndEvictions() {
+    CacheStatsCounter statsCounter = new CacheStatsCounter();
+    Cache cache = new CacheBuilder("default").size(2).readWrite(false).statsCounter(statsCounter).build();
+    cache.putObject(0, 0);
+    cache.putObject(1, 1);
+    cache.putObject(2, 2);
+    assertNull(cache.getObject(0));
+    assertEquals(2, cache.getObject(2));
+    CacheStats stats = statsCounter.snapshot(cache.getId(), cache.getSize());
+    assertEquals(1, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+    assertEquals(0.5, stats.getHitRatio());
+    assertEquals(3, stats.getPutCount());
+    assertEquals(1, stats.getEvictionCount());
+    assertEquals(2, stats.getSize());
+    assertEquals(-1, stats.getMemoryEstimate());
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  void shouldKeepLoggingCacheCountersInSync() {
+    CacheStatsCounter statsCounter = new CacheStatsCounter();
+    LoggingCache cache = new LoggingCache(new PerpetualCache("default"), statsCounter) {
+      @Override
+      public String toString() {
+        return hits + "/" + requests;
+      }
+    };
+    assertEquals(0, statsCounter.getHitRatio());
+    cache.putObject(0, 0);
+    cache.getObject(0);
+    cache.getObject(1);
+    cache.getObject(0);
+    assertEquals("2/3", cache.toString());
+    assertEquals(2.0 / 3, statsCounter.getHitRatio());
+  }
+
+  @Test
+  void shouldEstimateMemoryOfSerializedEntries() {
+    CacheStatsCounter statsCounter = new CacheStatsCounter();
+    Cache cache = new CacheBuilder("default").readWrite(true).statsCounter(statsCounter).build();
+    cache.putObject(0, "value");
+    cache.putObject(1, "other");
+    assertTrue(statsCounter.snapshot(cache.getId(), cache.getSize()).getMemoryEstimate() > 0);
+  }
+
+  @Test
+  void shouldReportMemoryUsedOffHeap() {
+    CacheStatsCounter statsCounter = new CacheStatsCounter();
+    Cache cache = new CacheBuilder("default").implementation(OffHeapCache.class).statsCounter(statsCounter).build();
+    cache.putObject(0, new byte[100]);
+    assertTrue(statsCounter.snapshot(cache.getId(), cache.getSize()).getMemoryEstimate() > 100);
+  }
+
+  @Test
+  void shouldRecordLockWaits() throws Exception {
+    CacheStatsCounter statsCounter = new CacheStatsCounter();
+    Cache cache = new CacheBuilder("default").blocking(true).statsCounter(statsCounter).build();
+    assertNull(cache.getObject(0));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> waiting = executor.submit(() -> cache.getObject(0));
+      Thread.sleep(100);
+      cache.putObject(0, 0);
+      assertEquals(0, waiting.get());
+    } finally {
+      executor.shutdown();
+    }
+    CacheStats stats = statsCounter.snapshot(cache.getId(), cache.getSize());
+    assertEquals(1, stats.getLockWaitCount());
+    assertTrue(stats.getAverageLockWaitTime() > 0);
+  }
+
+  @Test
+  void shouldGetStatsFromConfiguration() {
+    Configuration configuration = new Configuration();
+    MapperBuilderAssistant assistant = new MapperBuilderAssistant(configuration, "resource");
+    assistant.setCurrentNamespace("org.example.BlogMapper");
+    Cache cache = assistant.useNewCache(null, null, null, null, false, false, null);
+    cache.putObject(0, 0);
+    cache.getObject(0);
+    CacheStats stats = configuration.getCacheStats("org.example.BlogMapper");
+    assertEquals("org.example.BlogMapper", stats.getId());
+    assertEquals(1, stats.getHitCount());
+    assertEquals(1, stats.getSize());
+    assertNull(configuration.getCacheStats("unknown"));
+  }
+
+  @Test
+  void shouldExportStatsToJmx() throws Exception {
+    Configuration configuration = new Configuration();
+    MapperBuilderAssistant assistant = new MapperBuilderAssistant(configuration, "resource");
+    assistant.setCurrentNamespace("org.example.BlogMapper");
+    Cache cache = assistant.useNewCache(null, null, null, null, false, false, null);
+    cache.putObject(0, 0);
+    cache.getObject(0);
+    cache.getObject(1);
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = CacheStatsExporter.getObjectName("test", "org.example.BlogMapper");
+    CacheStatsExporter.registerMBeans(configuration, "test");
+    try {
+      assertEquals(1L, server.getAttribute(name, "HitCount"));
+      assertEquals(1L, server.getAttribute(name, "MissCount"));
+      assertEquals(1, server.getAttribute(name, "Size"));
+    } finally {
+      CacheStatsExporter.unregisterMBeans(configuration, "test");
+    }
+    assertFalse(server.isRegistered(name));
+  }
+
+}
@@ -0,0 +1,143 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.ClockCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.junit.jupiter.api.Test;
+
+class ClockCacheTest {
+
+  @Test
+  void shouldGiveReadItemsASecondChance() {
+    ClockCache cache = new ClockCache("default");
+    cache.setSize(4);
+    for (int i = 0; i < 4; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(0, cache.getObject(0));
+    cache.putObject(4, 4);
+    assertEquals(4, cache.getSize());
+    assertEquals(0, cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertEquals(4, cache.getObject(4));
+  }
+
+  @Test
+  void shouldRemoveItemsBeyondSize() {
+    ClockCache cache = new ClockCache("default");
+    cache.setSize(100);
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, i);
+      cache.getObject(i / 2);
+    }
+    assertEquals(100, cache.getSize());
+    assertEquals(999, cache.getObject(999));
+  }
+
+  @Test
+  void shouldKeepItemsWhenResized() {
+    ClockCache cache = new ClockCache("default");
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, i);
+    }
+    cache.setSize(5000);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i, cache.getObject(i));
+    }
+    cache.setSize(5);
+    assertEquals(5, cache.getSize());
+  }
+
+  @Test
+  void shouldBehaveLikeAMapWhenNotFull() {
+    ClockCache cache = new ClockCache("default");
+    cache.setSize(10000);
+    Map<Object, Object> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 100000; i++) {
+      // few distinct hash codes, so that the table has long clusters
+      Integer key = random.nextInt(2000) * 1024;
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), cache.removeObject(key));
+      } else {
+        expected.put(key, i);
+        cache.putObject(key, i);
+      }
+    }
+    assertEquals(expected.size(), cache.getSize());
+    for (Map.Entry<Object, Object> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), cache.getObject(entry.getKey()));
+    }
+  }
+
+  @Test
+  void shouldAcceptNullKeyAndNotKeepNullValues() {
+    Cache cache = new ClockCache("default");
+    cache.putObject(null, 1);
+    assertEquals(1, cache.getObject(null));
+    cache.putObject(0, 0);
+    cache.putObject(0, null);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new ClockCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new ClockCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldBeSynchronizedWithoutEvictionDecoratorByCacheBuilder() {
+    Cache cache = new CacheBuilder("default").implementation(ClockCache.class).size(10).build();
+    assertEquals(SynchronizedCache.class, cache.getClass());
+    Object logging = SystemMetaObject.forObject(cache).getValue("delegate");
+    assertEquals(LoggingCache.class, logging.getClass());
+    assertEquals(ClockCache.class, SystemMetaObject.forObject(logging).getValue("delegate").getClass());
+    for (int i = 0; i < 20; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(10, cache.getSize());
+  }
+
+}
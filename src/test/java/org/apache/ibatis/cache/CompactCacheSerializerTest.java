@@ -0,0 +1,179 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.CompactCacheSerializer;
+import org.apache.ibatis.cache.impl.JdkCacheSerializer;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class CompactCacheSerializerTest {
+
+  private final CacheSerializer serializer = new CompactCacheSerializer();
+
+  @Test
+  void shouldCopySimpleValues() {
+    Timestamp timestamp = new Timestamp(1000L);
+    timestamp.setNanos(123456789);
+    List<Object> values = new ArrayList<>(Arrays.asList(null, "hello", 1, 2L, (short) 3, (byte) 4, true, 5.5d, 6.5f,
+        'c', new BigDecimal("1.50"), new BigInteger("12345678901234567890"), new Date(1000L),
+        new java.sql.Date(2000L), new java.sql.Time(3000L), timestamp, Section.NEWS, LocalDate.of(2019, 8, 1)));
+    Object copy = serializer.deserialize(serializer.serialize(values));
+    assertEquals(values, copy);
+    assertNotSame(values, copy);
+  }
+
+  @Test
+  void shouldCopyNull() {
+    assertNull(serializer.deserialize(serializer.serialize(null)));
+  }
+
+  @Test
+  void shouldCopyBeansThroughTheirProperties() {
+    Author author = new Author(101, "jim", "****", "jim@ibatis.apache.org", "Something...", Section.NEWS);
+    Author copy = (Author) serializer.deserialize(serializer.serialize(author));
+    assertNotSame(author, copy);
+    assertEquals(author, copy);
+  }
+
+  @Test
+  void shouldCopyBeansThatAreNotSerializable() {
+    Parent parent = new Parent();
+    parent.setName("parent");
+    Child child = new Child();
+    child.setParent(parent);
+    child.setScore(3);
+    parent.getChildren().add(child);
+    parent.getChildren().add(child);
+    parent.getAttributes().put("key", new byte[] { 1, 2 });
+    parent.setCached(new LinkedHashSet<>());
+
+    Parent copy = (Parent) serializer.deserialize(serializer.serialize(parent));
+    assertNotSame(parent, copy);
+    assertEquals("parent", copy.getName());
+    assertEquals(2, copy.getChildren().size());
+    assertSame(copy.getChildren().get(0), copy.getChildren().get(1));
+    assertSame(copy, copy.getChildren().get(0).getParent());
+    assertEquals(3, copy.getChildren().get(0).getScore());
+    assertArrayEquals(new byte[] { 1, 2 }, (byte[]) copy.getAttributes().get("key"));
+    assertNull(copy.getCached());
+  }
+
+  @Test
+  void shouldBeSmallerThanJavaSerialization() {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      authors.add(new Author(i, "user" + i, "****", "user" + i + "@ibatis.apache.org", "bio", Section.NEWS));
+    }
+    int compact = serializer.serialize(authors).length;
+    int jdk = new JdkCacheSerializer().serialize(authors).length;
+    assertTrue(compact < jdk, "compact " + compact + " should be smaller than jdk " + jdk);
+  }
+
+  @Test
+  void shouldBeUsableBySerializedCache() {
+    Cache cache = new SerializedCache(new PerpetualCache("default"), serializer);
+    Parent parent = new Parent();
+    parent.setName("parent");
+    cache.putObject(0, parent);
+    Parent copy = (Parent) cache.getObject(0);
+    assertNotSame(parent, copy);
+    assertEquals("parent", copy.getName());
+  }
+
+  @Test
+  void shouldFailOnObjectsThatAreNeitherBeansNorSerializable() {
+    assertThrows(CacheException.class, () -> serializer.serialize(new Object()));
+  }
+
+  public static class Parent {
+    private String name;
+    private List<Child> children = new ArrayList<>();
+    private Map<String, Object> attributes = new HashMap<>();
+    private transient Object cached;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public List<Child> getChildren() {
+      return children;
+    }
+
+    public void setChildren(List<Child> children) {
+      this.children = children;
+    }
+
+    public Map<String, Object> getAttributes() {
+      return attributes;
+    }
+
+    public void setAttributes(Map<String, Object> attributes) {
+      this.attributes = attributes;
+    }
+
+    public Object getCached() {
+      return cached;
+    }
+
+    public void setCached(Object cached) {
+      this.cached = cached;
+    }
+  }
+
+  public static class Child {
+    private Parent parent;
+    private int score;
+
+    public Parent getParent() {
+      return parent;
+    }
+
+    public void setParent(Parent parent) {
+      this.parent = parent;
+    }
+
+    public int getScore() {
+      return score;
+    }
+
+    public void setScore(int score) {
+      this.score = score;
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentCacheTest {
+
+  @Test
+  void shouldRemoveLeastRecentlyUsedItemsBeyondSize() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(8);
+    for (int i = 0; i < 8; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(0, cache.getObject(0));
+    cache.putObject(8, 8);
+    assertEquals(7, cache.getSize());
+    assertEquals(0, cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertNull(cache.getObject(2));
+    assertEquals(8, cache.getObject(8));
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new ConcurrentCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldOnlyRemoveItemHoldingGivenValue() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    String first = "first";
+    cache.putObject(0, first);
+    cache.putObject(0, "second");
+    assertFalse(cache.removeObject(0, first));
+    assertEquals("second", cache.getObject(0));
+    assertTrue(cache.removeObject(0, cache.getObject(0)));
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldNotKeepNullValues() {
+    Cache cache = new ConcurrentCache("default");
+    cache.putObject(0, 0);
+    cache.putObject(0, null);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new ConcurrentCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+  }
+
+  @Test
+  void shouldStayBoundedUnderConcurrentAccess() throws Exception {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(100);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        final int offset = t * 10000;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10000; i++) {
+            cache.putObject(offset + i, i);
+            cache.getObject(offset + i / 2);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    cache.putObject(-1, -1);
+    assertTrue(cache.getSize() <= 100);
+  }
+
+  @Test
+  void shouldNotBeSynchronizedByCacheBuilder() {
+    Cache cache = new CacheBuilder("default").implementation(ConcurrentCache.class).size(10).build();
+    assertEquals(LoggingCache.class, cache.getClass());
+    for (int i = 0; i < 20; i++) {
+      cache.putObject(i, i);
+    }
+    assertTrue(cache.getSize() <= 10);
+  }
+
+}
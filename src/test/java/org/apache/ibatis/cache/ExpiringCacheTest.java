@@ -0,0 +1,140 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+
+  @Test
+  void shouldExpireEachEntryOnItsOwn() throws Exception {
+    ExpiringCache expiringCache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    expiringCache.setTimeToLive(500);
+    Cache cache = new LoggingCache(expiringCache);
+    cache.putObject(0, 0);
+    Thread.sleep(300);
+    cache.putObject(1, 1);
+    Thread.sleep(300);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    Thread.sleep(300);
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldSendOnlyOneReaderToRefreshAnEntry() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(600);
+    cache.setRefreshAhead(400);
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+    Thread.sleep(300);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getObject(0));
+    assertEquals(0, cache.getObject(0));
+    cache.putObject(0, 1);
+    assertEquals(1, cache.getObject(0));
+  }
+
+  @Test
+  void shouldSendAnotherReaderWhenRefreshingReaderPutsNothing() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(1000);
+    cache.setRefreshAhead(800);
+    cache.putObject(0, 0);
+    Thread.sleep(300);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getObject(0));
+    // the first reader failed or rolled back
+    Thread.sleep(450);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getObject(0));
+  }
+
+  @Test
+  void shouldNotRemoveValuePutAfterEntryExpired() throws Exception {
+    ExpiringCache[] expiringCache = new ExpiringCache[1];
+    ConcurrentCache delegate = new ConcurrentCache("DefaultCache") {
+      private boolean replaced;
+
+      @Override
+      public Object getObject(Object key) {
+        Object entry = super.getObject(key);
+        if (!replaced) {
+          // another session puts a new value between the read and the removal of the expired entry
+          replaced = true;
+          expiringCache[0].setTimeToLive(60_000);
+          expiringCache[0].putObject(key, 1);
+        }
+        return entry;
+      }
+    };
+    expiringCache[0] = new ExpiringCache(delegate);
+    expiringCache[0].setTimeToLive(100);
+    expiringCache[0].putObject(0, 0);
+    Thread.sleep(200);
+    assertNull(expiringCache[0].getObject(0));
+    assertEquals(1, expiringCache[0].getObject(0));
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+  }
+
+  @Test
+  void shouldKeepNullEntriesOfMissedKeys() {
+    Cache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.putObject(0, null);
+    assertNull(cache.getObject(0));
+    assertNull(cache.removeObject(0));
+  }
+
+  @Test
+  void shouldBeAddedByCacheBuilder() throws Exception {
+    Cache cache = new CacheBuilder("default").timeToLive(300L).readWrite(true).build();
+    cache.putObject(0, "value");
+    assertEquals("value", cache.getObject(0));
+    Thread.sleep(400);
+    assertNull(cache.getObject(0));
+  }
+
+}
@@ -0,0 +1,108 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfCachedObjects() {
+    Cache cache = new OffHeapCache("default");
+    List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+    cache.putObject(0, value);
+    Object cached = cache.getObject(0);
+    assertEquals(value, cached);
+    assertNotSame(value, cached);
+    assertNotSame(cached, cache.getObject(0));
+  }
+
+  @Test
+  void shouldEvictOldestSlabWhenFull() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setMaxBytes(4096);
+    cache.setSlabSize(1024);
+    cache.initialize();
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, i);
+    }
+    assertNull(cache.getObject(0));
+    assertEquals(999, cache.getObject(999));
+    assertTrue(cache.getSize() < 1000);
+  }
+
+  @Test
+  void shouldNotCacheValuesLargerThanSlab() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setMaxBytes(2048);
+    cache.setSlabSize(1024);
+    cache.initialize();
+    cache.putObject(0, new byte[4096]);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldFailOnNonSerializableObjects() {
+    Cache cache = new OffHeapCache("default");
+    assertThrows(CacheException.class, () -> cache.putObject(0, new Object()));
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+    assertNull(cache.removeObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+  }
+
+  @Test
+  void shouldBeConfiguredByCacheBuilder() {
+    Properties props = new Properties();
+    props.setProperty("maxBytes", "1024");
+    props.setProperty("slabSize", "4096");
+    Cache cache = new CacheBuilder("default").implementation(OffHeapCache.class).properties(props).build();
+    cache.putObject(0, new byte[300]);
+    assertNotNull(cache.getObject(0));
+    cache.putObject(1, new byte[600]);
+    assertNull(cache.getObject(1));
+  }
+
+}
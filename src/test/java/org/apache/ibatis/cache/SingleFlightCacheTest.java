@@ -0,0 +1,257 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightCacheTest {
+
+  private final Cache cache = new SynchronizedCache(new PerpetualCache("default"));
+  private final SingleFlightRegistry registry = new SingleFlightRegistry();
+  private final CacheKey key = new CacheKey(new Object[] { "select", 1 });
+
+  @Test
+  void shouldLetWaitingSessionReadCommittedValue() throws Exception {
+    TransactionalCacheManager leader = new TransactionalCacheManager(registry, 0);
+    TransactionalCacheManager follower = new TransactionalCacheManager(registry, 0);
+    assertNull(leader.getObject(cache, key));
+    assertEquals(1, registry.getSize());
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> result = executor.submit(() -> follower.getObject(cache, key));
+      Thread.sleep(100);
+      assertFalse(result.isDone());
+      leader.putObject(cache, key, "value");
+      leader.commit();
+      assertEquals("value", result.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(0, registry.getSize());
+  }
+
+  @Test
+  void shouldLetOnlyOneSessionLoadAKey() throws Exception {
+    int sessions = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch loaders = new CountDownLatch(sessions);
+    ExecutorService executor = Executors.newFixedThreadPool(sessions);
+    try {
+      Future<?>[] futures = new Future<?>[sessions];
+      int[] queries = new int[1];
+      for (int i = 0; i < sessions; i++) {
+        futures[i] = executor.submit(() -> {
+          TransactionalCacheManager tcm = new TransactionalCacheManager(registry, 0);
+          start.await();
+          Object value = tcm.getObject(cache, key);
+          if (value == null) {
+            synchronized (queries) {
+              queries[0]++;
+            }
+            Thread.sleep(50);
+            tcm.putObject(cache, key, "value");
+          }
+          tcm.commit();
+          loaders.countDown();
+          return value;
+        });
+      }
+      start.countDown();
+      assertTrue(loaders.await(5, TimeUnit.SECONDS));
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      assertEquals(1, queries[0]);
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(0, registry.getSize());
+  }
+
+  @Test
+  void shouldNeverHandOverRolledBackLoad() throws Exception {
+    TransactionalCacheManager leader = new TransactionalCacheManager(registry, 0);
+    TransactionalCacheManager follower = new TransactionalCacheManager(registry, 0);
+    assertNull(leader.getObject(cache, key));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> result = executor.submit(() -> follower.getObject(cache, key));
+      Thread.sleep(100);
+      leader.putObject(cache, key, "uncommitted");
+      // the follower waits for the end of the leader's transaction, not for its query
+      Thread.sleep(100);
+      assertFalse(result.isDone());
+      leader.rollback();
+      assertNull(result.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(0, registry.getSize());
+    assertNull(cache.getObject(key));
+  }
+
+  @Test
+  void shouldGiveWaitingSessionsTheirOwnCopy() throws Exception {
+    Cache readWriteCache = new SerializedCache(new SynchronizedCache(new PerpetualCache("default")));
+    TransactionalCacheManager leader = new TransactionalCacheManager(registry, 0);
+    TransactionalCacheManager follower = new TransactionalCacheManager(registry, 0);
+    assertNull(leader.getObject(readWriteCache, key));
+
+    ArrayList<String> rows = new ArrayList<>(Collections.singletonList("row"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> result = executor.submit(() -> follower.getObject(readWriteCache, key));
+      Thread.sleep(100);
+      leader.putObject(readWriteCache, key, rows);
+      leader.commit();
+      rows.add("changed by the leader");
+      assertEquals(Collections.singletonList("row"), result.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldQueryAgainWhenLoadingSessionFails() throws Exception {
+    TransactionalCacheManager leader = new TransactionalCacheManager(registry, 0);
+    TransactionalCacheManager follower = new TransactionalCacheManager(registry, 0);
+    assertNull(leader.getObject(cache, key));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> result = executor.submit(() -> follower.getObject(cache, key));
+      Thread.sleep(100);
+      leader.removeObject(cache, key);
+      assertNull(result.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldNotHandOverValueBeforeWritesOfLoadingSessionCommit() throws Exception {
+    TransactionalCacheManager leader = new TransactionalCacheManager(registry, 0);
+    TransactionalCacheManager follower = new TransactionalCacheManager(registry, 0);
+    assertNull(leader.getObject(cache, key));
+    leader.clear(cache);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> result = executor.submit(() -> follower.getObject(cache, key));
+      Thread.sleep(100);
+      leader.putObject(cache, key, "value");
+      Thread.sleep(100);
+      assertFalse(result.isDone());
+      // the value was read after the write, it is shared once both are committed
+      leader.commit();
+      assertEquals("value", result.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldNotDeadlockWhenSessionsLeadEachOthersKeys() throws Exception {
+    CacheKey otherKey = new CacheKey(new Object[] { "select", 2 });
+    TransactionalCacheManager first = new TransactionalCacheManager(registry, 0);
+    TransactionalCacheManager second = new TransactionalCacheManager(registry, 0);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertNull(executor.submit(() -> first.getObject(cache, key)).get(5, TimeUnit.SECONDS));
+      assertNull(second.getObject(cache, otherKey));
+      // neither waits for the commit of the other, as both lead a key
+      Future<Object> result = executor.submit(() -> {
+        first.putObject(cache, key, "value");
+        return first.getObject(cache, otherKey);
+      });
+      assertNull(result.get(1, TimeUnit.SECONDS));
+      assertNull(second.getObject(cache, key));
+      second.putObject(cache, otherKey, "other value");
+      executor.submit(first::commit).get(5, TimeUnit.SECONDS);
+      second.commit();
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(0, registry.getSize());
+    assertEquals("other value", cache.getObject(otherKey));
+  }
+
+  @Test
+  void shouldNotWaitForSessionOfTheSameThread() throws Exception {
+    TransactionalCacheManager outer = new TransactionalCacheManager(registry, 0);
+    TransactionalCacheManager inner = new TransactionalCacheManager(registry, 0);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> result = executor.submit(() -> {
+        assertNull(outer.getObject(cache, key));
+        // e.g. a REQUIRES_NEW session opened while the outer one is still loading the key
+        Object value = inner.getObject(cache, key);
+        inner.rollback();
+        outer.putObject(cache, key, "value");
+        outer.commit();
+        return value;
+      });
+      assertNull(result.get(1, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals("value", cache.getObject(key));
+  }
+
+  @Test
+  void shouldWakeUpWaitingSessionWhenLoadFails() throws Exception {
+    TransactionalCacheManager leader = new TransactionalCacheManager(registry, 0);
+    assertNull(leader.getObject(cache, key));
+    leader.removeObject(cache, key);
+    assertEquals(0, registry.getSize());
+  }
+
+  @Test
+  void shouldStopWaitingAfterTimeout() {
+    TransactionalCacheManager leader = new TransactionalCacheManager(registry, 0);
+    TransactionalCacheManager follower = new TransactionalCacheManager(registry, 50);
+    assertNull(leader.getObject(cache, key));
+    assertNull(follower.getObject(cache, key));
+    leader.rollback();
+    assertEquals(0, registry.getSize());
+  }
+
+  @Test
+  void shouldNotWaitForItself() {
+    TransactionalCacheManager tcm = new TransactionalCacheManager(registry, 0);
+    assertNull(tcm.getObject(cache, key));
+    assertNull(tcm.getObject(cache, key));
+    tcm.putObject(cache, key, "value");
+    tcm.commit();
+    assertEquals("value", tcm.getObject(cache, key));
+  }
+
+}
@@ -0,0 +1,159 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class TableInvalidationTest {
+
+  private final Cache cache = new SynchronizedCache(new PerpetualCache("default"));
+  private final TableDependencyIndex index = new TableDependencyIndex();
+  private final CacheKey blogKey = new CacheKey(new Object[] { "selectBlog", 1 });
+  private final CacheKey authorKey = new CacheKey(new Object[] { "selectAuthor", 1 });
+  private final CacheKey blogWithAuthorKey = new CacheKey(new Object[] { "selectBlogWithAuthor", 1 });
+
+  @Test
+  void shouldOnlyInvalidateEntriesReadFromWrittenTables() {
+    putAndCommit();
+    TransactionalCacheManager writer = new TransactionalCacheManager(null, 0, index);
+    writer.invalidate(cache, tables("author"));
+    assertEquals("blog", writer.getObject(cache, blogKey));
+    assertNull(writer.getObject(cache, authorKey));
+    assertNull(writer.getObject(cache, blogWithAuthorKey));
+    // other sessions keep reading the entries until the write is committed
+    assertEquals("author", cache.getObject(authorKey));
+    writer.commit();
+    assertEquals("blog", cache.getObject(blogKey));
+    assertNull(cache.getObject(authorKey));
+    assertNull(cache.getObject(blogWithAuthorKey));
+  }
+
+  @Test
+  void shouldNotInvalidateOnRollback() {
+    putAndCommit();
+    TransactionalCacheManager writer = new TransactionalCacheManager(null, 0, index);
+    writer.invalidate(cache, tables("author"));
+    writer.rollback();
+    assertEquals("author", cache.getObject(authorKey));
+  }
+
+  @Test
+  void shouldClearWholeCacheWhenWrittenTablesAreUnknown() {
+    putAndCommit();
+    TransactionalCacheManager writer = new TransactionalCacheManager(null, 0, index);
+    writer.invalidate(cache, null);
+    writer.commit();
+    assertNull(cache.getObject(blogKey));
+    assertNull(cache.getObject(authorKey));
+  }
+
+  @Test
+  void shouldInvalidateEntriesWithUnknownTablesOnEveryWrite() {
+    CacheKey unknownKey = new CacheKey(new Object[] { "callProcedure", 1 });
+    putAndCommit();
+    TransactionalCacheManager reader = new TransactionalCacheManager(null, 0, index);
+    reader.putObject(cache, unknownKey, "unknown", null);
+    reader.commit();
+    TransactionalCacheManager writer = new TransactionalCacheManager(null, 0, index);
+    writer.invalidate(cache, tables("post"));
+    writer.commit();
+    assertNull(cache.getObject(unknownKey));
+    assertEquals("blog", cache.getObject(blogKey));
+  }
+
+  @Test
+  void shouldNotAddPendingEntriesReadFromTablesWrittenInSameSession() {
+    TransactionalCacheManager tcm = new TransactionalCacheManager(null, 0, index);
+    tcm.putObject(cache, blogKey, "blog", tables("blog"));
+    tcm.putObject(cache, authorKey, "author", tables("author"));
+    tcm.invalidate(cache, tables("blog"));
+    tcm.commit();
+    assertNull(cache.getObject(blogKey));
+    assertEquals("author", cache.getObject(authorKey));
+  }
+
+  @Test
+  void shouldKeepKeysThatTheCacheDoesNotReference() {
+    index.register(cache, new CacheKey(new Object[] { "selectBlog", 2 }), tables("blog"));
+    System.gc();
+    assertEquals(Collections.singleton(new CacheKey(new Object[] { "selectBlog", 2 })),
+        index.remove(cache, tables("blog")));
+  }
+
+  @Test
+  void shouldRemoveInvalidatedKeysFromAllTheirTables() {
+    putAndCommit();
+    assertEquals(3, index.getSize(cache));
+    assertEquals(new HashSet<>(Arrays.asList(authorKey, blogWithAuthorKey)), index.remove(cache, tables("author")));
+    assertEquals(1, index.getSize(cache));
+    assertEquals(Collections.singleton(blogKey), index.remove(cache, tables("blog")));
+    assertEquals(0, index.getSize(cache));
+  }
+
+  @Test
+  void shouldClearCacheWhenMostIndexedKeysWereEvicted() {
+    Cache lruCache = new LruCache(new PerpetualCache("lru"));
+    ((LruCache) lruCache).setSize(100);
+    TransactionalCacheManager tcm = new TransactionalCacheManager(null, 0, index);
+    for (int i = 0; i < 1024; i++) {
+      tcm.putObject(lruCache, new CacheKey(new Object[] { "selectBlog", i }), "blog", tables("blog"));
+    }
+    tcm.commit();
+    assertEquals(100, lruCache.getSize());
+    assertEquals(1024, index.getSize(lruCache));
+    tcm.putObject(lruCache, authorKey, "author", tables("author"));
+    tcm.commit();
+    assertEquals(0, lruCache.getSize());
+    assertEquals(0, index.getSize(lruCache));
+  }
+
+  @Test
+  void shouldParseTablesOfStaticStatementOnce() {
+    Configuration configuration = new Configuration();
+    MappedStatement ms = new MappedStatement.Builder(configuration, "selectBlog",
+        new StaticSqlSource(configuration, "select * from blog where id = ?"), SqlCommandType.SELECT).build();
+    Set<String> tables = ms.getTables(null, null);
+    assertEquals(tables("blog"), tables);
+    assertSame(tables, ms.getTables(null, null));
+  }
+
+  private void putAndCommit() {
+    TransactionalCacheManager reader = new TransactionalCacheManager(null, 0, index);
+    reader.putObject(cache, blogKey, "blog", tables("blog"));
+    reader.putObject(cache, authorKey, "author", tables("author"));
+    reader.putObject(cache, blogWithAuthorKey, "blogWithAuthor", tables("blog", "author"));
+    reader.commit();
+  }
+
+  private static Set<String> tables(String... tables) {
+    return new HashSet<>(Arrays.asList(tables));
+  }
+
+}
@@ -0,0 +1,66 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TableNameParserTest {
+
+  @Test
+  void shouldFindTablesOfSelect() {
+    assertThat(TableNameParser.parse("select * from blog b join author a on b.author_id = a.id where b.id = ?"))
+        .containsOnly("blog", "author");
+  }
+
+  @Test
+  void shouldFindTablesOfFromList() {
+    assertThat(TableNameParser.parse("SELECT * FROM blog AS b, author a, post WHERE b.id = ?"))
+        .containsOnly("blog", "author", "post");
+  }
+
+  @Test
+  void shouldFindTablesOfSubqueries() {
+    assertThat(TableNameParser.parse("select * from (select id from blog) b where exists (select 1 from post p where p.blog_id = b.id)"))
+        .containsOnly("blog", "post");
+  }
+
+  @Test
+  void shouldFindTablesOfWrites() {
+    assertThat(TableNameParser.parse("insert into blog (id, title) values (?, ?)")).containsOnly("blog");
+    assertThat(TableNameParser.parse("update author set name = ? where id = ?")).containsOnly("author");
+    assertThat(TableNameParser.parse("delete from post where id = ?")).containsOnly("post");
+  }
+
+  @Test
+  void shouldNormalizeQuotedAndQualifiedNames() {
+    assertThat(TableNameParser.parse("select * from \"PUBLIC\".\"Blog\" join `db`.`author` on 1 = 1 join [post] on 1 = 1"))
+        .containsOnly("blog", "author", "post");
+  }
+
+  @Test
+  void shouldIgnoreStringLiteralsAndComments() {
+    assertThat(TableNameParser.parse("select 'from secret' from blog -- from comment\n /* join other */ where 1 = 1"))
+        .containsOnly("blog");
+  }
+
+  @Test
+  void shouldReturnEmptySetWhenNoTableIsFound() {
+    assertThat(TableNameParser.parse("call do_something(?)")).isEmpty();
+  }
+
+}
@@ -0,0 +1,208 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.decorators.TwoTierCache;
+import org.apache.ibatis.cache.impl.LoopbackInvalidationTransport;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.executor.CachingExecutor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class TwoTierCacheTest {
+
+  private final CacheInvalidationTransport transport = new LoopbackInvalidationTransport();
+
+  @Test
+  void shouldDropEntriesInvalidatedByOtherNodes() {
+    Cache node1 = newNode();
+    Cache node2 = newNode();
+    node1.putObject(0, "value");
+    node2.putObject(0, "value");
+
+    TransactionalCache transactionalCache = new TransactionalCache(node1);
+    transactionalCache.clear();
+    transactionalCache.commit();
+
+    assertNull(node1.getObject(0));
+    assertNull(node2.getObject(0));
+  }
+
+  @Test
+  void shouldDropRemovedKeysOnOtherNodes() {
+    Cache node1 = newNode();
+    Cache node2 = newNode();
+    node1.putObject(0, "value");
+    node1.putObject(1, "other");
+    node2.putObject(0, "value");
+    node2.putObject(1, "other");
+    node1.removeObject(0);
+    assertNull(node2.getObject(0));
+    assertEquals("other", node2.getObject(1));
+  }
+
+  @Test
+  void shouldIgnoreOtherCaches() {
+    Cache node1 = newNode();
+    Cache other = new TwoTierCache(new PerpetualCache("other"), null, transport);
+    other.putObject(0, "value");
+    node1.clear();
+    assertEquals("value", other.getObject(0));
+  }
+
+  @Test
+  void shouldReadThroughRemoteCache() {
+    Cache remote = new PerpetualCache("default");
+    TwoTierCache node1 = new TwoTierCache(new PerpetualCache("default"), remote, transport);
+    TwoTierCache node2 = new TwoTierCache(new PerpetualCache("default"), remote, transport);
+    node1.putObject(0, "value");
+    assertEquals("value", node2.getObject(0));
+    remote.clear();
+    // now served by the local cache of node 2
+    assertEquals("value", node2.getObject(0));
+    node1.clear();
+    assertNull(node2.getObject(0));
+  }
+
+  @Test
+  void shouldStopReceivingWhenClosed() {
+    TwoTierCache node1 = newNode();
+    TwoTierCache node2 = newNode();
+    node2.putObject(0, "value");
+    node2.close();
+    node1.clear();
+    assertEquals("value", node2.getObject(0));
+  }
+
+  @Test
+  void shouldBeAddedByCacheBuilder() {
+    Properties props = new Properties();
+    props.setProperty("remoteProperty", "value");
+    Cache node1 = new CacheBuilder("default").remoteImplementation(RemoteCache.class).invalidationTransport(transport)
+        .properties(props).build();
+    Cache node2 = new CacheBuilder("default").remoteImplementation(RemoteCache.class).invalidationTransport(transport)
+        .properties(props).build();
+    node1.putObject(0, "value");
+    assertEquals("value", node2.getObject(0));
+    node1.clear();
+    assertNull(node2.getObject(0));
+    assertEquals("value", RemoteCache.remoteProperty);
+  }
+
+  @Test
+  void shouldUnsubscribeDiscardedCaches() throws Exception {
+    AtomicInteger unsubscribed = new AtomicInteger();
+    CacheInvalidationTransport countingTransport = new LoopbackInvalidationTransport() {
+      @Override
+      public void unsubscribe(CacheInvalidationListener listener) {
+        unsubscribed.incrementAndGet();
+        super.unsubscribe(listener);
+      }
+    };
+    TwoTierCache node1 = new TwoTierCache(new PerpetualCache("default"), null, countingTransport);
+    new TwoTierCache(new PerpetualCache("default"), null, countingTransport);
+    for (int i = 0; i < 50 && unsubscribed.get() == 0; i++) {
+      System.gc();
+      Thread.sleep(10);
+      node1.clear();
+    }
+    assertEquals(1, unsubscribed.get());
+    node1.clear();
+    assertEquals(1, unsubscribed.get());
+  }
+
+  @Test
+  void shouldClearSharedCacheOnTableWrites() throws Exception {
+    Configuration configuration = new Configuration();
+    configuration.setCacheTableInvalidationEnabled(true);
+    configuration.setCacheInvalidationTransport(transport);
+    MapperBuilderAssistant assistant = new MapperBuilderAssistant(configuration, "resource");
+    assistant.setCurrentNamespace("org.example.BlogMapper");
+    Cache cache = assistant.useNewCache(null, null, null, null, false, false, null);
+    assertTrue(configuration.isSharedCache(cache.getId()));
+    assertFalse(configuration.isSharedCache("org.example.AuthorMapper"));
+
+    // the other nodes may have cached results of the author table that this node does not know about
+    cache.putObject(0, "author");
+    MappedStatement ms = new MappedStatement.Builder(configuration, "org.example.BlogMapper.updateAuthor",
+        new StaticSqlSource(configuration, "update author set name = 'name'"), SqlCommandType.UPDATE)
+        .cache(cache).flushCacheRequired(true).build();
+    CachingExecutor executor = new CachingExecutor(mock(Executor.class),
+        new TransactionalCacheManager(null, 0, configuration.getTableDependencyIndex()));
+    executor.update(ms, null);
+    executor.commit(true);
+    assertNull(cache.getObject(0));
+  }
+
+  private TwoTierCache newNode() {
+    return new TwoTierCache(new PerpetualCache("default"), null, transport);
+  }
+
+  public static class RemoteCache extends PerpetualCache {
+
+    // all the nodes share the same entries, as they would with a distributed cache
+    private static final Cache SHARED = new PerpetualCache("shared");
+
+    private static String remoteProperty;
+
+    public RemoteCache(String id) {
+      super(id);
+    }
+
+    public void setRemoteProperty(String value) {
+      remoteProperty = value;
+    }
+
+    @Override
+    public int getSize() {
+      return SHARED.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+      SHARED.putObject(key, value);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+      return SHARED.getObject(key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+      return SHARED.removeObject(key);
+    }
+
+    @Override
+    public void clear() {
+      SHARED.clear();
+    }
+  }
+
+}
@@ -0,0 +1,151 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.BaseDataTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PooledStatementCacheTest extends BaseDataTest {
+
+  private static final String SELECT_PRODUCT = "SELECT * FROM PRODUCT WHERE PRODUCTID = ?";
+  private static final String SELECT_ITEM = "SELECT * FROM ITEM WHERE ITEMID = ?";
+  private static final String SELECT_CATEGORY = "SELECT * FROM CATEGORY WHERE CATID = ?";
+
+  private PooledDataSource ds;
+
+  @BeforeEach
+  void setup() throws Exception {
+    ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    runScript(ds, JPETSTORE_DDL);
+    ds.setPoolMaximumActiveConnections(1);
+    ds.setPoolPreparedStatementCacheSize(2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ds.forceCloseAll();
+  }
+
+  @Test
+  void shouldReuseStatementsAcrossCheckouts() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      execute(conn, SELECT_PRODUCT);
+    }
+    try (Connection conn = ds.getConnection()) {
+      execute(conn, SELECT_PRODUCT);
+      execute(conn, SELECT_ITEM);
+    }
+    assertEquals(1, ds.getPoolState().getStatementCacheHitCount());
+    assertEquals(2, ds.getPoolState().getStatementCacheMissCount());
+  }
+
+  @Test
+  void shouldCloseLeastRecentlyUsedStatementsBeyondSize() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      execute(conn, SELECT_PRODUCT);
+      execute(conn, SELECT_ITEM);
+      execute(conn, SELECT_CATEGORY);
+      assertEquals(1, ds.getPoolState().getStatementCacheEvictionCount());
+      execute(conn, SELECT_PRODUCT);
+    }
+    assertEquals(0, ds.getPoolState().getStatementCacheHitCount());
+    assertEquals(4, ds.getPoolState().getStatementCacheMissCount());
+  }
+
+  @Test
+  void shouldNotReturnStatementsThatFailed() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      try (PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCT)) {
+        assertThrows(SQLException.class, () -> ps.setString(2, "invalid"));
+      }
+      execute(conn, SELECT_PRODUCT);
+    }
+    assertEquals(0, ds.getPoolState().getStatementCacheHitCount());
+    assertEquals(2, ds.getPoolState().getStatementCacheMissCount());
+  }
+
+  @Test
+  void shouldRestoreSettingsOfReturnedStatements() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      try (PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCT)) {
+        ps.setMaxRows(1);
+        ps.setQueryTimeout(5);
+      }
+      try (PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCT)) {
+        assertEquals(0, ps.getMaxRows());
+        assertEquals(0, ps.getQueryTimeout());
+      }
+    }
+    assertEquals(1, ds.getPoolState().getStatementCacheHitCount());
+  }
+
+  @Test
+  void shouldCloseResultSetOfReturnedStatements() throws Exception {
+    ResultSet resultSet;
+    try (Connection conn = ds.getConnection()) {
+      try (PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCT)) {
+        ps.setString(1, "id");
+        resultSet = ps.executeQuery();
+      }
+      assertTrue(resultSet.isClosed());
+      execute(conn, SELECT_PRODUCT);
+    }
+    assertEquals(1, ds.getPoolState().getStatementCacheHitCount());
+  }
+
+  @Test
+  void shouldKeepOneOfStatementsOpenAtTheSameTime() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement first = conn.prepareStatement(SELECT_PRODUCT);
+      PreparedStatement second = conn.prepareStatement(SELECT_PRODUCT);
+      assertNotSame(first, second);
+      first.close();
+      second.close();
+      assertTrue(first.isClosed());
+      assertThrows(SQLException.class, () -> first.setString(1, "closed"));
+    }
+    PooledStatementCache statementCache = ds.getPoolState().idleConnections.get(0).getStatementCache();
+    assertEquals(1, statementCache.getSize());
+  }
+
+  @Test
+  void shouldNotCacheWhenSizeIsZero() throws Exception {
+    ds.setPoolPreparedStatementCacheSize(0);
+    try (Connection conn = ds.getConnection()) {
+      execute(conn, SELECT_PRODUCT);
+      execute(conn, SELECT_PRODUCT);
+    }
+    assertEquals(0, ds.getPoolState().getStatementCacheMissCount());
+    assertNull(ds.getPoolState().idleConnections.get(0).getStatementCache());
+  }
+
+  private void execute(Connection conn, String sql) throws SQLException {
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setString(1, "id");
+      ps.executeQuery().close();
+    }
+  }
+
+}
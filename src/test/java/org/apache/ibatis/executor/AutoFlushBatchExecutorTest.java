@@ -0,0 +1,159 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMap;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AutoFlushBatchExecutorTest extends BaseDataTest {
+
+  private static DataSource dataSource;
+
+  private final Configuration config = new Configuration();
+
+  @BeforeAll
+  static void setup() throws Exception {
+    dataSource = createBlogDataSource();
+  }
+
+  @Test
+  void shouldPassBatchesReachingBatchSizeToHandler() throws Exception {
+    config.setDefaultBatchSize(2);
+    Executor executor = new BatchExecutor(config, new JdbcTransaction(dataSource, null, false));
+    try {
+      List<BatchResult> handled = new ArrayList<>();
+      executor.setBatchResultHandler(handled::add);
+      MappedStatement insertAuthor = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int i = 0; i < 5; i++) {
+        executor.update(insertAuthor, newAuthor(1000 + i));
+      }
+      assertEquals(2, handled.size());
+      assertEquals(2, handled.get(0).getParameterObjects().size());
+      assertEquals(2, handled.get(0).getUpdateCounts().length);
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals(1, results.get(0).getParameterObjects().size());
+      MappedStatement selectAuthor = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      List<Author> authors = executor.query(selectAuthor, 1003, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(1, authors.size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldReturnExecutedBatchesWhenFlushedWithoutHandler() throws Exception {
+    config.setDefaultBatchSize(2);
+    Executor executor = new BatchExecutor(config, new JdbcTransaction(dataSource, null, false));
+    try {
+      MappedStatement insertAuthor = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int i = 0; i < 5; i++) {
+        executor.update(insertAuthor, newAuthor(1000 + i));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(3, results.size());
+      assertTrue(executor.flushStatements().isEmpty());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldDiscardExecutedBatchesOnRollback() throws Exception {
+    config.setDefaultBatchSize(2);
+    Executor executor = new BatchExecutor(config, new JdbcTransaction(dataSource, null, false));
+    try {
+      MappedStatement insertAuthor = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int i = 0; i < 3; i++) {
+        executor.update(insertAuthor, newAuthor(1000 + i));
+      }
+      executor.rollback(true);
+      assertTrue(executor.flushStatements().isEmpty());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldExecuteBatchesReachingStatementMaxBytes() throws Exception {
+    config.setDefaultBatchSize(1000);
+    Executor executor = new BatchExecutor(config, new JdbcTransaction(dataSource, null, false));
+    try {
+      List<BatchResult> handled = new ArrayList<>();
+      executor.setBatchResultHandler(handled::add);
+      // each row is estimated to 8 bytes for the id and 20 bytes for the name
+      MappedStatement insertTag = prepareInsertTagMappedStatement(50L);
+      for (int i = 0; i < 5; i++) {
+        executor.update(insertTag, newTag(1000 + i, "abcdefghij"));
+      }
+      assertEquals(2, handled.size());
+      assertEquals(2, handled.get(0).getParameterObjects().size());
+      assertEquals(2, handled.get(1).getParameterObjects().size());
+      assertEquals(1, executor.flushStatements().size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  private Author newAuthor(int id) {
+    return new Author(id, "author" + id, "******", "author" + id + "@apache.org", null, Section.NEWS);
+  }
+
+  private Map<String, Object> newTag(int id, String name) {
+    Map<String, Object> tag = new HashMap<>();
+    tag.put("id", id);
+    tag.put("name", name);
+    return tag;
+  }
+
+  private MappedStatement prepareInsertTagMappedStatement(Long batchMaxBytes) {
+    final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
+    List<ParameterMapping> parameterMappings = new ArrayList<>();
+    parameterMappings.add(new ParameterMapping.Builder(config, "id", registry.getTypeHandler(int.class)).build());
+    parameterMappings.add(new ParameterMapping.Builder(config, "name", registry.getTypeHandler(String.class)).build());
+    return new MappedStatement.Builder(config, "insertTag",
+        new StaticSqlSource(config, "INSERT INTO tag (id,name) values(?,?)"), SqlCommandType.INSERT)
+        .parameterMap(new ParameterMap.Builder(config, "defaultParameterMap", Map.class, parameterMappings).build())
+        .batchMaxBytes(batchMaxBytes)
+        .build();
+  }
+}
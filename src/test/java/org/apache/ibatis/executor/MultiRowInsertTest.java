@@ -0,0 +1,57 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class MultiRowInsertTest {
+
+  @Test
+  void shouldRepeatRowOfSingleRowInsert() {
+    MultiRowInsert insert = MultiRowInsert.parse("INSERT INTO author (id, name) values(?, lower(?))");
+    assertNotNull(insert);
+    assertEquals("INSERT INTO author (id, name) values(?, lower(?))", insert.sql(1));
+    assertEquals("INSERT INTO author (id, name) values(?, lower(?)), (?, lower(?)), (?, lower(?))", insert.sql(3));
+  }
+
+  @Test
+  void shouldIgnoreParenthesesAndKeywordsInLiterals() {
+    MultiRowInsert insert = MultiRowInsert.parse("insert into \"values\" (a, b) values ('x)', ?)\n");
+    assertNotNull(insert);
+    assertEquals("insert into \"values\" (a, b) values ('x)', ?), ('x)', ?)", insert.sql(2));
+  }
+
+  @Test
+  void shouldKeepCharactersThatChangeLengthWhenLowerCased() {
+    // "\u0130" (I with dot above) becomes two characters when lower cased
+    MultiRowInsert insert = MultiRowInsert.parse("INSERT INTO \"\u0130L\" (id, name) VALUES (?, '\u0130stanbul')");
+    assertNotNull(insert);
+    assertEquals("INSERT INTO \"\u0130L\" (id, name) VALUES (?, '\u0130stanbul'), (?, '\u0130stanbul')", insert.sql(2));
+  }
+
+  @Test
+  void shouldNotRewriteOtherStatements() {
+    assertNull(MultiRowInsert.parse("update author set name = ?"));
+    assertNull(MultiRowInsert.parse("insert into author (id) values (?), (?)"));
+    assertNull(MultiRowInsert.parse("insert into author (id) select id from other"));
+    assertNull(MultiRowInsert.parse("insert into author (id, name) values (?, ?) on duplicate key update name = ?"));
+    assertNull(MultiRowInsert.parse("insert into author (id) values (?) returning id"));
+    assertNull(MultiRowInsert.parse("insert into author (id) values ('unterminated)"));
+  }
+
+}
@@ -0,0 +1,198 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMap;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ReorderingBatchExecutorTest extends BaseExecutorTest {
+
+  private static DataSource dataSource;
+
+  @BeforeAll
+  static void setupDataSource() throws Exception {
+    dataSource = createBlogDataSource();
+  }
+
+  @Test
+  void shouldBatchInterleavedStatementsOnDifferentTables() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(dataSource, null, false));
+    try {
+      MappedStatement insertAuthor = declare(ExecutorTestHelper.prepareInsertAuthorMappedStatement(config), "author", null);
+      MappedStatement insertTag = declare(prepareInsertTagMappedStatement(), "tag", null);
+      for (int i = 0; i < 3; i++) {
+        executor.update(insertAuthor, newAuthor(1000 + i, "author" + i));
+        executor.update(insertTag, newTag(1000 + i, "tag" + i));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(insertAuthor, results.get(0).getMappedStatement());
+      assertEquals(3, results.get(0).getParameterObjects().size());
+      assertEquals(insertTag, results.get(1).getMappedStatement());
+      assertEquals(3, results.get(1).getParameterObjects().size());
+      MappedStatement selectAuthor = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      List<Author> authors = executor.query(selectAuthor, 1002, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals("author2", authors.get(0).getUsername());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldKeepOrderOfStatementsOnSameTable() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(dataSource, null, false));
+    try {
+      MappedStatement insertAuthor = declare(ExecutorTestHelper.prepareInsertAuthorMappedStatement(config), "author", null);
+      MappedStatement updateAuthor = declare(ExecutorTestHelper.prepareUpdateAuthorMappedStatement(config), "author", null);
+      MappedStatement insertTag = declare(prepareInsertTagMappedStatement(), "tag", null);
+      executor.update(insertAuthor, newAuthor(1000, "inserted"));
+      executor.update(insertTag, newTag(1000, "tag"));
+      executor.update(updateAuthor, newAuthor(1000, "updated"));
+      executor.update(insertAuthor, newAuthor(1001, "inserted"));
+      executor.update(insertTag, newTag(1001, "tag"));
+      List<BatchResult> results = executor.flushStatements();
+      // the second insert of an author can not be moved before the update, the insert of a tag can
+      assertEquals(4, results.size());
+      assertEquals(insertAuthor, results.get(0).getMappedStatement());
+      assertEquals(insertTag, results.get(1).getMappedStatement());
+      assertEquals(2, results.get(1).getParameterObjects().size());
+      assertEquals(updateAuthor, results.get(2).getMappedStatement());
+      assertEquals(insertAuthor, results.get(3).getMappedStatement());
+      MappedStatement selectAuthor = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      List<Author> authors = executor.query(selectAuthor, 1000, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals("updated", authors.get(0).getUsername());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldNotMoveStatementsThatDoNotDeclareTables() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(dataSource, null, false));
+    try {
+      MappedStatement insertAuthor = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement insertTag = declare(prepareInsertTagMappedStatement(), "tag", null);
+      for (int i = 0; i < 2; i++) {
+        executor.update(insertAuthor, newAuthor(1000 + i, "author" + i));
+        executor.update(insertTag, newTag(1000 + i, "tag" + i));
+      }
+      // the tables parsed from the SQL do not tell whether the rows reference each other
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(4, results.size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldNotMoveStatementBeforeTheTablesItDependsOn() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(dataSource, null, false));
+    try {
+      MappedStatement insertAuthor = declare(ExecutorTestHelper.prepareInsertAuthorMappedStatement(config), "author", null);
+      MappedStatement insertTag = declare(prepareInsertTagMappedStatement(), "tag", "author");
+      executor.update(insertTag, newTag(1000, "tag of an existing author"));
+      executor.update(insertAuthor, newAuthor(1000, "author"));
+      executor.update(insertTag, newTag(1001, "tag of the new author"));
+      List<BatchResult> results = executor.flushStatements();
+      // the second tag must not be inserted before its author
+      assertEquals(3, results.size());
+      assertEquals(insertTag, results.get(0).getMappedStatement());
+      assertEquals(insertAuthor, results.get(1).getMappedStatement());
+      assertEquals(insertTag, results.get(2).getMappedStatement());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldBatchInterleavedParentAndChildRows() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(dataSource, null, false));
+    try {
+      MappedStatement insertAuthor = declare(ExecutorTestHelper.prepareInsertAuthorMappedStatement(config), "author", null);
+      MappedStatement insertTag = declare(prepareInsertTagMappedStatement(), "tag", "author");
+      executor.update(insertAuthor, newAuthor(1000, "author0"));
+      executor.update(insertTag, newTag(1000, "tag0"));
+      executor.update(insertAuthor, newAuthor(1001, "author1"));
+      executor.update(insertTag, newTag(1001, "tag1"));
+      List<BatchResult> results = executor.flushStatements();
+      // the second author can be moved before the first tag, which still follows its author
+      assertEquals(2, results.size());
+      assertEquals(insertAuthor, results.get(0).getMappedStatement());
+      assertEquals(2, results.get(0).getParameterObjects().size());
+      assertEquals(insertTag, results.get(1).getMappedStatement());
+      assertEquals(2, results.get(1).getParameterObjects().size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  private MappedStatement declare(MappedStatement ms, String tables, String dependsOn) {
+    return new MappedStatement.Builder(config, ms.getId(), ms.getSqlSource(), ms.getSqlCommandType())
+        .parameterMap(ms.getParameterMap()).cache(ms.getCache()).tables(tables).dependsOn(dependsOn).build();
+  }
+
+  private Author newAuthor(int id, String username) {
+    return new Author(id, username, "******", username + "@apache.org", null, Section.NEWS);
+  }
+
+  private Map<String, Object> newTag(int id, String name) {
+    Map<String, Object> tag = new HashMap<>();
+    tag.put("id", id);
+    tag.put("name", name);
+    return tag;
+  }
+
+  private MappedStatement prepareInsertTagMappedStatement() {
+    final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
+    List<ParameterMapping> parameterMappings = new ArrayList<>();
+    parameterMappings.add(new ParameterMapping.Builder(config, "id", registry.getTypeHandler(int.class)).build());
+    parameterMappings.add(new ParameterMapping.Builder(config, "name", registry.getTypeHandler(String.class)).build());
+    return new MappedStatement.Builder(config, "insertTag",
+        new StaticSqlSource(config, "INSERT INTO tag (id,name) values(?,?)"), SqlCommandType.INSERT)
+        .parameterMap(new ParameterMap.Builder(config, "defaultParameterMap", Map.class, parameterMappings).build())
+        .build();
+  }
+
+  @Override
+  protected Executor createExecutor(Transaction transaction) {
+    return new BatchExecutor(config, transaction, true);
+  }
+}
@@ -0,0 +1,64 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.type.JdbcType;
+import org.junit.jupiter.api.Test;
+
+class MappingPlanCacheTest {
+
+  private static final List<String> CLASS_NAMES = Arrays.asList("java.lang.Integer", "java.lang.String");
+  private static final List<JdbcType> JDBC_TYPES = Arrays.asList(JdbcType.INTEGER, JdbcType.VARCHAR);
+
+  @Test
+  void shouldReusePlanOfSameStatementAndColumns() {
+    MappingPlanCache cache = new MappingPlanCache(16);
+    MappingPlanCache.Plan plan = cache.getPlan("select", Arrays.asList("id", "name"), CLASS_NAMES, JDBC_TYPES);
+    assertSame(plan, cache.getPlan("select", Arrays.asList("id", "name"), CLASS_NAMES, JDBC_TYPES));
+    assertNotSame(plan, cache.getPlan("other", Arrays.asList("id", "name"), CLASS_NAMES, JDBC_TYPES));
+    assertNotSame(plan, cache.getPlan("select", Arrays.asList("id", "title"), CLASS_NAMES, JDBC_TYPES));
+    assertNotSame(plan, cache.getPlan("select", Arrays.asList("id", "name"),
+        Arrays.asList("java.lang.Long", "java.lang.String"), JDBC_TYPES));
+    assertNotSame(plan, cache.getPlan("select", Arrays.asList("id", "name"), CLASS_NAMES,
+        Arrays.asList(JdbcType.BIGINT, JdbcType.VARCHAR)));
+    assertEquals(5, cache.getSize());
+  }
+
+  @Test
+  void shouldResolveColumnIndexesOnce() {
+    MappingPlanCache cache = new MappingPlanCache(16);
+    MappingPlanCache.Plan plan = cache.getPlan("select", Arrays.asList("id", "name", "ID"), CLASS_NAMES, JDBC_TYPES);
+    assertEquals(Integer.valueOf(1), plan.columnIndexes.get("ID"));
+    assertEquals(Integer.valueOf(2), plan.columnIndexes.get("NAME"));
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedPlansBeyondSize() {
+    MappingPlanCache cache = new MappingPlanCache(8);
+    for (int i = 0; i < 100; i++) {
+      cache.getPlan("select" + i, Collections.singletonList("id"), Collections.singletonList("java.lang.Integer"),
+          Collections.singletonList(JdbcType.INTEGER));
+    }
+    assertTrue(cache.getSize() <= 8);
+  }
+
+}
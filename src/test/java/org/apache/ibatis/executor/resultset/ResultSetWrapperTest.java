@@ -0,0 +1,72 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ResultSetWrapperTest {
+
+  @Mock
+  private ResultSet rs;
+  @Mock
+  private ResultSetMetaData rsmd;
+
+  @Test
+  void shouldResolveColumnIndexesIgnoringCase() throws Exception {
+    ResultSetWrapper rsw = createWrapper("id", "Name", "author_ID", "ID");
+    assertEquals(1, rsw.getColumnIndex("ID"));
+    assertEquals(2, rsw.getColumnIndex("name"));
+    assertEquals(-1, rsw.getColumnIndex("missing"));
+    assertEquals(-1, rsw.getColumnIndex(null));
+  }
+
+  @Test
+  void shouldResolveColumnIndexesWithPrefix() throws Exception {
+    ResultSetWrapper rsw = createWrapper("id", "name", "AUTHOR_ID", "author_name");
+    assertEquals(3, rsw.getColumnIndex("id", "AUTHOR_"));
+    assertEquals(4, rsw.getColumnIndex("NAME", "AUTHOR_"));
+    assertEquals(1, rsw.getColumnIndex("id", null));
+    assertEquals(1, rsw.getColumnIndex("id", ""));
+    assertEquals(-1, rsw.getColumnIndex("email", "AUTHOR_"));
+    // resolved indexes are remembered per prefix
+    assertEquals(3, rsw.getColumnIndex("id", "AUTHOR_"));
+    assertEquals(1, rsw.getColumnIndex("id"));
+  }
+
+  private ResultSetWrapper createWrapper(String... columnLabels) throws Exception {
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rsmd.getColumnCount()).thenReturn(columnLabels.length);
+    for (int i = 0; i < columnLabels.length; i++) {
+      when(rsmd.getColumnLabel(i + 1)).thenReturn(columnLabels[i]);
+      when(rsmd.getColumnType(i + 1)).thenReturn(Types.VARCHAR);
+      when(rsmd.getColumnClassName(i + 1)).thenReturn(String.class.getName());
+    }
+    return new ResultSetWrapper(rs, new Configuration());
+  }
+
+}
@@ -0,0 +1,84 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class RowKeyTest {
+
+  @Test
+  void shouldBeEqualForSameResultMapAndValues() {
+    RowKey key1 = rowKey("blogResult", null, 1, "title");
+    RowKey key2 = rowKey("blogResult", null, 1, "title");
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertNotEquals(key1, rowKey("blogResult", null, 2, "title"));
+    assertNotEquals(key1, rowKey("postResult", null, 1, "title"));
+  }
+
+  @Test
+  void shouldDistinguishColumnPrefixes() {
+    // the same result map mapped twice in a row, e.g. an author and a co-author
+    assertNotEquals(rowKey("authorResult", "A_", 1), rowKey("authorResult", "C_", 1));
+  }
+
+  @Test
+  void shouldKeepPositionOfNullValues() {
+    assertNotEquals(rowKey("blogResult", null, null, 1), rowKey("blogResult", null, 1, null));
+  }
+
+  @Test
+  void shouldBeNullWithoutValues() {
+    assertSame(RowKey.NULL_ROW_KEY, rowKey("blogResult", null, null, null).orNull());
+    RowKey emptyRow = new RowKey("blogResult", null, 1);
+    emptyRow.add(null, true);
+    assertSame(emptyRow, emptyRow.orNull());
+  }
+
+  @Test
+  void shouldCombineWithParentKey() {
+    RowKey blog1 = rowKey("blogResult", null, 1).orNull();
+    RowKey blog2 = rowKey("blogResult", null, 2).orNull();
+    RowKey postOfBlog1 = rowKey("postResult", "P_", 10).orNull().combine(blog1);
+    assertEquals(postOfBlog1, rowKey("postResult", "P_", 10).orNull().combine(rowKey("blogResult", null, 1)));
+    assertNotEquals(postOfBlog1, rowKey("postResult", "P_", 10).orNull().combine(blog2));
+    assertNotEquals(postOfBlog1, rowKey("postResult", "P_", 10).orNull());
+    assertSame(RowKey.NULL_ROW_KEY, rowKey("postResult", "P_", 10).orNull().combine(RowKey.NULL_ROW_KEY));
+    assertSame(RowKey.NULL_ROW_KEY, RowKey.NULL_ROW_KEY.combine(blog1));
+  }
+
+  @Test
+  void shouldGrowBeyondExpectedSize() {
+    RowKey key1 = new RowKey("blogResult", null, 1);
+    RowKey key2 = new RowKey("blogResult", null, 1);
+    for (int i = 0; i < 10; i++) {
+      key1.add(i, true);
+      key2.add(i, true);
+    }
+    assertEquals(key1, key2);
+  }
+
+  private RowKey rowKey(String resultMapId, String columnPrefix, Object... values) {
+    RowKey rowKey = new RowKey(resultMapId, columnPrefix, values.length);
+    for (Object value : values) {
+      rowKey.add(value, value != null);
+    }
+    return rowKey;
+  }
+
+}
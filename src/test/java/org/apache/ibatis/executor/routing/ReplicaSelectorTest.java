@@ -0,0 +1,135 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.routing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.Test;
+
+class ReplicaSelectorTest {
+
+  private final Environment replica1 = replica("replica1");
+  private final Environment replica2 = replica("replica2");
+  private final Environment replica3 = replica("replica3");
+  private final List<Environment> replicas = Arrays.asList(replica1, replica2, replica3);
+
+  @Test
+  void shouldGiveReplicasInTurn() {
+    ReplicaSelector selector = new RoundRobinReplicaSelector();
+    assertSame(replica1, selector.select(replicas));
+    assertSame(replica2, selector.select(replicas));
+    assertSame(replica3, selector.select(replicas));
+    assertSame(replica1, selector.select(replicas));
+  }
+
+  @Test
+  void shouldGiveLeastBusyReplica() {
+    LeastBusyReplicaSelector selector = new LeastBusyReplicaSelector();
+    Environment first = selector.select(replicas);
+    Environment second = selector.select(replicas);
+    Environment third = selector.select(replicas);
+    assertEquals(3, Arrays.asList(first, second, third).stream().distinct().count());
+    selector.released(second);
+    assertSame(second, selector.select(replicas));
+    assertEquals(1, selector.getSessions(first));
+    selector.released(first);
+    assertEquals(0, selector.getSessions(first));
+  }
+
+  @Test
+  void shouldFavorFastReplicas() {
+    LatencyWeightedReplicaSelector selector = new LatencyWeightedReplicaSelector(1);
+    selector.queryCompleted(replica1, 1_000);
+    selector.queryCompleted(replica2, 100_000);
+    selector.queryCompleted(replica3, 100_000);
+    Map<Environment, Integer> counts = new HashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      counts.merge(selector.select(replicas), 1, Integer::sum);
+    }
+    // replica1 should get about 98% of the sessions
+    assertTrue(counts.get(replica1) > 9_000);
+  }
+
+  @Test
+  void shouldAverageLatencies() {
+    LatencyWeightedReplicaSelector selector = new LatencyWeightedReplicaSelector(0.5);
+    assertNull(selector.getLatency(replica1));
+    selector.queryCompleted(replica1, 1_000);
+    selector.queryCompleted(replica1, 3_000);
+    assertEquals(2_000, selector.getLatency(replica1), 0.1);
+  }
+
+  @Test
+  void shouldTryUnmeasuredReplicas() {
+    LatencyWeightedReplicaSelector selector = new LatencyWeightedReplicaSelector();
+    selector.queryCompleted(replica1, 1_000_000);
+    boolean unmeasured = false;
+    for (int i = 0; i < 100 && !unmeasured; i++) {
+      unmeasured = selector.select(replicas) != replica1;
+    }
+    assertTrue(unmeasured);
+  }
+
+  @Test
+  void shouldKeepMeasuringSlowReplicas() {
+    LatencyWeightedReplicaSelector selector = new LatencyWeightedReplicaSelector(1);
+    selector.queryCompleted(replica1, 1_000);
+    selector.queryCompleted(replica2, 1_000);
+    selector.queryCompleted(replica3, 1_000_000_000);
+    int slow = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (selector.select(replicas) == replica3) {
+        slow++;
+        // the replica has recovered
+        selector.queryCompleted(replica3, 1_000);
+      }
+    }
+    assertTrue(slow > 1_000);
+    assertEquals(1_000, selector.getLatency(replica3), 0.1);
+  }
+
+  @Test
+  void shouldNotExploreWhenDisabled() {
+    LatencyWeightedReplicaSelector selector = new LatencyWeightedReplicaSelector(1, 0);
+    selector.queryCompleted(replica1, 1_000);
+    selector.queryCompleted(replica2, 1_000_000_000_000L);
+    selector.queryCompleted(replica3, 1_000_000_000_000L);
+    for (int i = 0; i < 1_000; i++) {
+      assertSame(replica1, selector.select(replicas));
+    }
+  }
+
+  @Test
+  void shouldRejectInvalidSmoothing() {
+    assertThrows(IllegalArgumentException.class, () -> new LatencyWeightedReplicaSelector(0));
+    assertThrows(IllegalArgumentException.class, () -> new LatencyWeightedReplicaSelector(1.5));
+    assertThrows(IllegalArgumentException.class, () -> new LatencyWeightedReplicaSelector(0.5, -0.1));
+    assertThrows(IllegalArgumentException.class, () -> new LatencyWeightedReplicaSelector(0.5, 1));
+  }
+
+  private static Environment replica(String id) {
+    return new Environment(id, new JdbcTransactionFactory(), new UnpooledDataSource());
+  }
+
+}
@@ -18,6 +18,9 @@ package org.apache.ibatis.mapping;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.impl.CompactCacheSerializer;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -43,6 +46,14 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void testSerializerIsSetOnImplementation() {
+    CacheSerializer serializer = new CompactCacheSerializer();
+    OffHeapCache cache = unwrap(new CacheBuilder("test").implementation(OffHeapCache.class).serializer(serializer).build());
+
+    Assertions.assertThat(cache.getSerializer()).isSameAs(serializer);
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
@@ -0,0 +1,133 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_mapper_method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AsyncMapperMethodTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_mapper_method/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_mapper_method/CreateDB.sql");
+  }
+
+  @Test
+  void shouldCompleteFuturesWithMappedResults() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<User> user = mapper.getUser(1);
+      CompletableFuture<Optional<User>> missing = mapper.findUser(3);
+      List<User> users = mapper.getUsers().toCompletableFuture().get(10, TimeUnit.SECONDS);
+      assertEquals("User1", user.get(10, TimeUnit.SECONDS).getName());
+      assertFalse(missing.get(10, TimeUnit.SECONDS).isPresent());
+      assertEquals(2, users.size());
+      assertEquals("User2", users.get(1).getName());
+      assertEquals("User2", mapper.getUserName(2).get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void shouldRunOperationsInSubmissionOrderOnTheSameTransaction() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      user.setId(3);
+      user.setName("User3");
+      CompletableFuture<Integer> inserted = mapper.insertUser(user);
+      CompletableFuture<User> selected = mapper.getUser(3);
+      CompletableFuture<Void> rolledBack = sqlSession.getAsyncSession().rollback();
+      CompletableFuture<Optional<User>> selectedAfterRollback = mapper.findUser(3);
+      assertEquals(1, inserted.get(10, TimeUnit.SECONDS).intValue());
+      assertEquals("User3", selected.get(10, TimeUnit.SECONDS).getName());
+      rolledBack.get(10, TimeUnit.SECONDS);
+      assertFalse(selectedAfterRollback.get(10, TimeUnit.SECONDS).isPresent());
+    }
+  }
+
+  @Test
+  void shouldNotRunOnTheCallerThread() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Thread caller = Thread.currentThread();
+      Thread worker = sqlSession.getAsyncSession().submit(session -> Thread.currentThread()).get(10, TimeUnit.SECONDS);
+      assertNotSame(caller, worker);
+      assertTrue(worker.isDaemon());
+    }
+  }
+
+  @Test
+  void shouldCompleteExceptionallyAndRunTheNextOperations() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<User> failed = mapper.getMissingUser();
+      CompletableFuture<User> user = mapper.getUser(1);
+      ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof PersistenceException);
+      assertEquals("User1", user.get(10, TimeUnit.SECONDS).getName());
+    }
+  }
+
+  @Test
+  void shouldSkipCancelledOperations() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      AsyncSqlSession asyncSession = sqlSession.getAsyncSession();
+      CountDownLatch latch = new CountDownLatch(1);
+      CompletableFuture<Object> blocking = asyncSession.submit(session -> {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return null;
+      });
+      User user = new User();
+      user.setId(3);
+      user.setName("User3");
+      CompletableFuture<Integer> inserted = asyncSession.insert(
+          "org.apache.ibatis.submitted.async_mapper_method.Mapper.insertUser", user);
+      inserted.cancel(false);
+      latch.countDown();
+      blocking.get(10, TimeUnit.SECONDS);
+      CompletableFuture<List<User>> users = asyncSession.selectList(
+          "org.apache.ibatis.submitted.async_mapper_method.Mapper.getUsers");
+      assertEquals(2, users.get(10, TimeUnit.SECONDS).size());
+    }
+  }
+
+}
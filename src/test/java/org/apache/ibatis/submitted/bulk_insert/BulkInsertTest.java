@@ -0,0 +1,168 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.bulk_insert;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BulkInsertTest {
+
+  private static final String INSERT_USER = "org.apache.ibatis.submitted.bulk_insert.Mapper.insertUser";
+  private static final String COPY_USER = "org.apache.ibatis.submitted.bulk_insert.Mapper.copyUser";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/bulk_insert/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @BeforeEach
+  void createDB() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/bulk_insert/CreateDB.sql");
+  }
+
+  @Test
+  void shouldInsertAllAndSetGeneratedKeys() {
+    List<User> users = Arrays.asList(newUser("New1"), newUser("New2"), newUser("New3"));
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(3, sqlSession.insertAll(INSERT_USER, users));
+      sqlSession.commit();
+    }
+    assertEquals(Arrays.asList(100, 101, 102), users.stream().map(User::getId).collect(Collectors.toList()));
+    assertEquals(8, countRows("users"));
+  }
+
+  @Test
+  void shouldReadParametersOneBatchAtATime() {
+    List<Integer> insertedRowsBeforeEachRead = new ArrayList<>();
+    Iterable<User> users = () -> new Iterator<User>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < 5;
+      }
+
+      @Override
+      public User next() {
+        // the previous batches are visible, as the session commits each of them
+        insertedRowsBeforeEachRead.add(countRows("users") - 5);
+        return newUser("New" + next++);
+      }
+    };
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      assertEquals(5, sqlSession.insertAll(INSERT_USER, users));
+    }
+    assertEquals(Arrays.asList(0, 0, 2, 2, 4), insertedRowsBeforeEachRead);
+    assertEquals(10, countRows("users"));
+  }
+
+  @Test
+  void shouldCopyRowsFromCursor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      try (Cursor<User> users = sqlSession.getMapper(Mapper.class).getUsers()) {
+        assertEquals(5, sqlSession.insertAll(COPY_USER, users));
+      }
+      sqlSession.commit();
+      List<User> copied = sqlSession.getMapper(Mapper.class).getCopiedUsers();
+      assertEquals(5, copied.size());
+      assertEquals("User5", copied.get(4).getName());
+    }
+  }
+
+  @Test
+  void shouldInsertAllFromStream() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Stream<User> users = Stream.of("New1", "New2").map(BulkInsertTest::newUser);
+      Iterable<User> iterable = users::iterator;
+      assertEquals(2, sqlSession.insertAll(INSERT_USER, iterable));
+      sqlSession.commit();
+    }
+    assertEquals(7, countRows("users"));
+  }
+
+  @Test
+  void shouldExecutePendingBatchesFirst() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      User first = newUser("First");
+      first.setId(10);
+      sqlSession.insert(COPY_USER, first);
+      User second = newUser("Second");
+      second.setId(11);
+      sqlSession.insertAll(COPY_USER, Arrays.asList(second));
+      sqlSession.flushStatements();
+      sqlSession.commit();
+      List<User> copied = sqlSession.getMapper(Mapper.class).getCopiedUsers();
+      assertEquals(Arrays.asList("First", "Second"), copied.stream().map(User::getName).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void shouldWrapFailures() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThrows(PersistenceException.class, () -> sqlSession.insertAll(INSERT_USER,
+          Arrays.asList(newUser("New1"), newUser("A name longer than the column"))));
+    }
+  }
+
+  private static User newUser(String name) {
+    User user = new User();
+    user.setName(name);
+    return user;
+  }
+
+  private static int countRows(String table) {
+    DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("select count(*) from " + table)) {
+      rs.next();
+      return rs.getInt(1);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
@@ -0,0 +1,148 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mappers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.resultset.RowMapperCompiler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMappersTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mappers/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_row_mappers/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapAutomaticMappingsWithGeneratedMapper() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals(4, users.size());
+      assertUser(users.get(0), 1, "User1", 10);
+      assertUser(users.get(1), 2, "User2", 0);
+      assertUser(users.get(2), 3, "User3", 30);
+      // a row without value is not mapped
+      assertNull(users.get(3));
+      // the first row is mapped by reflection
+      assertFalse(users.get(0).isCompiled());
+      assertTrue(users.get(1).isCompiled());
+      assertTrue(users.get(2).isCompiled());
+    }
+  }
+
+  @Test
+  void shouldReuseGeneratedMapperInOtherSessions() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUsers();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertUser(users.get(1), 2, "User2", 0);
+      assertTrue(users.get(1).isCompiled());
+    }
+  }
+
+  @Test
+  void shouldMapExplicitMappingsWithGeneratedMapper() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithResultMap();
+      assertEquals(4, users.size());
+      // the age is not mapped as the automatic mapping is disabled
+      assertUser(users.get(0), 1, "User1", 0);
+      assertUser(users.get(2), 3, "User3", 0);
+      assertTrue(users.get(2).isCompiled());
+      assertNull(users.get(3));
+    }
+  }
+
+  @Test
+  void shouldCallConstructorFromGeneratedMapper() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<ImmutableUser> users = sqlSession.getMapper(Mapper.class).getImmutableUsers();
+      assertEquals(3, users.size());
+      assertEquals(1, users.get(0).getId());
+      assertEquals("User1", users.get(0).getUserName());
+      assertFalse(users.get(0).isCompiled());
+      assertEquals(3, users.get(2).getId());
+      assertEquals("User3", users.get(2).getUserName());
+      assertTrue(users.get(2).isCompiled());
+    }
+  }
+
+  @Test
+  void shouldMapByReflectionWhenPropertiesHaveNoSetter() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<FieldUser> users = sqlSession.getMapper(Mapper.class).getFieldUsers();
+      assertEquals(3, users.size());
+      assertEquals(Integer.valueOf(3), users.get(2).getId());
+      assertEquals("User3", users.get(2).getUserName());
+    }
+  }
+
+  @Test
+  void shouldMapCursorRowsWithGeneratedMapper() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+         Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getUserCursor()) {
+      List<User> users = new ArrayList<>();
+      cursor.forEach(users::add);
+      // the cursor ends at the row without value
+      assertEquals(3, users.size());
+      assertUser(users.get(2), 3, "User3", 30);
+      assertTrue(users.get(2).isCompiled());
+    }
+  }
+
+  @Test
+  void shouldStopGeneratingMappersAfterTooManySetsOfColumns() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < RowMapperCompiler.MAX_VARIANTS_PER_RESULT_MAP; i++) {
+        assertTrue(mapper.getUsersWithExtraColumn("extra" + i).get(1).isCompiled());
+      }
+      List<User> users = mapper.getUsersWithExtraColumn("other");
+      assertUser(users.get(1), 2, "User2", 0);
+      assertFalse(users.get(1).isCompiled());
+      // the sets of columns already compiled keep their mapper
+      sqlSession.clearCache();
+      assertTrue(mapper.getUsersWithExtraColumn("extra0").get(1).isCompiled());
+    }
+  }
+
+  private void assertUser(User user, int id, String userName, int age) {
+    assertEquals(Integer.valueOf(id), user.getId());
+    assertEquals(userName, user.getUserName());
+    assertEquals(age, user.getAge());
+  }
+
+}
@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mappers;
+
+public class ImmutableUser {
+
+  private final int id;
+  private final String userName;
+  private final boolean compiled;
+
+  public ImmutableUser(int id, String userName) {
+    this.id = id;
+    this.userName = userName;
+    this.compiled = RowMappers.isCalledByRowMapper();
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  public boolean isCompiled() {
+    return compiled;
+  }
+
+}
@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mappers;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+
+public interface Mapper {
+
+  @Select("select id, user_name, age from users order by id nulls last")
+  List<User> getUsers();
+
+  @Select("select id, user_name, age from users order by id nulls last")
+  Cursor<User> getUserCursor();
+
+  @Select("select id, user_name, age, 0 as ${extraColumn} from users order by id nulls last")
+  List<User> getUsersWithExtraColumn(@Param("extraColumn") String extraColumn);
+
+  List<User> getUsersWithResultMap();
+
+  List<ImmutableUser> getImmutableUsers();
+
+  @Select("select id, user_name from users where id is not null order by id")
+  List<FieldUser> getFieldUsers();
+
+}
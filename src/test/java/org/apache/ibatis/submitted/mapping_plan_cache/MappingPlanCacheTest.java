@@ -0,0 +1,129 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.mapping_plan_cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.resultset.MappingPlanCache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MappingPlanCacheTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/mapping_plan_cache/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/mapping_plan_cache/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void clearPlans() {
+    getPlans().clear();
+  }
+
+  @Test
+  void shouldReusePlanAcrossSessions() {
+    for (int i = 0; i < 3; i++) {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+        assertEquals(3, users.size());
+        assertEquals(Integer.valueOf(2), users.get(1).getId());
+        assertEquals("User2", users.get(1).getUserName());
+      }
+    }
+    assertEquals(1, getPlans().getSize());
+  }
+
+  @Test
+  void shouldKeepOnePlanPerSetOfColumns() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 2; i++) {
+        List<User> withName = mapper.getUsersWithColumns(true);
+        assertEquals("User1", withName.get(0).getUserName());
+        List<User> withoutName = mapper.getUsersWithColumns(false);
+        assertEquals(Integer.valueOf(1), withoutName.get(0).getId());
+        assertNull(withoutName.get(0).getUserName());
+        sqlSession.clearCache();
+      }
+    }
+    assertEquals(2, getPlans().getSize());
+  }
+
+  @Test
+  void shouldReusePlanOfNestedResultMapsWithColumnPrefix() {
+    for (int i = 0; i < 2; i++) {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithTeams();
+        assertEquals(3, users.size());
+        assertEquals("User3", users.get(2).getUserName());
+        assertEquals(Integer.valueOf(2), users.get(2).getTeam().getId());
+        assertEquals("Team2", users.get(2).getTeam().getName());
+        assertEquals("Team1", users.get(1).getTeam().getName());
+      }
+    }
+    assertEquals(1, getPlans().getSize());
+  }
+
+  @Test
+  void shouldSharePlanBetweenThreads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 50; i++) {
+            try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+              List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithTeams();
+              assertEquals(3, users.size());
+              assertEquals("User1", users.get(0).getUserName());
+              assertEquals("Team1", users.get(0).getTeam().getName());
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1, getPlans().getSize());
+  }
+
+  private MappingPlanCache getPlans() {
+    return sqlSessionFactory.getConfiguration().getMappingPlanCache();
+  }
+
+}
@@ -0,0 +1,54 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.read_write_routing;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Route;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.StatementRoute;
+
+public interface Mapper {
+
+  @Select("select name from users where id = #{id}")
+  String getName(int id);
+
+  @Select("select name from users where id = #{id}")
+  Cursor<String> getNameCursor(int id);
+
+  @Route(StatementRoute.PRIMARY)
+  @Select("select name from users where id = #{id}")
+  String getNameFromPrimary(int id);
+
+  @Route(StatementRoute.REPLICA)
+  @Select("select name from users where id = #{id}")
+  String getNameFromReplica(int id);
+
+  String getNameFromPrimaryXml(int id);
+
+  @Select("select name from users where id = #{id} for update")
+  String getNameForUpdate(int id);
+
+  @Options(flushCache = Options.FlushCachePolicy.TRUE)
+  @Select("select name from users where id = #{id}")
+  String getNameFlushingCache(int id);
+
+  @Update("update users set name = #{name} where id = #{id}")
+  int updateName(@Param("id") int id, @Param("name") String name);
+
+}
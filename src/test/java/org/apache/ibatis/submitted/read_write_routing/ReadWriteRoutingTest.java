@@ -0,0 +1,201 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.read_write_routing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.StatementRoute;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReadWriteRoutingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/read_write_routing/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @BeforeEach
+  void createDatabases() throws Exception {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    BaseDataTest.runScript(configuration.getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/read_write_routing/Primary.sql");
+    List<Environment> replicas = configuration.getReplicas();
+    for (int i = 0; i < replicas.size(); i++) {
+      BaseDataTest.runScript(replicas.get(i).getDataSource(),
+          "org/apache/ibatis/submitted/read_write_routing/Replica" + (i + 1) + ".sql");
+    }
+  }
+
+  @Test
+  void shouldParseReplicas() {
+    List<String> ids = sqlSessionFactory.getConfiguration().getReplicas().stream()
+        .map(Environment::getId).collect(Collectors.toList());
+    assertEquals(Arrays.asList("replica1", "replica2"), ids);
+  }
+
+  @Test
+  void shouldRunSelectsOnReplicasInTurn() {
+    String first;
+    String second;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      first = sqlSession.getMapper(Mapper.class).getName(1);
+      // the session keeps its replica
+      assertEquals(first, sqlSession.getMapper(Mapper.class).getName(1));
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      second = sqlSession.getMapper(Mapper.class).getName(1);
+    }
+    assertTrue(first.startsWith("Replica"));
+    assertTrue(second.startsWith("Replica"));
+    assertNotEquals(first, second);
+  }
+
+  @Test
+  void shouldReadOwnWritesFromPrimary() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertTrue(mapper.getName(1).startsWith("Replica"));
+      assertEquals(1, mapper.updateName(1, "Updated"));
+      assertEquals("Updated", mapper.getName(1));
+      sqlSession.commit();
+      assertEquals("Updated", mapper.getName(1));
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      // the replicas are not updated by the test
+      assertTrue(sqlSession.getMapper(Mapper.class).getName(1).startsWith("Replica"));
+    }
+  }
+
+  @Test
+  void shouldRollbackWritesOnPrimary() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.updateName(1, "Updated");
+      sqlSession.rollback();
+      assertEquals("Primary", mapper.getName(1));
+    }
+  }
+
+  @Test
+  void shouldRouteSelectsToPrimaryWhenAnnotated() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("Primary", mapper.getNameFromPrimary(1));
+      assertTrue(mapper.getName(1).startsWith("Replica"));
+    }
+  }
+
+  @Test
+  void shouldRouteSelectsToPrimaryWhenDeclaredInXml() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    assertEquals(StatementRoute.PRIMARY,
+        configuration.getMappedStatement("org.apache.ibatis.submitted.read_write_routing.Mapper.getNameFromPrimaryXml").getRoute());
+    assertNull(configuration.getMappedStatement("org.apache.ibatis.submitted.read_write_routing.Mapper.getName").getRoute());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals("Primary", sqlSession.getMapper(Mapper.class).getNameFromPrimaryXml(1));
+    }
+  }
+
+  @Test
+  void shouldRouteSelectsToReplicaAfterWriteWhenAnnotated() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.updateName(1, "Updated");
+      assertTrue(mapper.getNameFromReplica(1).startsWith("Replica"));
+      assertEquals("Updated", mapper.getName(1));
+    }
+  }
+
+  @Test
+  void shouldRunLockingReadsOnPrimary() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      // the rows must be locked in the transaction of the primary
+      assertEquals("Primary", mapper.getNameForUpdate(1));
+      assertEquals("Primary", mapper.getNameFlushingCache(1));
+      assertTrue(mapper.getName(1).startsWith("Replica"));
+    }
+  }
+
+  @Test
+  void shouldRouteCursors() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      try (Cursor<String> cursor = mapper.getNameCursor(1)) {
+        assertTrue(cursor.iterator().next().startsWith("Replica"));
+      }
+      mapper.updateName(1, "Updated");
+      try (Cursor<String> cursor = mapper.getNameCursor(1)) {
+        assertEquals("Updated", cursor.iterator().next());
+      }
+    }
+  }
+
+  @Test
+  void shouldReadOwnWritesFromPrimaryInBatch() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.updateName(1, "Updated");
+      // the select flushes the pending batch of the primary
+      assertEquals("Updated", mapper.getName(1));
+    }
+  }
+
+  @Test
+  void shouldNotRouteSessionsOpenedOnConnection() throws Exception {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(configuration.getEnvironment().getDataSource().getConnection())) {
+      // the selects run on the given connection
+      assertEquals("Primary", sqlSession.getMapper(Mapper.class).getName(1));
+    }
+  }
+
+  @Test
+  void shouldFailOnUnknownReplica() {
+    String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>"
+        + "<!DOCTYPE configuration PUBLIC \"-//mybatis.org//DTD Config 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-config.dtd\">"
+        + "<configuration><environments default=\"primary\" replicas=\"missing\">"
+        + "<environment id=\"primary\"><transactionManager type=\"JDBC\"/><dataSource type=\"UNPOOLED\"/></environment>"
+        + "</environments></configuration>";
+    XMLConfigBuilder builder = new XMLConfigBuilder(new StringReader(xml));
+    BuilderException e = assertThrows(BuilderException.class, builder::parse);
+    assertTrue(e.getMessage().contains("Replica 'missing' is not a declared environment."));
+  }
+
+}
@@ -0,0 +1,176 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.rewrite_batched_inserts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RewriteBatchedInsertsTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  private static final PreparedSqlInterceptor interceptor = new PreparedSqlInterceptor();
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/rewrite_batched_inserts/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(interceptor);
+  }
+
+  @BeforeEach
+  void createDB() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/rewrite_batched_inserts/CreateDB.sql");
+    interceptor.sqls.clear();
+  }
+
+  @Test
+  void shouldRewriteBatchIntoMultiRowInserts() {
+    List<User> users = newUsers(5);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (User user : users) {
+        mapper.insertUser(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(1, results.size());
+      assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, results.get(0).getUpdateCounts());
+      sqlSession.commit();
+      assertEquals(5, mapper.getUsers().size());
+    }
+    // at most 4 parameters, that is 4 rows of one parameter, in each statement
+    assertEquals(Arrays.asList(
+        "insert into users (name) values (?), (?), (?), (?)",
+        "insert into users (name) values (?)"), interceptor.sqls);
+    assertEquals(Arrays.asList(100, 101, 102, 103, 104), users.stream().map(User::getId).collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldLimitRowsByParameters() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (User user : newUsers(3)) {
+        user.setId(user.getName().hashCode());
+        mapper.insertUserWithId(user);
+      }
+      sqlSession.flushStatements();
+      sqlSession.commit();
+      assertEquals(3, mapper.getUsers().size());
+    }
+    assertEquals(Arrays.asList(
+        "insert into users (id, name) values (?, ?), (?, ?)",
+        "insert into users (id, name) values (?, ?)"), interceptor.sqls);
+  }
+
+  @Test
+  void shouldNotRewriteInsertsWithSelectKeyOrSelect() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (User user : newUsers(2)) {
+        mapper.insertUserFromSelect(user);
+      }
+      List<User> keyed = newUsers(2);
+      for (User user : keyed) {
+        mapper.insertUserWithSelectKey(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(2, results.get(0).getUpdateCounts().length);
+      sqlSession.commit();
+      assertEquals(4, mapper.getUsers().size());
+      assertEquals(1000, keyed.get(0).getId());
+    }
+    assertFalse(interceptor.sqls.stream().anyMatch(sql -> sql.contains("), (")));
+  }
+
+  @Test
+  void shouldInsertValuesOfReusedParameterObjectAsTheyWereWhenAdded() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      for (int i = 0; i < 3; i++) {
+        user.setId(200 + i);
+        user.setName("User" + i);
+        mapper.insertUserWithId(user);
+      }
+      sqlSession.flushStatements();
+      sqlSession.commit();
+      assertEquals(Arrays.asList("User0", "User1", "User2"),
+          mapper.getUsers().stream().map(User::getName).collect(Collectors.toList()));
+    }
+  }
+
+  private static List<User> newUsers(int count) {
+    List<User> users = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      User user = new User();
+      user.setName("User" + i);
+      users.add(user);
+    }
+    return users;
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  static class PreparedSqlInterceptor implements Interceptor {
+
+    private final List<String> sqls = new ArrayList<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      String sql = ((StatementHandler) invocation.getTarget()).getBoundSql().getSql();
+      if (sql.startsWith("insert")) {
+        sqls.add(sql);
+      }
+      return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+}
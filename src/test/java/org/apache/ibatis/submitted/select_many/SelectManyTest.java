@@ -0,0 +1,263 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.select_many;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.StatementCall;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SelectManyTest {
+
+  private static final String GET_USER = "org.apache.ibatis.submitted.select_many.Mapper.getUser";
+  private static final String FIND_USERS = "org.apache.ibatis.submitted.select_many.Mapper.findUsers";
+  private static final String COUNT_USERS = "org.apache.ibatis.submitted.select_many.Mapper.countUsers";
+
+  private MultiStatementDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    UnpooledDataSource realDataSource = new UnpooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:select_many", "sa", "");
+    BaseDataTest.runScript(realDataSource, "org/apache/ibatis/submitted/select_many/CreateDB.sql");
+    dataSource = new MultiStatementDataSource(realDataSource);
+  }
+
+  @Test
+  void shouldRunSelectsInOneExecution() {
+    SqlSessionFactory sqlSessionFactory = newSqlSessionFactory(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<List<Object>> results = sqlSession.selectMany(Arrays.asList(
+          StatementCall.of(GET_USER, 2), StatementCall.of(FIND_USERS, "User%"), StatementCall.of(COUNT_USERS)));
+      assertResults(results);
+      assertEquals(1, dataSource.executions.get());
+      assertEquals(1, dataSource.connections.get());
+      assertEquals(Collections.singletonList(3), dataSource.statementCounts);
+    }
+  }
+
+  @Test
+  void shouldReuseLocallyCachedResults() {
+    SqlSessionFactory sqlSessionFactory = newSqlSessionFactory(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      User user = sqlSession.getMapper(Mapper.class).getUser(2);
+      List<List<Object>> results = sqlSession.selectMany(Arrays.asList(
+          StatementCall.of(GET_USER, 2), StatementCall.of(FIND_USERS, "User%"), StatementCall.of(COUNT_USERS)));
+      assertSame(user, results.get(0).get(0));
+      assertResults(results);
+      assertEquals(Arrays.asList(1, 2), dataSource.statementCounts);
+    }
+  }
+
+  @Test
+  void shouldRunSelectsOnTheSessionWithoutMultiStatementSupport() {
+    SqlSessionFactory sqlSessionFactory = newSqlSessionFactory(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<List<Object>> results = sqlSession.selectMany(Arrays.asList(
+          StatementCall.of(GET_USER, 2), StatementCall.of(FIND_USERS, "User%"), StatementCall.of(COUNT_USERS)));
+      assertResults(results);
+      assertEquals(3, dataSource.executions.get());
+      assertEquals(1, dataSource.connections.get());
+    }
+  }
+
+  @Test
+  void shouldRunSelectsInParallelWhenEnabled() {
+    SqlSessionFactory sqlSessionFactory = newSqlSessionFactory(false);
+    sqlSessionFactory.getConfiguration().setParallelSelectsEnabled(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<List<Object>> results = sqlSession.selectMany(Arrays.asList(
+          StatementCall.of(GET_USER, 2), StatementCall.of(FIND_USERS, "User%"), StatementCall.of(COUNT_USERS)));
+      assertResults(results);
+      assertEquals(3, dataSource.executions.get());
+      assertEquals(3, dataSource.connections.get());
+    }
+  }
+
+  @Test
+  void shouldSeeUncommittedChangesOfTheSession() {
+    SqlSessionFactory sqlSessionFactory = newSqlSessionFactory(false);
+    sqlSessionFactory.getConfiguration().setParallelSelectsEnabled(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      User user = new User();
+      user.setId(3);
+      user.setName("User3");
+      sqlSession.getMapper(Mapper.class).insertUser(user);
+      List<List<Object>> results = sqlSession.selectMany(Arrays.asList(
+          StatementCall.of(GET_USER, 3), StatementCall.of(COUNT_USERS)));
+      assertEquals("User3", ((User) results.get(0).get(0)).getName());
+      assertEquals(3, results.get(1).get(0));
+      assertEquals(1, dataSource.connections.get());
+      sqlSession.rollback();
+    }
+  }
+
+  private SqlSessionFactory newSqlSessionFactory(boolean multiStatementSelectsEnabled) {
+    Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+    configuration.setMultiStatementSelectsEnabled(multiStatementSelectsEnabled);
+    configuration.addMapper(Mapper.class);
+    return new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  private void assertResults(List<List<Object>> results) {
+    assertEquals(3, results.size());
+    assertEquals("User2", ((User) results.get(0).get(0)).getName());
+    assertEquals(2, results.get(1).size());
+    assertEquals("User1", ((User) results.get(1).get(0)).getName());
+    assertEquals(Collections.singletonList(2), results.get(2));
+  }
+
+  /**
+   * Emulates a driver that runs the statements of a SQL separated by semicolons in one execution,
+   * as HSQLDB does not.
+   */
+  private static class MultiStatementDataSource extends UnpooledDataSource {
+
+    private final DataSource dataSource;
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    // 每次prepare的语句个数
+    private final List<Integer> statementCounts = Collections.synchronizedList(new ArrayList<>());
+
+    MultiStatementDataSource(DataSource dataSource) {
+      this.dataSource = dataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws java.sql.SQLException {
+      connections.incrementAndGet();
+      Connection connection = dataSource.getConnection();
+      return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+          (proxy, method, args) -> {
+            if ("prepareStatement".equals(method.getName())) {
+              String[] sqls = ((String) args[0]).split(";");
+              statementCounts.add(sqls.length);
+              List<PreparedStatement> statements = new ArrayList<>();
+              for (String sql : sqls) {
+                statements.add(connection.prepareStatement(sql));
+              }
+              return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                  new MultiStatement(statements, sqls, (Connection) proxy));
+            }
+            try {
+              return method.invoke(connection, args);
+            } catch (Throwable t) {
+              throw ExceptionUtil.unwrapThrowable(t);
+            }
+          });
+    }
+
+    private class MultiStatement implements InvocationHandler {
+
+      private final List<PreparedStatement> statements;
+
+      private final List<ResultSet> resultSets = new ArrayList<>();
+
+      private final int[] parameterCounts;
+
+      private final Connection connection;
+
+      private int current;
+
+      MultiStatement(List<PreparedStatement> statements, String[] sqls, Connection connection) {
+        this.statements = statements;
+        this.parameterCounts = new int[sqls.length];
+        for (int i = 0; i < sqls.length; i++) {
+          parameterCounts[i] = sqls[i].length() - sqls[i].replace("?", "").length();
+        }
+        this.connection = connection;
+      }
+
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        try {
+          String name = method.getName();
+          if (name.startsWith("set") && args != null && args.length > 1 && args[0] instanceof Integer) {
+            int index = (Integer) args[0];
+            int part = 0;
+            while (index > parameterCounts[part]) {
+              index -= parameterCounts[part++];
+            }
+            args[0] = index;
+            return method.invoke(statements.get(part), args);
+          }
+          switch (name) {
+            case "execute":
+              executions.incrementAndGet();
+              resultSets.clear();
+              for (PreparedStatement statement : statements) {
+                statement.execute();
+                resultSets.add(statement.getResultSet());
+              }
+              current = 0;
+              return true;
+            case "getResultSet":
+              return current < resultSets.size() ? resultSets.get(current) : null;
+            case "getMoreResults":
+              if (current < resultSets.size()) {
+                resultSets.get(current++).close();
+              }
+              return current < resultSets.size();
+            case "getUpdateCount":
+              return -1;
+            case "getConnection":
+              return connection;
+            case "close":
+              for (PreparedStatement statement : statements) {
+                statement.close();
+              }
+              return null;
+            default:
+              Object result = null;
+              for (PreparedStatement statement : statements) {
+                result = method.invoke(statement, args);
+              }
+              return result;
+          }
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,280 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.sharded_executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.Reader;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.sharding.AggregateResultMerger;
+import org.apache.ibatis.executor.sharding.ShardedExecutor;
+import org.apache.ibatis.executor.sharding.SortedResultMerger;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedExecutorTest {
+
+  private static final String GET_SORTED_USERS = "org.apache.ibatis.submitted.sharded_executor.Mapper.getSortedUsers";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  private static final QueryCountingInterceptor interceptor = new QueryCountingInterceptor();
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/sharded_executor/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.addInterceptor(interceptor);
+    configuration.addResultMerger(GET_SORTED_USERS,
+        new SortedResultMerger(Comparator.comparing(User::getId), 4));
+    configuration.addResultMerger("org.apache.ibatis.submitted.sharded_executor.Mapper.countUsers",
+        AggregateResultMerger.sum());
+  }
+
+  @BeforeEach
+  void createShards() throws Exception {
+    List<Environment> shards = sqlSessionFactory.getConfiguration().getShards();
+    for (int i = 0; i < shards.size(); i++) {
+      BaseDataTest.runScript(shards.get(i).getDataSource(), "org/apache/ibatis/submitted/sharded_executor/Shard" + i + ".sql");
+    }
+    interceptor.queries.set(0);
+  }
+
+  @Test
+  void shouldReadShardsFromEnvironments() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    List<String> ids = new ArrayList<>();
+    for (Environment shard : configuration.getShards()) {
+      ids.add(shard.getId());
+    }
+    assertEquals(Arrays.asList("shard0", "shard1", "shard2"), ids);
+    assertEquals("shard0", configuration.getEnvironment().getId());
+    assertEquals(2, configuration.getShardParallelism());
+  }
+
+  @Test
+  void shouldConcatenateResultsOfShards() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals(Arrays.asList(1, 4, 2, 5, 3, 6), ids(users));
+      // the plugins wrap the sharded executor, not the executor of each shard
+      assertEquals(1, interceptor.queries.get());
+    }
+  }
+
+  @Test
+  void shouldMergeSortedResultsOfShards() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      assertEquals(Arrays.asList(1, 2, 3, 4), ids(sqlSession.getMapper(Mapper.class).getSortedUsers()));
+    }
+  }
+
+  @Test
+  void shouldApplyRowBoundsToMergedResults() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      List<User> users = sqlSession.selectList(GET_SORTED_USERS, null, new RowBounds(1, 2));
+      assertEquals(Arrays.asList(2, 3), ids(users));
+    }
+  }
+
+  @Test
+  void shouldAggregateResultsOfShards() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      assertEquals(6, sqlSession.getMapper(Mapper.class).countUsers());
+    }
+  }
+
+  @Test
+  void shouldFailWhenAggregateOverflows() {
+    MappedStatement ms = sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.sharded_executor.Mapper.countUsers");
+    AggregateResultMerger merger = AggregateResultMerger.sum();
+    ExecutorException e = assertThrows(ExecutorException.class, () -> merger.merge(ms, null,
+        Arrays.asList(Collections.singletonList(Integer.MAX_VALUE), Collections.singletonList(1))));
+    assertTrue(e.getMessage().contains("overflows"));
+    assertEquals(Collections.singletonList(Integer.MAX_VALUE + 1L), merger.merge(ms, null,
+        Arrays.asList(Collections.singletonList((long) Integer.MAX_VALUE), Collections.singletonList(1))));
+  }
+
+  @Test
+  void shouldNameCommittedShardsWhenCommitFails() throws Exception {
+    Executor shard0 = mock(Executor.class);
+    Executor shard1 = mock(Executor.class);
+    Executor shard2 = mock(Executor.class);
+    doThrow(new SQLException("commit failed")).when(shard1).commit(false);
+    Map<String, Executor> shards = new LinkedHashMap<>();
+    shards.put("shard0", shard0);
+    shards.put("shard1", shard1);
+    shards.put("shard2", shard2);
+    ShardedExecutor executor = new ShardedExecutor(new Configuration(), null, shards);
+    ExecutorException e = assertThrows(ExecutorException.class, () -> executor.commit(false));
+    assertTrue(e.getMessage().contains("Error committing shard 'shard1'."));
+    assertTrue(e.getMessage().contains("Shards already committed: [shard0, shard2]."));
+  }
+
+  @Test
+  void shouldNotWaitForQueuedWorkersWhenAsyncExecutorIsBusy() throws Exception {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    ExecutorService busyExecutor = Executors.newSingleThreadExecutor();
+    CountDownLatch release = new CountDownLatch(1);
+    busyExecutor.execute(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    configuration.setAsyncExecutor(busyExecutor);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      // the calling thread runs all the shards while the other workers are still queued
+      assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertEquals(6, sqlSession.getMapper(Mapper.class).countUsers()));
+    } finally {
+      release.countDown();
+      busyExecutor.shutdown();
+      configuration.setAsyncExecutor(null);
+    }
+  }
+
+  @Test
+  void shouldUpdateAndCommitEveryShard() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      assertEquals(3, sqlSession.getMapper(Mapper.class).renameUsers("Renamed"));
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals(3, users.stream().filter(user -> "Renamed".equals(user.getName())).count());
+    }
+  }
+
+  @Test
+  void shouldRollbackEveryShard() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(3, mapper.renameUsers("Renamed"));
+      assertEquals(3, mapper.getUsers().stream().filter(user -> "Renamed".equals(user.getName())).count());
+      sqlSession.rollback();
+      assertEquals(0, mapper.getUsers().stream().filter(user -> "Renamed".equals(user.getName())).count());
+    }
+  }
+
+  @Test
+  void shouldKeepLocalCacheOfEveryShard() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<User> users = mapper.getUsers();
+      List<User> cached = mapper.getUsers();
+      for (int i = 0; i < users.size(); i++) {
+        assertSame(users.get(i), cached.get(i));
+      }
+      sqlSession.clearCache();
+      assertNotSame(users.get(0), mapper.getUsers().get(0));
+    }
+  }
+
+  @Test
+  void shouldNameFailedShards() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      PersistenceException e = assertThrows(PersistenceException.class,
+          () -> sqlSession.getMapper(Mapper.class).getOrderUserIds());
+      ExecutorException cause = (ExecutorException) e.getCause();
+      assertTrue(cause.getMessage().contains("shard 'shard0'"));
+      // the other failed shard is reported too
+      assertEquals(1, cause.getSuppressed().length);
+    }
+  }
+
+  @Test
+  void shouldNotReturnCursors() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SHARDED)) {
+      assertThrows(PersistenceException.class, () -> sqlSession.selectCursor(GET_SORTED_USERS));
+    }
+  }
+
+  @Test
+  void shouldRequireShards() {
+    Configuration configuration = new Configuration(sqlSessionFactory.getConfiguration().getEnvironment());
+    assertThrows(ExecutorException.class, () -> configuration.newExecutor(null, ExecutorType.SHARDED));
+  }
+
+  private static List<Integer> ids(List<User> users) {
+    List<Integer> ids = new ArrayList<>();
+    for (User user : users) {
+      ids.add(user.getId());
+    }
+    return ids;
+  }
+
+  @Intercepts(@Signature(type = Executor.class, method = "query",
+      args = { MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class }))
+  static class QueryCountingInterceptor implements Interceptor {
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      queries.incrementAndGet();
+      return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+}
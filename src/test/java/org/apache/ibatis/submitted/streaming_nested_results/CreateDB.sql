@@ -0,0 +1,42 @@
+--
+--    Copyright 2009-2019 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table children if exists;
+drop table parents if exists;
+
+create table parents (
+  id int,
+  name varchar(20)
+);
+
+create table children (
+  id int,
+  parent_id int,
+  name varchar(20)
+);
+
+insert into parents (id, name) values
+(1, 'Parent1'),
+(2, 'Parent2'),
+(3, 'Parent3');
+
+insert into children (id, parent_id, name) values
+(1, 1, 'Child1'),
+(2, 1, 'Child2'),
+(3, 2, 'Child3'),
+(4, 3, 'Child4'),
+(5, 3, 'Child5'),
+(6, 3, 'Child6');
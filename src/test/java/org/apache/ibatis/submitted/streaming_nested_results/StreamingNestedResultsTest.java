@@ -0,0 +1,100 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.streaming_nested_results;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class StreamingNestedResultsTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/streaming_nested_results/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/streaming_nested_results/CreateDB.sql");
+  }
+
+  @Test
+  void shouldReturnCompleteParentsFromCursor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+         Cursor<Parent> cursor = sqlSession.getMapper(Mapper.class).getParentCursor()) {
+      Iterator<Parent> iterator = cursor.iterator();
+      // each parent has all its children as soon as it is returned
+      assertParent(iterator.next(), 1, 2);
+      assertParent(iterator.next(), 2, 1);
+      assertParent(iterator.next(), 3, 3);
+      assertFalse(iterator.hasNext());
+      assertTrue(cursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldPassCompleteParentsToResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Integer> childCounts = new ArrayList<>();
+      // safeResultHandlerEnabled does not reject the handler, as the results are mapped as ordered results
+      sqlSession.getMapper(Mapper.class).getParents(context -> childCounts.add(context.getResultObject().getChildren().size()));
+      assertEquals(3, childCounts.size());
+      assertEquals(Integer.valueOf(2), childCounts.get(0));
+      assertEquals(Integer.valueOf(1), childCounts.get(1));
+      assertEquals(Integer.valueOf(3), childCounts.get(2));
+    }
+  }
+
+  @Test
+  void shouldStopCursorInTheMiddleOfParents() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<Parent> cursor = sqlSession.getMapper(Mapper.class).getParentCursor();
+      assertParent(cursor.iterator().next(), 1, 2);
+      cursor.close();
+      assertFalse(cursor.isOpen());
+    }
+  }
+
+  @Test
+  void shouldNotChangeResultsCollectedInList() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Parent> parents = sqlSession.getMapper(Mapper.class).getParentList();
+      assertEquals(3, parents.size());
+      assertParent(parents.get(0), 1, 2);
+      assertParent(parents.get(2), 3, 3);
+    }
+  }
+
+  private void assertParent(Parent parent, int id, int childCount) {
+    assertEquals(Integer.valueOf(id), parent.getId());
+    assertEquals("Parent" + id, parent.getName());
+    assertEquals(childCount, parent.getChildren().size());
+  }
+
+}
@@ -0,0 +1,150 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.virtual_threads;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs thousands of concurrent mapper calls through a small connection pool and the second level cache.
+ * <p>
+ * On Java 21 and later, the calls run on virtual threads while a flight recording collects the
+ * {@code jdk.VirtualThreadPinned} events, and the test fails when a virtual thread was pinned to its carrier
+ * thread while running MyBatis code. As the build targets Java 8, the virtual threads and the flight recorder
+ * are used through reflection.
+ */
+class VirtualThreadsTest {
+
+  private static final int CALLS = 2000;
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/virtual_threads/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/virtual_threads/CreateDB.sql");
+  }
+
+  @Test
+  void shouldServeConcurrentCallsOnPlatformThreads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(64);
+    try {
+      runCalls(executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldNotPinVirtualThreads() throws Exception {
+    Method newVirtualThreadPerTaskExecutor;
+    try {
+      newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      Assumptions.assumeTrue(false, "Virtual threads require Java 21 or later.");
+      return;
+    }
+    Class<?> recordingType = Class.forName("jdk.jfr.Recording");
+    Object recording = recordingType.getConstructor().newInstance();
+    Object settings = recordingType.getMethod("enable", String.class).invoke(recording, "jdk.VirtualThreadPinned");
+    Class.forName("jdk.jfr.EventSettings").getMethod("withThreshold", Duration.class).invoke(settings, Duration.ZERO);
+    Class.forName("jdk.jfr.EventSettings").getMethod("withStackTrace").invoke(settings);
+    Path file = Files.createTempFile("virtual-threads", ".jfr");
+    try {
+      recordingType.getMethod("start").invoke(recording);
+      ExecutorService executor = (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+      try {
+        runCalls(executor);
+      } finally {
+        executor.shutdown();
+      }
+      recordingType.getMethod("stop").invoke(recording);
+      recordingType.getMethod("dump", Path.class).invoke(recording, file);
+      List<String> pinnedStackTraces = new ArrayList<>();
+      for (Object event : (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+          .getMethod("readAllEvents", Path.class).invoke(null, file)) {
+        String stackTrace = stackTraceOf(event);
+        if (stackTrace.contains("org.apache.ibatis.")) {
+          pinnedStackTraces.add(stackTrace);
+        }
+      }
+      assertTrue(pinnedStackTraces.isEmpty(), () -> "Pinned virtual threads:\n" + String.join("\n", pinnedStackTraces));
+    } finally {
+      recordingType.getMethod("close").invoke(recording);
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private void runCalls(ExecutorService executor) throws Exception {
+    List<Future<User>> futures = new ArrayList<>();
+    for (int i = 0; i < CALLS; i++) {
+      final int id = i % 2 + 1;
+      final boolean cached = i % 4 < 2;
+      futures.add(executor.submit((Callable<User>) () -> {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+          Mapper mapper = sqlSession.getMapper(Mapper.class);
+          return cached ? mapper.getUser(id) : mapper.getUncachedUser(id);
+        }
+      }));
+    }
+    for (int i = 0; i < CALLS; i++) {
+      assertEquals("User" + (i % 2 + 1), futures.get(i).get(60, TimeUnit.SECONDS).getName());
+    }
+    PooledDataSource dataSource = (PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+    assertTrue(dataSource.getPoolState().getIdleConnectionCount() <= 4);
+  }
+
+  private static String stackTraceOf(Object event) throws Exception {
+    Object stackTrace = event.getClass().getMethod("getStackTrace").invoke(event);
+    StringBuilder builder = new StringBuilder();
+    if (stackTrace != null) {
+      for (Object frame : (List<?>) stackTrace.getClass().getMethod("getFrames").invoke(stackTrace)) {
+        Object method = frame.getClass().getMethod("getMethod").invoke(frame);
+        Object type = method.getClass().getMethod("getType").invoke(method);
+        builder.append("  at ").append(type.getClass().getMethod("getName").invoke(type))
+            .append('.').append(method.getClass().getMethod("getName").invoke(method)).append('\n');
+      }
+    }
+    return builder.toString();
+  }
+
+}